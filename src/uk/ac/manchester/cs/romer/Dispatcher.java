@@ -75,12 +75,27 @@ public class Dispatcher {
 		System.out.println("  Hotspot Finder:");
 		System.out.println("   -n		Maximum number of hot spots (default: 1)");
 		System.out.println("   -m		Maximum number of hot spot tests (default: 1,000)");
-		System.out.println("   -s		Hotspot indicator, one of [ SAT | Random ] (default: SAT)");
-		System.out.println("   -p		Hotspot search strategy, one of [ SEQ | CON ], as in Sequential or Concurrent (default: SEQ)");
+		System.out.println("   -s		Hotspot indicator, one of [ SAT | Random | AD | Learned ], as in SAT times, random classes, atomic decomposition, or a model trained on the candidates of earlier runs (default: SAT)");
+		System.out.println("   -p		Hotspot search strategy, one of [ SEQ | CON | PIPE | JOINT ], as in Sequential, Concurrent (SAT indicator only), Pipelined or Joint (greedy removal of several hot spots) (default: SEQ)");
 		System.out.println("   -a		Hotspot candidate type, one of [ BOT | STAR | USG ], as in Bottom or Star modules, or Usage closure (default: BOT)");
+		System.out.println("   -bb		Branch-and-bound: once a remainder classifies in time, remainders taking longer than the fastest one so far plus the given slack (e.g., 0.5 for 50%) are abandoned");
+		System.out.println("   -resume	Record the progress of the hot spot search in a ledger in the output directory, and resume from the ledger of an earlier run with the same settings");
+		System.out.println("   -w		Classify hot spot candidates and remainders in worker processes that load the ontology once, instead of serializing each to a file");
+		System.out.println("   -cc		Check the completeness (w.r.t. atomic subsumptions) of every approximation that classifies in time, against a classification of the ontology");
+		System.out.println("   -sb		Search budget (in milliseconds): stop the search once it is spent, or once the expected improvement per unit time drops below the -sr rate, and return the approximations found so far");
+		System.out.println("   -sr		Minimum expected improvement rate under a search budget, in seconds of classification time saved per second of search (default: 0.01)");
+		System.out.println("   -gb		Obtain SAT-based indicators from one classification of the ontology, which attributes its time to classes, rather than from a separate SAT test");
 		System.out.println("  Reasoning task output:");
 		System.out.println("   -x		Exclude asserted axioms from entailment generation tasks");
 		System.out.println("   -d		Return only direct subsumptions (transitive reduction) from classificiation");
+		System.out.println("   -bin		Save classification results as a compact binary taxonomy file rather than OWL/XML");
+		System.out.println("   -j		Number of reasoner instances used in parallel for classification and realization (default: 1)");
+		System.out.println("   -sum		Check consistency or realize on an Abox summary first, refining on the full ontology only where inconclusive");
+		System.out.println("   -any		Anytime classification: on timeout, save the subsumptions computed so far and the list of unclassified classes");
+		System.out.println("   -pri		File with class IRIs (one per line) to classify first");
+		System.out.println("   -cb		Time budget per class (in milliseconds): classes exceeding it are reported as unresolved, and seed the hot spot search");
+		System.out.println("   -ca		Attribute classification time to classes, printing the time of each class as it is computed");
+		System.out.println("   -hy		Hybrid classification: classify the OWL 2 EL part of the ontology with TrOWL's EL reasoner, and the rest with REASONERNAME");
 		System.out.println("  Performance Profiler:");
 		System.out.println("   -r		Set the number of runs of the Performance Profiler (default: 5)");
 		System.out.println("   -l		Number of ontology partitions created in the Performance Profiler (default: 4)");
@@ -88,6 +103,7 @@ public class Dispatcher {
 		System.out.println("   -t		Timeout for entire operation (in milliseconds)");
 		System.out.println("   -b		Ignore Abox axioms");
 		System.out.println("   -o		Output directory for logs and/or ontology files");
+		System.out.println("   -cache	Directory of the classification results cache used by -hsf and -prof, which can be shared across runs");
 		System.out.println("   -v		Print detailed messages");
 		System.out.println("   -h		Print this help message\n");
 	}
@@ -169,7 +185,10 @@ public class Dispatcher {
 		String ontFile = null, reasonerName = null, outputDir = null, verbose = "false", nrHotspots = null, fork = "false",
 				maxHotspotTests = null, timeout = null, opTimeout = null, nrProfilerRuns = null, indicatorStrategy = null,
 				searchStrategy = null, hsType = null, excludeAsserted = "false", directOnly = "false", entOp = null, 
-				ignoreAbox = "false", nrPartitions = null;
+				ignoreAbox = "false", nrPartitions = null, hybrid = "false", nrThreads = null, binaryOutput = "false",
+				summarize = "false", anytime = "false", priorityFile = null, classBudget = null, cacheDir = null,
+				boundSlack = null, resume = "false", useWorkers = "false", checkCompleteness = "false",
+				glassBox = "false", costAttribution = "false", searchBudget = null, minRate = null;
 		Class<? extends Object> operation = null;
 		
 		for(int i = 0; i < args.length; i++) {
@@ -194,6 +213,14 @@ public class Dispatcher {
 			// Reasoning task output
 			if(arg.equalsIgnoreCase("-x"))	excludeAsserted = "true";
 			if(arg.equalsIgnoreCase("-d"))	directOnly = "true";
+			if(arg.equalsIgnoreCase("-hy"))	hybrid = "true";
+			if(arg.equalsIgnoreCase("-bin"))	binaryOutput = "true";
+			if(arg.equalsIgnoreCase("-j"))	nrThreads = args[++i].trim();
+			if(arg.equalsIgnoreCase("-sum"))	summarize = "true";
+			if(arg.equalsIgnoreCase("-any"))	anytime = "true";
+			if(arg.equalsIgnoreCase("-pri"))	priorityFile = args[++i].trim();
+			if(arg.equalsIgnoreCase("-cb"))	classBudget = args[++i].trim();
+			if(arg.equalsIgnoreCase("-ca"))	costAttribution = "true";
 			
 			// Hotspot Finder
 			if(arg.equalsIgnoreCase("-s"))	indicatorStrategy = args[++i].trim();
@@ -201,6 +228,13 @@ public class Dispatcher {
 			if(arg.equalsIgnoreCase("-a"))	hsType = args[++i].trim();
 			if(arg.equalsIgnoreCase("-n"))	nrHotspots = args[++i].trim();
 			if(arg.equalsIgnoreCase("-m"))	maxHotspotTests = args[++i].trim();
+			if(arg.equalsIgnoreCase("-bb"))	boundSlack = args[++i].trim();
+			if(arg.equalsIgnoreCase("-resume"))	resume = "true";
+			if(arg.equalsIgnoreCase("-w"))	useWorkers = "true";
+			if(arg.equalsIgnoreCase("-cc"))	checkCompleteness = "true";
+			if(arg.equalsIgnoreCase("-gb"))	glassBox = "true";
+			if(arg.equalsIgnoreCase("-sb"))	searchBudget = args[++i].trim();
+			if(arg.equalsIgnoreCase("-sr"))	minRate = args[++i].trim();
 			
 			// Performance Profiler
 			if(arg.equalsIgnoreCase("-r"))	nrProfilerRuns = args[++i].trim();
@@ -210,6 +244,7 @@ public class Dispatcher {
 			if(arg.equalsIgnoreCase("-t"))	timeout = args[++i].trim();
 			if(arg.equalsIgnoreCase("-i"))	opTimeout = args[++i].trim();
 			if(arg.equalsIgnoreCase("-o"))	outputDir = args[++i].trim();
+			if(arg.equalsIgnoreCase("-cache"))	cacheDir = args[++i].trim();
 			if(arg.equalsIgnoreCase("-b"))	ignoreAbox = "true";
 			if(arg.equalsIgnoreCase("-v"))	verbose = "true";
 			if(arg.equalsIgnoreCase("-h"))	{printUsage(); System.exit(0);}
@@ -228,10 +263,25 @@ public class Dispatcher {
 			if(indicatorStrategy != null)		{params.add("-s"); params.add(indicatorStrategy);}
 			if(searchStrategy != null)			{params.add("-p"); params.add(searchStrategy);}
 			if(hsType != null)					{params.add("-a"); params.add(hsType);}
+			if(boundSlack != null)				{params.add("-bb"); params.add(boundSlack);}
+			if(resume.equals("true"))			{params.add("-resume");}
+			if(useWorkers.equals("true"))		{params.add("-w");}
+			if(checkCompleteness.equals("true"))	{params.add("-cc");}
+			if(glassBox.equals("true"))			{params.add("-gb");}
+			if(searchBudget != null)			{params.add("-sb"); params.add(searchBudget);}
+			if(minRate != null)					{params.add("-sr"); params.add(minRate);}
 			
 			// Reasoning task output
 			if(excludeAsserted.equals("true"))	{params.add("-x");}
 			if(directOnly.equals("true"))		{params.add("-d");}
+			if(hybrid.equals("true"))			{params.add("-hy");}
+			if(nrThreads != null)				{params.add("-j"); params.add(nrThreads);}
+			if(binaryOutput.equals("true"))		{params.add("-bin");}
+			if(summarize.equals("true"))		{params.add("-sum");}
+			if(anytime.equals("true"))			{params.add("-any");}
+			if(priorityFile != null)			{params.add("-pri"); params.add(priorityFile);}
+			if(classBudget != null)				{params.add("-cb"); params.add(classBudget);}
+			if(costAttribution.equals("true"))	{params.add("-ca");}
 			
 			// Performance Profiler
 			if(nrProfilerRuns != null)			{params.add("-r"); params.add(nrProfilerRuns);}
@@ -242,6 +292,7 @@ public class Dispatcher {
 			if(timeout != null)					{params.add("-t"); params.add(timeout);}
 			if(opTimeout != null)				{params.add("-i"); params.add(opTimeout);}
 			if(ignoreAbox.equals("true"))		{params.add("-b");}
+			if(cacheDir != null)				{params.add("-cache"); params.add(cacheDir);}
 			if(outputDir != null) {
 				if(!outputDir.endsWith(File.separator)) outputDir += File.separator;
 				params.add("-o"); params.add(outputDir);
@@ -151,6 +151,8 @@ public class ReasonerLoader {
 //		}
 		else if(reasonerName.equalsIgnoreCase("trowl"))
 			reasonerFactory = new RELReasonerFactory();
+		else if(reasonerName.equalsIgnoreCase("trowl-el"))
+			reasonerFactory = new eu.trowl.owlapi3.rel.reasoner.el.RELReasonerFactory();
 		else {
 			throw new RuntimeErrorException(new Error("Unknown reasoner: " + reasonerName + ". " +
 					"Valid reasoners: Hermit | Fact | Pellet | JFact | ELK | jcel | SnoRocket ")); 
@@ -21,6 +21,7 @@ package uk.ac.manchester.cs.romer.approximation;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLOntology;
@@ -32,6 +33,8 @@ import uk.ac.manchester.cs.romer.approximation.ELApproximation.ELApproximationTy
 import uk.ac.manchester.cs.romer.hotspots.Hotspot;
 import uk.ac.manchester.cs.romer.reasonertasks.ClassifierResult;
 import uk.ac.manchester.cs.romer.reasonertasks.EntailmentGenerator;
+import uk.ac.manchester.cs.romer.utils.ClassificationCache;
+import uk.ac.manchester.cs.romer.utils.ModuleService;
 
 /**
  * @author Rafael S. Goncalves <br/>
@@ -44,6 +47,8 @@ public class ApproximationGenerator {
 	private ClassifierResult naiveApproxResults;
 	private Hotspot hotspot;
 	private OWLOntology ont;
+	private ClassificationCache cache;
+	private ModuleService modules;
 	
 	/**
 	 * Constructor
@@ -189,19 +194,57 @@ public class ApproximationGenerator {
 	public Set<OWLAxiom> getBottomModuleRemainder() {
 		Set<OWLEntity> sig = ont.getSignature();
 		sig.removeAll(hotspot.getSignature());
+		if(modules != null)
+			return modules.extract(sig, ModuleType.BOT);
 		return new SyntacticLocalityModuleExtractor(ont.getOWLOntologyManager(), ont, ModuleType.BOT).extract(sig);
 	}
 	
 	
 	/**
-	 * Classify a given ontology
+	 * Classify a given ontology, ignoring its ABox (as do the classifications of the hot spot finder, with which the 
+	 * cache may be shared)
 	 * @param ont	OWL ontology
 	 * @param reasonerName	Reasoner name
 	 * @return Set of entailments
 	 */
 	private ClassifierResult classify(OWLOntology ont, String reasonerName) {
+		String key = null;
+		if(cache != null) {
+			key = ClassificationCache.getKey(ont.getAxioms(), true, reasonerName, "-cl");
+			ClassifierResult cached = cache.get(key, 0, true);
+			if(cached != null) return cached;
+		}
+		if(!ont.getABoxAxioms(true).isEmpty()) {
+			Set<OWLAxiom> tbox = new HashSet<OWLAxiom>(ont.getAxioms());
+			tbox.removeAll(ont.getABoxAxioms(true));
+			try {
+				ont = OWLManager.createOWLOntologyManager().createOntology(tbox);
+			} catch (OWLOntologyCreationException e) {
+				e.printStackTrace();
+			}
+		}
 		EntailmentGenerator gen = new EntailmentGenerator(ont, reasonerName, true, false, true, false);
-		return gen.classify();
+		ClassifierResult r = gen.classify();
+		if(cache != null) cache.put(key, r, 0, true);
+		return r;
+	}
+	
+	
+	/**
+	 * Set the cache consulted before classifying the hot spot or the remainder, and updated with the results
+	 * @param cache	Classification cache
+	 */
+	public void setClassificationCache(ClassificationCache cache) {
+		this.cache = cache;
+	}
+	
+	
+	/**
+	 * Set the module service used to extract modules of the ontology, instead of a new module extractor per module
+	 * @param modules	Module service over the same ontology
+	 */
+	public void setModuleService(ModuleService modules) {
+		this.modules = modules;
 	}
 	
 	
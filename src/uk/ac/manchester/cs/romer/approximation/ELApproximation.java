@@ -102,12 +102,22 @@ public class ELApproximation {
 	 */
 	public Set<OWLAxiom> getNaiveELApproximation() {
 		Set<OWLAxiom> output = new HashSet<OWLAxiom>(axioms);
-		Set<OWLAxiom> toRemove = new HashSet<OWLAxiom>();
+		output.removeAll(getNonELAxioms());
+		return output;
+	}
+
+
+	/**
+	 * Get the axioms that violate the OWL 2 EL profile
+	 * @return Set of non-EL axioms
+	 */
+	public Set<OWLAxiom> getNonELAxioms() {
+		Set<OWLAxiom> output = new HashSet<OWLAxiom>();
 		OWL2ELProfile elprofile = new OWL2ELProfile();
 		for(OWLProfileViolation violation : elprofile.checkOntology(ont).getViolations()) {
-			toRemove.add(violation.getAxiom());
+			if(violation.getAxiom() != null)
+				output.add(violation.getAxiom());
 		}
-		output.removeAll(toRemove);
 		return output;
 	}
 	
@@ -21,18 +21,17 @@ package uk.ac.manchester.cs.romer.compilation;
 import java.io.IOException;
 import java.util.Set;
 
-import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
-import org.semanticweb.owlapi.model.OWLOntologyStorageException;
 
 import uk.ac.manchester.cs.romer.approximation.Approximation;
 import uk.ac.manchester.cs.romer.hotspots.HotspotFinder;
 import uk.ac.manchester.cs.romer.hotspots.HotspotFinder.HotspotCandidateType;
 import uk.ac.manchester.cs.romer.hotspots.HotspotFinder.HotspotIndicatorStrategy;
 import uk.ac.manchester.cs.romer.hotspots.HotspotFinder.HotspotSearchStrategy;
+import uk.ac.manchester.cs.romer.utils.StreamingOntologyWriter;
 
 /**
  * @author Rafael S. Goncalves <br/>
@@ -100,11 +99,10 @@ public class OfflineCompiler {
 	 * Compile and serialize the closest (most complete, where applicable) approximation
 	 * @param strat	Hotspot search strategy
 	 * @throws OWLOntologyCreationException
-	 * @throws OWLOntologyStorageException
 	 * @throws IOException
 	 * @throws InterruptedException
 	 */
-	public void compileAndSerializeClosestApproximation(HotspotSearchStrategy strat) throws OWLOntologyCreationException, OWLOntologyStorageException, IOException, InterruptedException {
+	public void compileAndSerializeClosestApproximation(HotspotSearchStrategy strat) throws OWLOntologyCreationException, IOException, InterruptedException {
 		Approximation a = compileAndGetClosestApproximation(strat);
 		serialize(getClassHierarchy(a), a.getApproximationTypeName());
 	}
@@ -182,12 +180,10 @@ public class OfflineCompiler {
 	 * Serialize given set of axioms with desired filename
 	 * @param axioms	Set of axioms
 	 * @param filename	File name
-	 * @throws OWLOntologyCreationException
-	 * @throws OWLOntologyStorageException
+	 * @throws IOException
 	 */
-	private void serialize(Set<OWLAxiom> axioms, String filename) throws OWLOntologyCreationException, OWLOntologyStorageException {
-		OWLOntology out = man.createOntology(axioms);
-		man.saveOntology(out, IRI.create("file:" + outputDir + filename + ".owl"));
+	private void serialize(Set<OWLAxiom> axioms, String filename) throws IOException {
+		StreamingOntologyWriter.write(axioms, outputDir + filename + ".owl");
 	}
 	
 	
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.hotspots;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+
+import uk.ac.manchester.cs.romer.utils.AxiomIndex;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Append-only, on-disk record of the progress of a hot spot search: the SAT times of indicator classes, the
+ * candidates tested (with their fingerprints, see {@link AxiomIndex}) and their
+ * verdicts, and the fingerprints of the remainders found too slow. Each record is one line, written and flushed as
+ * soon as it is known, so a search that is interrupted can be resumed by a new run with the same ledger. The ledger
+ * file is named after a key that identifies the ontology, reasoner and search parameters, so runs with different
+ * settings never share a ledger. An incomplete last line (e.g., after a crash while writing it) is ignored.
+ * </p>
+ */
+public class CandidateLedger {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private File file;
+	private Writer writer;
+	private Map<IRI,Double> satTimes;
+	private Double satTestTime;
+	private Map<IRI,Verdict> verdicts;
+	private Map<IRI,BitSet> candidateFingerprints;
+	private List<BitSet> slowRemainders;
+	private int lastCandidateNr = 0;
+
+	/**
+	 * Constructor
+	 * @param dir	Directory of the ledger file
+	 * @param key	Key of the search (e.g., a digest of the ontology and search parameters)
+	 * @throws IOException
+	 */
+	public CandidateLedger(String dir, String key) throws IOException {
+		this.file = new File(dir, "HSF_Ledger_" + key + ".txt");
+		this.satTimes = new LinkedHashMap<IRI,Double>();
+		this.verdicts = new LinkedHashMap<IRI,Verdict>();
+		this.candidateFingerprints = new HashMap<IRI,BitSet>();
+		this.slowRemainders = new ArrayList<BitSet>();
+		if(file.exists()) load();
+		else file.getParentFile().mkdirs();
+		this.writer = new OutputStreamWriter(new FileOutputStream(file, true), UTF8);
+	}
+
+
+	/**
+	 * Load the records in the ledger file
+	 * @throws IOException
+	 */
+	private void load() throws IOException {
+		boolean complete = (file.length() == 0 || endsWithNewLine());
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+		String line;
+		while((line = reader.readLine()) != null)
+			lines.add(line);
+		reader.close();
+		if(!complete) lines.remove(lines.size()-1); // Incomplete last record
+		
+		for(String l : lines) {
+			String[] fields = l.split("\t");
+			try {
+				if(fields[0].equals("SAT") && fields.length == 3)
+					satTimes.put(IRI.create(fields[1]), Double.parseDouble(fields[2]));
+				else if(fields[0].equals("SATDONE") && fields.length == 2)
+					satTestTime = Double.parseDouble(fields[1]);
+				else if(fields[0].equals("CANDIDATE") && fields.length == 4) {
+					lastCandidateNr = Math.max(lastCandidateNr, Integer.parseInt(fields[1]));
+					candidateFingerprints.put(IRI.create(fields[2]), AxiomIndex.decode(fields[3]));
+				}
+				else if(fields[0].equals("VERDICT") && fields.length == 3)
+					verdicts.put(IRI.create(fields[1]), Verdict.valueOf(fields[2]));
+				else if(fields[0].equals("SLOW") && fields.length == 2)
+					slowRemainders.add(AxiomIndex.decode(fields[1]));
+			} catch (IllegalArgumentException e) {
+				System.err.println("Ignoring malformed ledger record: " + l);
+			}
+		}
+		if(!complete) { // Terminate the incomplete last record, so that new records start on a line of their own
+			Writer w = new OutputStreamWriter(new FileOutputStream(file, true), UTF8);
+			w.write("\n");
+			w.close();
+		}
+	}
+
+
+	private boolean endsWithNewLine() throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		in.skip(file.length()-1);
+		int last = in.read();
+		in.close();
+		return last == '\n';
+	}
+
+
+	/**
+	 * Record the SAT time of an indicator class
+	 * @param c	OWLClass
+	 * @param time	SAT time (in seconds)
+	 */
+	public synchronized void recordSATTime(OWLClass c, double time) {
+		satTimes.put(c.getIRI(), time);
+		append("SAT\t" + c.getIRI() + "\t" + time);
+	}
+
+
+	/**
+	 * Record that the SAT test is complete, i.e., that all SAT times have been recorded
+	 * @param time	SAT test time (in seconds)
+	 */
+	public synchronized void recordSATTestDone(double time) {
+		satTestTime = time;
+		append("SATDONE\t" + time);
+	}
+
+
+	/**
+	 * Record a candidate hot spot, once it is fingerprinted
+	 * @param nr	Candidate number
+	 * @param seed	Seed concept
+	 * @param fp	Candidate fingerprint
+	 */
+	public synchronized void recordCandidate(int nr, OWLClass seed, BitSet fp) {
+		lastCandidateNr = Math.max(lastCandidateNr, nr);
+		candidateFingerprints.put(seed.getIRI(), fp);
+		append("CANDIDATE\t" + nr + "\t" + seed.getIRI() + "\t" + AxiomIndex.encode(fp));
+	}
+
+
+	/**
+	 * Record the verdict on the candidate hot spot of the given seed concept
+	 * @param seed	Seed concept
+	 * @param verdict	Verdict
+	 */
+	public synchronized void recordVerdict(OWLClass seed, Verdict verdict) {
+		verdicts.put(seed.getIRI(), verdict);
+		append("VERDICT\t" + seed.getIRI() + "\t" + verdict);
+	}
+
+
+	/**
+	 * Record a remainder found too slow
+	 * @param fp	Remainder fingerprint
+	 */
+	public synchronized void recordSlowRemainder(BitSet fp) {
+		slowRemainders.add(fp);
+		append("SLOW\t" + AxiomIndex.encode(fp));
+	}
+
+
+	/**
+	 * @return Recorded SAT times (in seconds), in the order they were recorded
+	 */
+	public synchronized Map<IRI,Double> getSATTimes() {
+		return new LinkedHashMap<IRI,Double>(satTimes);
+	}
+
+
+	/**
+	 * @return SAT test time (in seconds), or null if the SAT test was not completed
+	 */
+	public synchronized Double getSATTestTime() {
+		return satTestTime;
+	}
+
+
+	/**
+	 * @return Recorded verdicts, by seed concept
+	 */
+	public synchronized Map<IRI,Verdict> getVerdicts() {
+		return new LinkedHashMap<IRI,Verdict>(verdicts);
+	}
+
+
+	/**
+	 * Get the fingerprint of the candidate hot spot of the given seed concept
+	 * @param seed	Seed concept IRI
+	 * @return Candidate fingerprint, or null if no candidate was recorded for the seed concept
+	 */
+	public synchronized BitSet getCandidateFingerprint(IRI seed) {
+		return candidateFingerprints.get(seed);
+	}
+
+
+	/**
+	 * @return Fingerprints of the recorded slow remainders
+	 */
+	public synchronized List<BitSet> getSlowRemainders() {
+		return new ArrayList<BitSet>(slowRemainders);
+	}
+
+
+	/**
+	 * @return Highest recorded candidate number, 0 if none
+	 */
+	public synchronized int getLastCandidateNr() {
+		return lastCandidateNr;
+	}
+
+
+	/**
+	 * Close the ledger file
+	 */
+	public synchronized void close() {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+
+	private void append(String record) {
+		try {
+			writer.write(record + "\n");
+			writer.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+
+	/**
+	 * Verdicts on candidate hot spots. A candidate whose remainder test was cut short (e.g., by the search budget) 
+	 * or pruned (abandoned by branch-and-bound, as slower than the best remainder so far) is not known not to be 
+	 * a hot spot, so its verdict is not final. A candidate whose remainder contains a remainder already found too 
+	 * slow is dominated: not a hot spot, though its remainder was never classified
+	 */
+	public enum Verdict {
+		HOTSPOT, NOT_HOTSPOT, DOMINATED, DUPLICATE, BAD_SIZE, CUT_SHORT, PRUNED;
+		
+		/**
+		 * Check whether the verdict is final, i.e., whether the candidate need not be tested again
+		 * @return true if the verdict is final
+		 */
+		public boolean isFinal() {
+			return !this.equals(CUT_SHORT) && !this.equals(PRUNED);
+		}
+	}
+}
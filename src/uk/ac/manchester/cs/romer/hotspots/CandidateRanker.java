@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.hotspots;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLQuantifiedObjectRestriction;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Logistic regression model of the probability that a candidate hot spot is a hot spot, over structural features of
+ * the candidate (its size, and the share of its axioms that are general concept inclusions or use costly constructs)
+ * and of the ontology. The features need no reasoning, so candidates can be ranked before any reasoner runs. The
+ * model is trained on the candidates verified in earlier runs, as recorded in the candidates file (see
+ * {@link HotspotFinder#serializeCandidateRecords()}), with the same reasoner.
+ * </p>
+ */
+public class CandidateRanker {
+	/** Names of the features, as in the header of the candidates file */
+	public static final String[] FEATURES = {"Log Size", "Size Ratio", "GCI Ratio", "Disjunction Ratio", "Universal Ratio",
+		"Cardinality Ratio", "Negation Ratio", "Nominal Ratio", "Inverse Role Ratio", "Existential Ratio",
+		"Ontology Log Size", "Ontology GCI Ratio"};
+	/** Costly constructs, in the order of their features (from "Disjunction Ratio" on) */
+	private static final int DISJUNCTION = 0, UNIVERSAL = 1, CARDINALITY = 2, NEGATION = 3, NOMINAL = 4, INVERSE = 5, EXISTENTIAL = 6;
+	/** Structural cost of each use of a construct, indexed as above */
+	private static final double[] CONSTRUCT_COSTS = {2, 2, 2, 1, 3, 2, 0};
+	private static final int MIN_EXAMPLES = 10, ITERATIONS = 1000;
+	private static final double LEARNING_RATE = 0.1, L2 = 0.01;
+	private double ontLogSize, ontGCIRatio, ontSize;
+	private double[] weights, means, stdDevs;
+	private double bias;
+	private int nrExamples = 0, nrPositives = 0;
+	private double accuracy;
+
+	/**
+	 * Constructor
+	 * @param ont	OWL ontology
+	 */
+	public CandidateRanker(OWLOntology ont) {
+		this.ontSize = ont.getLogicalAxiomCount();
+		this.ontLogSize = Math.log(1 + ontSize);
+		int gcis = 0;
+		for(OWLAxiom ax : ont.getLogicalAxioms()) {
+			if(isGCI(ax)) gcis++;
+		}
+		this.ontGCIRatio = (ontSize > 0 ? gcis/ontSize : 0);
+	}
+
+
+	/**
+	 * Get the features of a candidate hot spot
+	 * @param candidate	Set of axioms of the candidate
+	 * @return Feature values, in the order of {@link #FEATURES}
+	 */
+	public double[] getFeatures(Set<OWLAxiom> candidate) {
+		double[] f = new double[FEATURES.length];
+		int size = 0;
+		for(OWLAxiom ax : candidate) {
+			if(!ax.isLogicalAxiom()) continue;
+			size++;
+			if(isGCI(ax)) f[2]++;
+			boolean[] uses = new boolean[CONSTRUCT_COSTS.length];
+			for(OWLClassExpression ce : ax.getNestedClassExpressions()) {
+				int construct = getConstruct(ce);
+				if(construct != -1) uses[construct] = true;
+				if(hasInverseRole(ce)) uses[INVERSE] = true;
+			}
+			for(int i = 0; i < uses.length; i++) {
+				if(uses[i]) f[3+i]++;
+			}
+		}
+		if(size > 0) {
+			for(int i = 2; i < 10; i++)
+				f[i] /= size;
+		}
+		f[0] = Math.log(1 + size);
+		f[1] = (ontSize > 0 ? size/ontSize : 0);
+		f[10] = ontLogSize;
+		f[11] = ontGCIRatio;
+		return f;
+	}
+
+
+	/**
+	 * Train the model on the candidates in the given candidates file that were verified with the given reasoner
+	 * @param file	Candidates file
+	 * @param reasonerName	Reasoner name
+	 * @return true if the model was trained, false if there are too few candidates (or they are all hot spots, or
+	 * none is)
+	 * @throws IOException
+	 */
+	public boolean train(File file, String reasonerName) throws IOException {
+		List<double[]> xs = new ArrayList<double[]>();
+		List<Double> ys = new ArrayList<Double>();
+		if(file.exists()) {
+			BufferedReader reader = new BufferedReader(new FileReader(file));
+			String line = reader.readLine(); // Header
+			while((line = reader.readLine()) != null) {
+				String[] fields = line.split(",");
+				if(fields.length != FEATURES.length + 5 || !fields[1].equals(reasonerName)) continue;
+				double[] x = new double[FEATURES.length];
+				try {
+					for(int i = 0; i < x.length; i++)
+						x[i] = Double.parseDouble(fields[4+i]);
+				} catch (NumberFormatException e) {
+					continue;
+				}
+				xs.add(x);
+				ys.add(Boolean.parseBoolean(fields[fields.length-1]) ? 1.0 : 0.0);
+			}
+			reader.close();
+		}
+		nrExamples = xs.size();
+		nrPositives = 0;
+		for(Double y : ys)
+			nrPositives += y.intValue();
+		if(nrExamples < MIN_EXAMPLES || nrPositives == 0 || nrPositives == nrExamples) {
+			weights = null;
+			return false;
+		}
+
+		// Standardize features
+		int d = FEATURES.length;
+		means = new double[d];
+		stdDevs = new double[d];
+		for(double[] x : xs) {
+			for(int j = 0; j < d; j++)
+				means[j] += x[j]/nrExamples;
+		}
+		for(double[] x : xs) {
+			for(int j = 0; j < d; j++)
+				stdDevs[j] += (x[j]-means[j])*(x[j]-means[j])/nrExamples;
+		}
+		for(int j = 0; j < d; j++)
+			stdDevs[j] = (stdDevs[j] > 0 ? Math.sqrt(stdDevs[j]) : 1);
+		List<double[]> zs = new ArrayList<double[]>();
+		for(double[] x : xs)
+			zs.add(standardize(x));
+
+		// Batch gradient descent on the L2-regularized log loss
+		weights = new double[d];
+		bias = 0;
+		for(int it = 0; it < ITERATIONS; it++) {
+			double[] grad = new double[d];
+			double gradBias = 0;
+			for(int i = 0; i < nrExamples; i++) {
+				double err = sigmoid(dot(zs.get(i))) - ys.get(i);
+				for(int j = 0; j < d; j++)
+					grad[j] += err*zs.get(i)[j];
+				gradBias += err;
+			}
+			for(int j = 0; j < d; j++)
+				weights[j] -= LEARNING_RATE*(grad[j]/nrExamples + L2*weights[j]);
+			bias -= LEARNING_RATE*gradBias/nrExamples;
+		}
+
+		int correct = 0;
+		for(int i = 0; i < nrExamples; i++) {
+			if((sigmoid(dot(zs.get(i))) >= 0.5) == (ys.get(i) == 1.0)) correct++;
+		}
+		accuracy = (double)correct/nrExamples;
+		return true;
+	}
+
+
+	/**
+	 * Get the probability, according to the model, that a candidate with the given features is a hot spot
+	 * @param features	Feature values, as given by {@link #getFeatures(Set)}
+	 * @return Probability that the candidate is a hot spot
+	 * @throws IllegalStateException if the model is not trained
+	 */
+	public double score(double[] features) {
+		if(weights == null) throw new IllegalStateException("Candidate ranker is not trained");
+		return sigmoid(dot(standardize(features)));
+	}
+
+
+	/**
+	 * @return true if the model is trained
+	 */
+	public boolean isTrained() {
+		return weights != null;
+	}
+
+
+	/**
+	 * @return Number of candidates the model was trained on
+	 */
+	public int getNumberOfExamples() {
+		return nrExamples;
+	}
+
+
+	/**
+	 * @return Number of hot spots among the candidates the model was trained on
+	 */
+	public int getNumberOfPositiveExamples() {
+		return nrPositives;
+	}
+
+
+	/**
+	 * @return Share of the training candidates that the model classifies correctly
+	 */
+	public double getTrainingAccuracy() {
+		return accuracy;
+	}
+
+
+	private double[] standardize(double[] x) {
+		double[] z = new double[x.length];
+		for(int j = 0; j < x.length; j++)
+			z[j] = (x[j]-means[j])/stdDevs[j];
+		return z;
+	}
+
+
+	private double dot(double[] z) {
+		double s = bias;
+		for(int j = 0; j < z.length; j++)
+			s += weights[j]*z[j];
+		return s;
+	}
+
+
+	private static double sigmoid(double s) {
+		return 1/(1+Math.exp(-s));
+	}
+
+
+	/**
+	 * Get the structural cost of an axiom: 1, plus 2 for each disjunction, universal restriction, cardinality 
+	 * restriction or inverse role, 1 for each negation, 3 for each nominal, and 2 if it is a general concept inclusion
+	 * (or an equivalence, transitivity or inverse role axiom)
+	 * @param ax	Logical axiom
+	 * @return Structural cost
+	 */
+	public static double getStructuralCost(OWLAxiom ax) {
+		double cost = 1;
+		for(OWLClassExpression ce : ax.getNestedClassExpressions()) {
+			int construct = getConstruct(ce);
+			if(construct != -1) cost += CONSTRUCT_COSTS[construct];
+			if(hasInverseRole(ce)) cost += CONSTRUCT_COSTS[INVERSE];
+		}
+		if(isGCI(ax) || ax.isOfType(AxiomType.EQUIVALENT_CLASSES, AxiomType.TRANSITIVE_OBJECT_PROPERTY, AxiomType.INVERSE_OBJECT_PROPERTIES))
+			cost += 2;
+		return cost;
+	}
+
+
+	/**
+	 * Get the costly construct a class expression is built with (other than inverse roles, see 
+	 * {@link #hasInverseRole(OWLClassExpression)})
+	 * @param ce	Class expression
+	 * @return Construct index, or -1 if it is not a costly construct
+	 */
+	private static int getConstruct(OWLClassExpression ce) {
+		switch(ce.getClassExpressionType()) {
+		case OBJECT_UNION_OF:
+			return DISJUNCTION;
+		case OBJECT_ALL_VALUES_FROM: case DATA_ALL_VALUES_FROM:
+			return UNIVERSAL;
+		case OBJECT_MIN_CARDINALITY: case OBJECT_MAX_CARDINALITY: case OBJECT_EXACT_CARDINALITY:
+		case DATA_MIN_CARDINALITY: case DATA_MAX_CARDINALITY: case DATA_EXACT_CARDINALITY:
+			return CARDINALITY;
+		case OBJECT_COMPLEMENT_OF:
+			return NEGATION;
+		case OBJECT_ONE_OF: case OBJECT_HAS_VALUE:
+			return NOMINAL;
+		case OBJECT_SOME_VALUES_FROM: case DATA_SOME_VALUES_FROM:
+			return EXISTENTIAL;
+		default: 
+			return -1;
+		}
+	}
+
+
+	private static boolean hasInverseRole(OWLClassExpression ce) {
+		return ce instanceof OWLQuantifiedObjectRestriction && ((OWLQuantifiedObjectRestriction)ce).getProperty().isAnonymous();
+	}
+
+
+	private static boolean isGCI(OWLAxiom ax) {
+		return ax.isOfType(AxiomType.SUBCLASS_OF) && ((OWLSubClassOfAxiom)ax).getSubClass().isAnonymous();
+	}
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.hotspots;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.manchester.cs.romer.Dispatcher;
+import uk.ac.manchester.cs.romer.reasonertasks.ClassificationWorker;
+import uk.ac.manchester.cs.romer.utils.AxiomIndex;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Pool of {@link ClassificationWorker} processes over an ontology. A worker is started when a classification is
+ * requested and none is idle, and is returned to the pool after a classification that finished in time (a worker
+ * whose classification timed out or failed has exited, and is discarded). If a worker does not index the ontology
+ * axioms in the same way as this process, the pool is disabled, and callers fall back to classifying files.
+ * </p>
+ */
+public class ClassificationWorkerPool {
+	private String ontPath, reasonerName;
+	private boolean ignoreAbox;
+	private AxiomIndex index;
+	private BlockingQueue<Worker> idle;
+	private Set<Worker> workers;
+	private AtomicInteger nrStarted = new AtomicInteger();
+	private volatile boolean disabled = false;
+
+	/**
+	 * Constructor
+	 * @param ontPath	Ontology file path
+	 * @param reasonerName	Reasoner name
+	 * @param ignoreAbox	true if the ontology was loaded without its ABox
+	 * @param index	Axiom index of the ontology
+	 */
+	public ClassificationWorkerPool(String ontPath, String reasonerName, boolean ignoreAbox, AxiomIndex index) {
+		this.ontPath = ontPath;
+		this.reasonerName = reasonerName;
+		this.ignoreAbox = ignoreAbox;
+		this.index = index;
+		this.idle = new LinkedBlockingQueue<Worker>();
+		this.workers = Collections.synchronizedSet(new HashSet<Worker>());
+	}
+
+
+	/**
+	 * Take an idle worker, or start a new one if there are none
+	 * @return Worker, or null if the pool is disabled or the worker could not be started
+	 */
+	public Worker borrow() {
+		if(disabled) return null;
+		Worker w = idle.poll();
+		if(w != null) return w;
+		try {
+			List<String> args = new ArrayList<String>();
+			args.add("-ont");		args.add(ontPath);
+			args.add("-reasoner");	args.add(reasonerName);
+			if(ignoreAbox) args.add("-b");
+			w = new Worker(Dispatcher.executeOperation(ClassificationWorker.class, false, false, args));
+			String expected = "Axiom index: " + index.getNumberOfOntologyAxioms() + " " + index.getDigest();
+			String line = w.reader.readLine();
+			while(line != null && !line.startsWith("Axiom index:")) // Skip any output before the worker is ready
+				line = w.reader.readLine();
+			if(line == null || !line.equals(expected)) {
+				System.out.println("\tClassification worker does not index the ontology in the same way (" + line +
+						"), classifying files instead");
+				w.destroy();
+				disabled = true;
+				return null;
+			}
+			nrStarted.incrementAndGet();
+			workers.add(w);
+			return w;
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+			if(w != null) w.destroy();
+			return null;
+		}
+	}
+
+
+	/**
+	 * Return a worker to the pool
+	 * @param w	Worker
+	 */
+	public void release(Worker w) {
+		idle.offer(w);
+	}
+
+
+	/**
+	 * Discard a worker, e.g., after its classification timed out
+	 * @param w	Worker
+	 */
+	public void discard(Worker w) {
+		workers.remove(w);
+		w.destroy();
+	}
+
+
+	/**
+	 * Stop all workers
+	 */
+	public void shutdown() {
+		idle.clear();
+		synchronized(workers) {
+			for(Worker w : workers)
+				w.destroy();
+			workers.clear();
+		}
+	}
+
+
+	/**
+	 * @return Number of workers started so far
+	 */
+	public int getNumberOfWorkersStarted() {
+		return nrStarted.get();
+	}
+
+
+	/**
+	 * A classification worker process
+	 */
+	public class Worker {
+		private Process process;
+		private Writer writer;
+		private BufferedReader reader;
+
+		private Worker(Process process) {
+			this.process = process;
+			this.writer = new OutputStreamWriter(process.getOutputStream());
+			this.reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		}
+
+		/**
+		 * Request the classification of the given subset of the ontology. The subset is sent either as is or as its
+		 * complement in the ontology, whichever is smaller
+		 * @param fp	Fingerprint of the subset
+		 * @param timeout	Timeout (in milliseconds), 0 for none
+		 * @param filePath	File path to which the subsumptions are saved
+		 * @throws IOException
+		 */
+		public void send(BitSet fp, long timeout, String filePath) throws IOException {
+			String subset;
+			if(fp.cardinality() > index.getNumberOfOntologyAxioms()/2) {
+				BitSet complement = (BitSet)fp.clone();
+				complement.flip(0, index.getNumberOfOntologyAxioms());
+				subset = "~" + AxiomIndex.encode(complement);
+			}
+			else subset = "+" + AxiomIndex.encode(fp);
+			writer.write(timeout + "\t" + filePath + "\t" + subset + "\n");
+			writer.flush();
+		}
+
+		public Process getProcess() {
+			return process;
+		}
+
+		/**
+		 * @return Reader of the worker's output
+		 */
+		public BufferedReader getReader() {
+			return reader;
+		}
+
+		private void destroy() {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				// Worker already exited
+			}
+			process.destroy();
+		}
+	}
+}
@@ -27,14 +27,27 @@ import java.io.InputStreamReader;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.semanticweb.owlapi.io.OWLXMLOntologyFormat;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
@@ -43,19 +56,29 @@ import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
-import org.semanticweb.owlapi.model.OWLOntologyStorageException;
 
 import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
-import uk.ac.manchester.cs.owlapi.modularity.SyntacticLocalityModuleExtractor;
 import uk.ac.manchester.cs.romer.Dispatcher;
 import uk.ac.manchester.cs.romer.OntologyLoader;
 import uk.ac.manchester.cs.romer.approximation.Approximation;
 import uk.ac.manchester.cs.romer.approximation.ApproximationGenerator;
 import uk.ac.manchester.cs.romer.approximation.ApproximationGenerator.ApproximationType;
+import uk.ac.manchester.cs.romer.hotspots.CandidateLedger.Verdict;
+import uk.ac.manchester.cs.romer.hotspots.ClassificationWorkerPool.Worker;
+import uk.ac.manchester.cs.romer.reasonertasks.ClassCostAttributor;
 import uk.ac.manchester.cs.romer.reasonertasks.ClassifierResult;
 import uk.ac.manchester.cs.romer.reasonertasks.EntailmentGenerator;
 import uk.ac.manchester.cs.romer.reasonertasks.SATOntologyTester;
+import uk.ac.manchester.cs.romer.utils.AtomicDecomposition;
+import uk.ac.manchester.cs.romer.utils.AtomicDecomposition.Atom;
+import uk.ac.manchester.cs.romer.utils.AxiomIndex;
+import uk.ac.manchester.cs.romer.utils.ClassificationCache;
+import uk.ac.manchester.cs.romer.utils.EntailmentDiff;
+import uk.ac.manchester.cs.romer.utils.EntailmentDiff.Diff;
+import uk.ac.manchester.cs.romer.utils.ModuleService;
 import uk.ac.manchester.cs.romer.utils.ResultsSerializer;
+import uk.ac.manchester.cs.romer.utils.StreamingOntologyWriter;
+import uk.ac.manchester.cs.romer.utils.TaxonomyReader;
 
 /**
  * @author Rafael S. Goncalves <br/>
@@ -66,9 +89,18 @@ import uk.ac.manchester.cs.romer.utils.ResultsSerializer;
 public class HotspotFinder {
 	public int hotspotSizeThreshold, maxTests = 1000, minHotspots = 1;
 	public double csatTimeout = 0;
+	public long classBudget = 0;
+	public double boundSlack = -1;
+	public boolean checkCompleteness = false;
 	public ThreadMXBean bean;
-	private final int MAX_PROCESSES = Runtime.getRuntime().availableProcessors();
-	private SyntacticLocalityModuleExtractor starModExtractor, botModExtractor;
+	final int MAX_PROCESSES = Runtime.getRuntime().availableProcessors();
+	private final long MIN_BOUND = 1000; // Lowest adaptive remainder timeout (in milliseconds)
+	private ModuleService modules;
+	private AxiomIndex axiomIndex;
+	private Set<BitSet> candidateFingerprints = Collections.synchronizedSet(new HashSet<BitSet>());
+	private List<BitSet> slowRemainders = Collections.synchronizedList(new ArrayList<BitSet>());
+	private List<BitSet> prunedRemainders = Collections.synchronizedList(new ArrayList<BitSet>()); // Slower than the bound, not the threshold
+	private Map<OWLClass,Set<OWLAxiom>> adCandidates;
 	private OWLOntology ont;
 	private OWLDataFactory df;
 	private OWLOntologyManager man;
@@ -76,12 +108,31 @@ public class HotspotFinder {
 	private HotspotSearchStrategy searchStrategy;
 	private String ontPath, outputDir, reasonerName, log;
 	private LinkedHashMap<Approximation,String> tempLog;
-	private HashMap<OWLClass,Double> satTimeMap;
+	private Map<OWLClass,Double> satTimeMap;
+	private IndicatorRanking ranking;
 	private HashMap<String,Double> timings;
 	private ClassifierResult ontResults;
-	private volatile int candidateNr = 1, badSizeRems = 0, badSizeHotspots = 0;
+	private AtomicInteger candidateNr = new AtomicInteger(1), badSizeRems = new AtomicInteger(), badSizeHotspots = new AtomicInteger(), 
+			duplicateCandidates = new AtomicInteger(), dominatedRems = new AtomicInteger();
+	private Set<Process> runningProcesses = Collections.synchronizedSet(new HashSet<Process>());
+	private volatile boolean cancelled = false;
+	private final Object extractionLock = new Object();
 	private long classificationThreshold;
+	private double bestRemainderTime = Double.MAX_VALUE; // Guarded by this
+	private List<String> censoredTimings = Collections.synchronizedList(new ArrayList<String>());
 	private boolean verbose;
+	private ClassificationCache cache;
+	private CandidateLedger ledger;
+	private Set<OWLClass> resolvedSeeds = Collections.synchronizedSet(new HashSet<OWLClass>());
+	private ClassificationWorkerPool workers;
+	private CandidateRanker candidateRanker;
+	private HotspotCandidateType candidateType;
+	private List<String> candidateRecords = Collections.synchronizedList(new ArrayList<String>());
+	private EntailmentDiff entailmentDiff;
+	private long[] ontEntailments;
+	private Map<Approximation,Double> completeness = new ConcurrentHashMap<Approximation,Double>();
+	private AtomicInteger workerRequestNr = new AtomicInteger();
+	private SearchBudgetScheduler scheduler;
 	
 	/**
 	 * Constructor
@@ -107,11 +158,14 @@ public class HotspotFinder {
 		this.bean = ManagementFactory.getThreadMXBean();
 		
 		// Initialize data structures
-		this.satTimeMap = new HashMap<OWLClass,Double>();
+		this.satTimeMap = new ConcurrentHashMap<OWLClass,Double>();
+		this.ranking = new IndicatorRanking();
 		this.timings = new HashMap<String,Double>();
-		this.tempLog = new LinkedHashMap<Approximation,String>();
-		this.starModExtractor = new SyntacticLocalityModuleExtractor(man, ont, ModuleType.STAR);
-		this.botModExtractor = new SyntacticLocalityModuleExtractor(man, ont, ModuleType.BOT);
+		this.tempLog = new LinkedHashMap<Approximation,String>(); // Guarded by itself
+		this.modules = new ModuleService(ont);
+		this.axiomIndex = new AxiomIndex(ont);
+		this.candidateRanker = new CandidateRanker(ont);
+		this.entailmentDiff = new EntailmentDiff(MAX_PROCESSES);
 	}
 
 	
@@ -127,6 +181,10 @@ public class HotspotFinder {
 	public Set<Approximation> findApproximations(HotspotCandidateType type, boolean glassBoxReasoner) 
 			throws IOException, InterruptedException, OWLOntologyCreationException {
 		Set<Approximation> approxs = null;
+		this.candidateType = type;
+		if(scheduler != null) scheduler.start();
+		if(checkCompleteness && ontResults == null)
+			classifyOriginalOntology();
 		if(searchStrategy.equals(HotspotSearchStrategy.SEQ)) {
 			ArrayList<OWLClass> classes = getIndicators(glassBoxReasoner); // Get SAT-based indicators
 			
@@ -136,9 +194,18 @@ public class HotspotFinder {
 		else if(searchStrategy.equals(HotspotSearchStrategy.CON) && indStrategy.equals(HotspotIndicatorStrategy.SAT)) {
 			approxs = execConcurrentHotspotSearch(type, glassBoxReasoner);
 		}
-		else if(searchStrategy.equals(HotspotSearchStrategy.CON) && 
-				(indStrategy.equals(HotspotIndicatorStrategy.RANDOM) || indStrategy.equals(HotspotIndicatorStrategy.AD)))
-			throw new Error("Feature not implemented");	
+		else if(searchStrategy.equals(HotspotSearchStrategy.CON))
+			throw new Error("Feature not implemented: the concurrent search strategy only supports SAT-based indicators");	
+		else if(searchStrategy.equals(HotspotSearchStrategy.PIPE)) {
+			HotspotSearchPipeline pipeline = new HotspotSearchPipeline(this, type);
+			approxs = pipeline.run(indStrategy.equals(HotspotIndicatorStrategy.SAT), glassBoxReasoner);
+			if(verbose) pipeline.printMetrics();
+		}
+		else if(searchStrategy.equals(HotspotSearchStrategy.JOINT)) {
+			JointHotspotSearch search = new JointHotspotSearch(this, type);
+			approxs = search.run(glassBoxReasoner);
+			if(verbose) search.printMetrics();
+		}
 		else
 			throw new Error("Feature not implemented");
 		return approxs;
@@ -162,6 +229,128 @@ public class HotspotFinder {
 	}
 	
 	
+	/**
+	 * Set the cache consulted before any classification is carried out (by this hot spot finder, or by the 
+	 * approximation generators it creates), and updated with the results of those that are
+	 * @param cache	Classification cache
+	 */
+	public void setClassificationCache(ClassificationCache cache) {
+		this.cache = cache;
+	}
+	
+	
+	/**
+	 * Classify candidate hot spots and remainders in long-lived {@link ClassificationWorkerPool} processes that load 
+	 * the ontology once, instead of serializing each to a file that a new process then parses. Only the files of the 
+	 * approximations that are kept are written
+	 * @param ignoreAbox	true if the ontology was loaded without its ABox
+	 */
+	public void setClassificationWorkers(boolean ignoreAbox) {
+		this.workers = new ClassificationWorkerPool(ontPath, reasonerName, ignoreAbox, axiomIndex);
+	}
+	
+	
+	/**
+	 * Stop the classification workers, if any
+	 */
+	public void shutdownClassificationWorkers() {
+		if(workers != null) workers.shutdown();
+	}
+	
+	
+	/**
+	 * Set a wall-clock budget for the search (see {@link SearchBudgetScheduler}): the search stops, returning the 
+	 * approximations found so far, once the budget is spent or the expected improvement per unit time drops below 
+	 * the given rate
+	 * @param budget	Search budget (in milliseconds)
+	 * @param minRate	Minimum expected improvement rate (seconds of classification time saved per second of search)
+	 */
+	public void setSearchBudget(long budget, double minRate) {
+		this.scheduler = new SearchBudgetScheduler(budget, minRate, classificationThreshold);
+	}
+	
+	
+	/**
+	 * Check whether the search budget scheduler, if any, has stopped the search
+	 * @return true if the search should stop
+	 */
+	boolean isSearchOver() {
+		return scheduler != null && scheduler.shouldStop();
+	}
+	
+	
+	/**
+	 * Cap the given classification timeout to the search budget left, if there is a search budget
+	 * @param timeout	Timeout (in milliseconds), 0 for none
+	 * @return Capped timeout (in milliseconds), no less than {@link #MIN_BOUND}
+	 */
+	long capToBudget(long timeout) {
+		if(scheduler == null) return timeout;
+		long left = Math.max(scheduler.getRemainingTime(), MIN_BOUND);
+		return (timeout == 0 || left < timeout ? left : timeout);
+	}
+	
+	
+	/**
+	 * Set the ledger to which the progress of the search is recorded, and resume from the progress already recorded 
+	 * in it: the SAT times are restored (and the SAT test is skipped if it was completed), and seed concepts whose 
+	 * candidates are known not to be hot spots are not tried again. Seed concepts of known hot spots are tried again, 
+	 * so that their approximations are rebuilt, and so are those whose remainder tests were cut short or pruned
+	 * @param ledger	Candidate ledger
+	 */
+	public void setLedger(CandidateLedger ledger) {
+		this.ledger = ledger;
+		Map<IRI,Double> times = ledger.getSATTimes();
+		for(IRI iri : times.keySet()) {
+			OWLClass c = df.getOWLClass(iri);
+			satTimeMap.put(c, times.get(iri));
+			ranking.update(c, times.get(iri));
+		}
+		Map<IRI,Verdict> verdicts = ledger.getVerdicts();
+		int nrHotspots = 0, nrRetried = 0;
+		for(IRI iri : verdicts.keySet()) {
+			if(verdicts.get(iri).equals(Verdict.HOTSPOT)) {
+				nrHotspots++;
+				continue;
+			}
+			if(!verdicts.get(iri).isFinal()) {
+				nrRetried++;
+				continue;
+			}
+			OWLClass c = df.getOWLClass(iri);
+			resolvedSeeds.add(c);
+			ranking.exclude(c);
+			BitSet fp = ledger.getCandidateFingerprint(iri);
+			if(fp != null) candidateFingerprints.add(fp);
+		}
+		slowRemainders.addAll(ledger.getSlowRemainders());
+		candidateNr.set(ledger.getLastCandidateNr()+1);
+		if(!times.isEmpty() || !verdicts.isEmpty())
+			System.out.println(" Resuming from ledger: " + times.size() + " SAT times" + (ledger.getSATTestTime() != null ? " (SAT test complete), " : ", ") + 
+					verdicts.size() + " candidates tested (" + nrHotspots + " hot spots, which will be verified again, and " + nrRetried + 
+					" cut short or pruned, which will be tested again), " + 
+					slowRemainders.size() + " slow remainders");
+	}
+	
+	
+	/**
+	 * Record the verdict on the given candidate hot spot in the ledger, if any, and, if its remainder was classified 
+	 * against the classification threshold (rather than pruned, dominated by a slow remainder, or cut short), its 
+	 * features and whether it is a hot spot as a candidate record (see {@link #serializeCandidateRecords()})
+	 * @param candidateHotspot	Hot spot candidate
+	 * @param verdict	Verdict
+	 */
+	private void recordVerdict(Hotspot candidateHotspot, Verdict verdict) {
+		if(ledger != null) ledger.recordVerdict(candidateHotspot.getSeed(), verdict);
+		if(verdict.equals(Verdict.HOTSPOT) || verdict.equals(Verdict.NOT_HOTSPOT)) {
+			String row = candidateType.name() + "," + candidateHotspot.getSeedName() + ",";
+			for(double d : candidateRanker.getFeatures(candidateHotspot.getAxioms()))
+				row += d + ",";
+			candidateRecords.add(row + verdict.equals(Verdict.HOTSPOT));
+		}
+	}
+	
+	
 	/**
 	 * Classify original ontology
 	 * @throws IOException
@@ -174,29 +363,36 @@ public class HotspotFinder {
 	
 	
 	/**
-	 * Check whether a given approximation is complete w.r.t. atomic subsumptions
+	 * Check whether a given approximation (together with its hot spot, if classified) is complete w.r.t. atomic 
+	 * subsumptions, and record its completeness for the log
 	 * @param a	Approximation to be checked
 	 * @param r	Classification result of original ontology
 	 */
 	private boolean isComplete(Approximation a, ClassifierResult r) {
-		Set<OWLAxiom> approxEnts = a.getClassifierResults().getEntailments();
+		long[] approxEnts = entailmentDiff.encode(a.getClassifierResults());
 		if(a.getHotspot().getClassificationResults() != null)
-			approxEnts.addAll(a.getHotspot().getClassificationResults().getEntailments());
+			approxEnts = EntailmentDiff.union(approxEnts, entailmentDiff.encode(a.getHotspot().getClassificationResults()));
 		
-		Set<OWLAxiom> ontEnts = r.getEntailments();
-		Set<OWLAxiom> missingEnts = new HashSet<OWLAxiom>();
-		double missing = 0, ontEntNr = ontEnts.size();
-		for(OWLAxiom ax : ontEnts) {
-			if(!approxEnts.contains(ax)) {
-				missingEnts.add(ax);
-				missing++;
-			}
-		}
-		double percMissing = (missing/ontEntNr)*100.0;
-		if(verbose) System.out.println("    '" + a.getApproximationTypeName() + "' completeness check:\n\tCl(O) = " + ontEnts.size()  + " axioms" +
-				"\n\tCl(" + a.getApproximationTypeName() + ") = " + approxEnts.size() + " axioms\n\tMissing " + (int)missing + " entailments (" + (int)percMissing + "%)");
-		if(missing == 0) return true;
-		else return false;
+		long[] ontEnts = getOntologyEntailments(r);
+		Diff d = entailmentDiff.diff(ontEnts, approxEnts);
+		completeness.put(a, d.getCompleteness());
+		if(verbose) System.out.println("    '" + a.getApproximationTypeName() + "' completeness check (candidate " + a.getHotspot().getCandidateNr() + 
+				"):\n\tCl(O) = " + ontEnts.length  + " axioms" + "\n\tCl(" + a.getApproximationTypeName() + ") = " + approxEnts.length + 
+				" axioms\n\tMissing " + d.getNumberOfMissingEntailments() + " entailments (" + (int)(100-d.getCompleteness()) + "%), extra: " + 
+				d.getNumberOfExtraEntailments() + ", classes with missing subsumptions: " + d.getIncompleteClasses().size());
+		return d.isComplete();
+	}
+	
+	
+	/**
+	 * Get the encoded entailments of the ontology, encoding them the first time
+	 * @param r	Classification result of original ontology
+	 * @return Sorted array of the ids of the entailments
+	 */
+	private synchronized long[] getOntologyEntailments(ClassifierResult r) {
+		if(ontEntailments == null)
+			ontEntailments = entailmentDiff.encode(r);
+		return ontEntailments;
 	}
 	
 	
@@ -216,6 +412,17 @@ public class HotspotFinder {
 		Set<Approximation> approxs = new HashSet<Approximation>();
 		Set<Hotspot> hotspots = new HashSet<Hotspot>();
 		Process p = null;
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(MAX_PROCESSES - 1, 1));
+		
+		if(hasStoredSATTest()) { // Resume from the ledger: all SAT times are known, so only hot spot testing is left
+			System.out.println(" -------------------\n SAT test results restored from ledger");
+			addTiming("SAT Test", ledger.getSATTestTime());
+			long start = System.currentTimeMillis();
+			while(hotspots.size() < minHotspots && ranking.size() > 0 && !isSearchOver())
+				runConcurrentStep(executor, hotspots, approxs, type, (System.currentTimeMillis()-start)/1000.0);
+			executor.shutdownNow();
+			return approxs;
+		}
 		
 		// Execute SAT tester
 		if(!glassBoxReasoner)
@@ -240,21 +447,24 @@ public class HotspotFinder {
         String line = reader.readLine();
         double total = 0.0, status = 0.0;
         int nrClasses = ont.getClassesInSignature().size(), cSteps = 1, counter = 0;
-        if(glassBoxReasoner) nrClasses *= 2;
-        
-        // TODO in test
-        ArrayList<OWLClass> checked = new ArrayList<OWLClass>();
-//        List<OWLClass> checked = Collections.synchronizedList(new ArrayList<OWLClass>());
+
         
         long start = System.currentTimeMillis();
         
-        while(line != null && !line.trim().equals("--EOF--") && hotspots.size() < minHotspots) {
+        while(line != null && !line.trim().equals("--EOF--") && hotspots.size() < minHotspots && !isSearchOver()) {
         	if(line.startsWith("<") || line.startsWith("ObjectComplementOf") || line.startsWith("Sat")) {
         		counter++;
         		updateSATMap(line, glassBoxReasoner);
         		double status2 = Math.floor( 100.0 * counter / nrClasses );
         		if(verbose && status < status2) 
         			System.out.println("   " + status2 + "% (" + satTimeMap.size() + "/" + nrClasses + " concepts tested)");
+        		if(scheduler != null && scheduler.isSATProfilingOver()) { // Carry on sequentially with the classes profiled so far
+        			double time = (System.currentTimeMillis()-start)/1000.0;
+        			System.out.println(" Stopped SAT tests: share of the search budget spent (" + counter + " tests done)");
+        			addTiming("SAT Test", time);
+        			scheduler.addPhaseTime(SearchBudgetScheduler.Phase.SAT_PROFILING, time);
+        			break;
+        		}
         		
         		// For every 10% of completed SAT tests start hotspot testing
         		if((status2 % 5 == 0.0 && status2 > 0 && status < status2) || satTimeMap.size() % 20 == 0.0) {
@@ -262,58 +472,13 @@ public class HotspotFinder {
         			total = (end-start)/1000.0;
         			if(verbose) System.out.println(" Elapsed time: " + total + " seconds. " + counter + "/" + nrClasses + 
         					" classes tested. Concurrent Step: " + cSteps);
-        			ArrayList<Hotspot> hotspotList = new ArrayList<Hotspot>();
-        			
-//        			int toFork = (MAX_PROCESSES/2)-1;
-//        			ExecutorService execService = Executors.newFixedThreadPool((MAX_PROCESSES/2)-1);
-//        			Set<Future<Hotspot>> futures = new HashSet<Future<Hotspot>>();
-//        			
-//        			System.out.println("\tForking max of " + toFork + " processes");
-//        			
-//        			for(int i = 0; i < toFork && i < classes.size()-1; i++) {
-//        				OWLClass c = classes.get(i);
-//        				if(!checked.contains(c)) {
-//        					checked.add(c);
-//        					System.out.println("\t Testing hot spot for concept " + ResultsSerializer.getManchesterRendering(c));
-//        					ConcurrentHotspotTester tester = new ConcurrentHotspotTester(c, forceHotspotAsModule);
-//        					
-//        					Future<Hotspot> f = execService.submit(tester);
-//        					futures.add(f);
-//        				}
-//        				else toFork++;
-//        			}
-//        			
-//        			for(Future<Hotspot> f : futures) {
-//        				try {
-//							hotspotList.add(f.get());
-//						} catch (ExecutionException e) {
-//							e.printStackTrace();
-//						}
-//        			}
-        			
-        			Set<Approximation> apps = execConcurrentStep(hotspotList, sortHashMap(satTimeMap), checked, type);
-					if(!apps.isEmpty())
-						approxs.addAll(approxs);
-					
-        			if(!hotspotList.isEmpty()) {
-        				hotspots.addAll(hotspotList);
-        				for(Hotspot hs : hotspotList) {
-        					log += total + "," + hs.getPreparationTime() + "," + hs.getSize() + ",";
-        					if(hs.getClassificationTime() != null)
-        						log += hs.getClassificationTime() + ",";
-
-        					for(Approximation approx : tempLog.keySet()) {
-        						if(approx.getHotspot().equals(hs))
-        							log += tempLog.get(approx);
-        					}
-        					log += "\n,";
-        				}
-        			}
+        			runConcurrentStep(executor, hotspots, approxs, type, total);
         			cSteps++;
-        			if(verbose) System.out.println("Total nr. of hot spots: " + hotspots.size());
         		}
         		status = status2;
         	}
+        	else if(line.startsWith("SAT"))
+        		recordSATTestDone(line);
         	else if(line.startsWith(" SAT"))
         		System.out.println(line);
         	else if(line.startsWith(" Reasoner"))
@@ -324,10 +489,10 @@ public class HotspotFinder {
         }
         
         p.destroy();
+        executor.shutdownNow();
         if(hotspots.size() < minHotspots) {
-        	ArrayList<OWLClass> list = sortHashMap(satTimeMap);
-        	list.removeAll(checked);
-        	execSequentialHotspotSearch(hotspots, list, type);
+        	ArrayList<OWLClass> list = ranking.toSortedList(); // Classes not yet used as seeds
+        	approxs.addAll(execSequentialHotspotSearch(hotspots, list, type));
         }
         
         if(verbose) System.out.println("\n");
@@ -336,59 +501,145 @@ public class HotspotFinder {
 	
 	
 	/**
-	 * 
-	 * @param classes
-	 * @param checkedClasses
+	 * Carry out a concurrent step, adding the hot spots found (and their approximations) to the given sets
+	 * @param executor	Executor that runs the verifications
+	 * @param hotspots	Set of hot spots found so far
+	 * @param approxs	Set of approximations found so far
+	 * @param type	Hotspot candidate type
+	 * @param total	Elapsed time (in seconds)
+	 * @throws InterruptedException
+	 */
+	private void runConcurrentStep(ExecutorService executor, Set<Hotspot> hotspots, Set<Approximation> approxs, 
+			HotspotCandidateType type, double total) throws InterruptedException {
+		ArrayList<Hotspot> hotspotList = new ArrayList<Hotspot>();
+		Set<Approximation> apps = execConcurrentStep(executor, hotspotList, hotspots.size(), type);
+		if(!apps.isEmpty())
+			approxs.addAll(apps);
+		
+		if(!hotspotList.isEmpty()) {
+			hotspots.addAll(hotspotList);
+			for(Hotspot hs : hotspotList)
+				logHotspot(hs, total);
+		}
+		if(verbose) System.out.println("Total nr. of hot spots: " + hotspots.size());
+	}
+	
+	
+	/**
+	 * Verify, concurrently, as many candidate hot spots as there are worker threads, seeded by the highest ranked 
+	 * classes not yet used as seeds. Once enough hot spots are found, the verifications still in progress are cancelled
+	 * @param executor	Executor that runs the verifications
+	 * @param hotspotList	List to which the hot spots found are added
+	 * @param nrHotspots	Number of hot spots found so far
+	 * @param type	Hotspot candidate type
 	 * @return Set of verified approximations
-	 * @throws OWLOntologyCreationException
 	 * @throws InterruptedException 
-	 * @throws IOException 
 	 */
-	private Set<Approximation> execConcurrentStep(ArrayList<Hotspot> hotspotList, ArrayList<OWLClass> classes, ArrayList<OWLClass> checkedClasses, HotspotCandidateType type) 
-			throws OWLOntologyCreationException, IOException, InterruptedException {
-		int toFork = MAX_PROCESSES - 1;
+	private Set<Approximation> execConcurrentStep(ExecutorService executor, ArrayList<Hotspot> hotspotList, int nrHotspots, 
+			HotspotCandidateType type) throws InterruptedException {
+		int toFork = Math.max(MAX_PROCESSES - 1, 1);
+		resetCancellation();
+		CompletionService<Set<Approximation>> completionService = new ExecutorCompletionService<Set<Approximation>>(executor);
+		List<Future<Set<Approximation>>> futures = new ArrayList<Future<Set<Approximation>>>();
+		while(futures.size() < toFork) {
+			int index = ranking.getNumberOfTakenClasses();
+			OWLClass c = ranking.poll();
+			if(c == null) break;
+			futures.add(completionService.submit(new ConcurrentHotspotTester(c, type, index)));
+		}
+		
 		Set<Approximation> goodApproxs = new HashSet<Approximation>();
-		for(int i = 0; i < toFork && i < classes.size(); i++) {
-			OWLClass c = classes.get(i);
-			if(!checkedClasses.contains(c)) {
-				checkedClasses.add(c);
-				if(verbose) System.out.println("Preparing candidate " + (candidateNr+1) + "\n\tClass: " + ResultsSerializer.getManchesterRendering(c) +
-						"\n\tSAT Time: " + satTimeMap.get(c) + " seconds" + "\n\tIndex in sorted list: " + classes.indexOf(c));
-
-				Hotspot candidateHotspot = prepHotspotCandidate(c, type);
-				if(candidateHotspot.getAxioms() != null && candidateHotspot.getSize() > 0) {
-					Set<Approximation> approxs = new HashSet<Approximation>();//verifyHotspot(candidateHotspot, type);
-					if(!approxs.isEmpty()) {
-						goodApproxs.addAll(approxs);
-						hotspotList.add(candidateHotspot);
-					}
-				}
-				else if(!classes.isEmpty()) {
-					toFork++; continue;
-				}
+		for(int i = 0; i < futures.size(); i++) {
+			Set<Approximation> approxs = null;
+			try {
+				approxs = completionService.take().get();
+			} catch (ExecutionException e) {
+				e.printStackTrace();
+			} catch (CancellationException e) {
+				continue;
 			}
-			else if(!classes.isEmpty()) {
-				toFork++; continue;
+			if(approxs != null && !approxs.isEmpty()) {
+				goodApproxs.addAll(approxs);
+				hotspotList.add(approxs.iterator().next().getHotspot());
+				if(nrHotspots + hotspotList.size() >= minHotspots) {
+					cancelVerifications(futures);
+					break;
+				}
 			}
-			if(hotspotList.size() >= minHotspots)
-				break;
 		}
 		return goodApproxs;
 	}
 	
 	
 	/**
-	 * Classify ontology
+	 * Cancel the given hot spot verifications, and terminate the classifications they are waiting on
+	 * @param futures	Hot spot verifications
+	 */
+	private void cancelVerifications(List<Future<Set<Approximation>>> futures) {
+		for(Future<Set<Approximation>> f : futures)
+			f.cancel(true);
+		cancelClassifications();
+		if(verbose) System.out.println(" Enough hot spots found: cancelled remaining verifications");
+	}
+	
+	
+	/**
+	 * Terminate all classifications in progress; classifications started afterwards are terminated as soon
+	 * as they produce output, until {@link #resetCancellation()} is called
+	 */
+	void cancelClassifications() {
+		cancelled = true;
+		synchronized(runningProcesses) {
+			for(Process p : runningProcesses)
+				p.destroy();
+		}
+	}
+	
+	
+	/**
+	 * Allow classifications to run again after {@link #cancelClassifications()}
+	 */
+	void resetCancellation() {
+		cancelled = false;
+	}
+	
+	
+	/**
+	 * Append the metrics of a hot spot, and of the approximations verified with it, to the log
+	 * @param hs	Hot spot
+	 * @param elapsed	Time (in seconds) since the search started
+	 */
+	synchronized void logHotspot(Hotspot hs, double elapsed) {
+		log += elapsed + "," + hs.getPreparationTime() + "," + hs.getSize() + ",";
+		if(hs.getClassificationTime() != null)
+			log += hs.getClassificationTime() + ",";
+
+		synchronized(tempLog) {
+			for(Approximation approx : tempLog.keySet()) {
+				if(approx.getHotspot().equals(hs))
+					log += tempLog.get(approx);
+			}
+		}
+		log += "\n,";
+	}
+	
+	
+	/**
+	 * Classify ontology, attributing classification time to classes (see {@link ClassCostAttributor}) so that the 
+	 * classification process reports the time of each class as a glass-box reasoner would. It reports one SatP line 
+	 * per class (rather than a SatP and a SatN line, as a patched glass-box reasoner did), so the progress of the SAT 
+	 * test is counted against the number of classes
 	 * @return Classification process
 	 * @throws IOException
 	 * @throws InterruptedException
 	 */
-	private Process execRegularClassification() throws IOException, InterruptedException {
+	Process execRegularClassification() throws IOException, InterruptedException {
 		if(verbose) System.out.println("\n Classifying while listening to SAT times from the reasoner...");
 		ArrayList<String> args = new ArrayList<String>();
 		args.add("-ont"); 		args.add(ontPath);
 		args.add("-reasoner");	args.add(reasonerName);
 		args.add("-cl");
+		args.add("-ca");
 		args.add("-b");
 		if(verbose) args.add("-v");
 		
@@ -396,37 +647,37 @@ public class HotspotFinder {
 	}
 	
 	
-	// TODO
-//	class ConcurrentHotspotTester implements Callable<Hotspot> {
-//		private OWLClass c;
-//		private boolean forceHotspotAsModule;
-//
-//		/*
-//		 * Constructor
-//		 */
-//		public ConcurrentHotspotTester(OWLClass c, boolean forceHotspotAsModule) {
-//			this.c = c;
-//			this.forceHotspotAsModule = forceHotspotAsModule;
-//		}
-//		
-//		@Override
-//		public Hotspot call() {
-//			Hotspot hotspot = null;
-//			try {
-//				Hotspot candidateHotspot = prepHotspotCandidate(c, forceHotspotAsModule);
-//				if(candidateHotspot != null && !candidateHotspot.axioms().isEmpty()) {
-//					boolean isHotspot = verifyHotspot(candidateHotspot, true);
-//					if(isHotspot)
-//						hotspot = candidateHotspot;
-//				}
-//				else
-//					System.out.println("Null Hotspot...");
-//			} catch (OWLOntologyCreationException e) {
-//				e.printStackTrace();
-//			}
-//			return hotspot;
-//		}
-//	}
+	/**
+	 * Verification of a single candidate hot spot, as carried out by the concurrent search strategy
+	 */
+	private class ConcurrentHotspotTester implements Callable<Set<Approximation>> {
+		private OWLClass c;
+		private HotspotCandidateType type;
+		private int index;
+
+		/**
+		 * Constructor
+		 * @param c	Seed concept
+		 * @param type	Hotspot candidate type
+		 * @param index	Number of indicators used as seeds before this one
+		 */
+		public ConcurrentHotspotTester(OWLClass c, HotspotCandidateType type, int index) {
+			this.c = c;
+			this.type = type;
+			this.index = index;
+		}
+		
+		@Override
+		public Set<Approximation> call() throws OWLOntologyCreationException {
+			if(cancelled) return null;
+			int nr = candidateNr.getAndIncrement();
+			if(verbose) System.out.println("Preparing candidate " + nr + "\n\tClass: " + ResultsSerializer.getManchesterRendering(c) +
+					"\n\tSAT Time: " + satTimeMap.get(c) + " seconds" + "\n\tRank: " + index);
+			Hotspot candidateHotspot = prepHotspotCandidate(c, type, nr);
+			if(!hasAcceptableSize(candidateHotspot) || isDuplicate(candidateHotspot)) return null;
+			return verifyHotspot(candidateHotspot, type);
+		}
+	}
 	
 	
 	/**
@@ -445,58 +696,20 @@ public class HotspotFinder {
 		if(verbose) System.out.println("\n [Using sequential hot spot search strategy]");
 		Set<Approximation> goodApproxs = new HashSet<Approximation>();
 		for(int i = 0; i < maxTests-1; i++) {
-			if(hotspots.size() < minHotspots) {
+			if(hotspots.size() < minHotspots && !isSearchOver()) {
 				if(!classes.isEmpty()) {
 					OWLClass c = classes.iterator().next();
-					Hotspot candidateHotspot = prepHotspotCandidate(c, type);
-					// Hotspot size restriction: 0 stands for restriction-free, otherwise it must be non-empty and smaller than the specified threshold
-					if(hotspotSizeThreshold == 0 || (candidateHotspot.getSize() <= hotspotSizeThreshold && candidateHotspot.getSize() > 0) ) {
-						// Now get remainder
-						ApproximationGenerator gen = new ApproximationGenerator(candidateHotspot, ont);
-						boolean testOtherRemainders = false;
-						
-						Approximation rem = null;
-						if(type.equals(HotspotCandidateType.BOTMOD))
-							rem = getApproximation(gen, candidateHotspot, ApproximationType.COMPLETE);
-						else {
-							rem = getApproximation(gen, candidateHotspot, ApproximationType.NAIVE);
-							testOtherRemainders = true;
-						}
-						if(rem != null) { // Remainder is of good size
-							if(verbose) System.out.println(" -------------------\n Candidate hotspot " + candidateNr + ". Metrics:\n\tSize: " + candidateHotspot.getSize() + 
-									" axioms\n\tPreparation time: " + candidateHotspot.getPreparationTime() + " seconds\n\tSeed concept: " + candidateHotspot.getSeedName());
-
-							boolean isHotspot = testHotspot(candidateHotspot, rem);
-							if(isHotspot) {
-								gen.setNaiveApproxClassifierResult(rem.getClassifierResults());
+					Hotspot candidateHotspot = prepHotspotCandidate(c, type, candidateNr.get());
+					if(hasAcceptableSize(candidateHotspot) && !isDuplicate(candidateHotspot)) {
+						Set<Approximation> approxs = verifyHotspot(candidateHotspot, type);
+						if(approxs != null) {
+							if(!approxs.isEmpty()) {
 								hotspots.add(candidateHotspot);
-								goodApproxs.add(rem);
-								
-								if(verbose) System.out.println("    Classifying hotspot... (timeout: " + classificationThreshold + " milliseconds)");
-								candidateHotspot.attachClassifierResults(classify(rem.getHotspotFilePath(), true));
-								
-								if(testOtherRemainders) {
-									Approximation rem1 = getApproximation(gen, candidateHotspot, ApproximationType.COMBINEDCL);
-									if(rem1 != null && testHotspot(candidateHotspot, rem1))
-										goodApproxs.add(rem1);
-
-									Approximation rem2 = getApproximation(gen, candidateHotspot, ApproximationType.REMCLM);
-									if(rem2 != null && testHotspot(candidateHotspot, rem2))
-										goodApproxs.add(rem2);
-
-									Approximation rem3 = getApproximation(gen, candidateHotspot, ApproximationType.REMCLMELM);
-									if(rem3 != null && testHotspot(candidateHotspot, rem3))
-										goodApproxs.add(rem3);
-								}
-								addTiming("CT(M)", candidateHotspot.getClassificationTime());
-								addTiming("CT(Remainder)", rem.getClassifierResults().getReasoningTaskTime());
+								goodApproxs.addAll(approxs);
 							}
-							candidateNr++;
-							if(verbose) System.out.println(" Done");
+							candidateNr.incrementAndGet();
 						}
-						else badSizeRems++;
 					}
-					else badSizeHotspots++;
 					classes.remove(c);
 				}
 				else break;
@@ -508,39 +721,273 @@ public class HotspotFinder {
 	
 	
 	/**
-	 * Verify whether the specified concept leads to a hotspot of the given type
-	 * @param c	Seed concept
-	 * @param type	Hotspot type
-	 * @return true if hotspot candidate is a hotspot, false otherwise 
-	 * @throws OWLOntologyCreationException
-	 * @throws IOException
-	 * @throws InterruptedException
+	 * Verify whether the given candidate is a hot spot: build the remainder (as a bottom module for bottom-module 
+	 * candidates, or by removing the candidate otherwise) and classify it with the classification threshold as timeout. 
+	 * If it classifies in time, the candidate is classified as well and, unless it is a bottom-module candidate, the 
+	 * remaining approximation types are tested
+	 * @param candidateHotspot	Hot spot candidate
+	 * @param type	Hotspot candidate type
+	 * @return Set of approximations that classify within the threshold, empty if the candidate is not a hot spot, 
+	 * or null if the remainder is too big to be tested (or the verification was cancelled)
 	 */
-//	public boolean verifyHotspot(Hotspot c, HotspotCandidateType type) throws OWLOntologyCreationException, IOException, InterruptedException {
-//		Hotspot candidateHotspot = prepHotspotCandidate(c, type);
-//		if(hotspotSizeThreshold == 0 || candidateHotspot.getSize() <= hotspotSizeThreshold) { 
-//			Set<Approximation> approx = verifyHotspot(candidateHotspot, type);
-//			if(!approx.isEmpty()) return true;
-//			else return false;
-//		}
-//		else {
-//			if(verbose) System.out.println("Hotspot too big (" + candidateHotspot.getSize() + " axioms)");
-//			return false;
-//		}
-//	}
+	private Set<Approximation> verifyHotspot(Hotspot candidateHotspot, HotspotCandidateType type) {
+		ApproximationGenerator gen = getApproximationGenerator(candidateHotspot);
+		Approximation rem = buildRemainder(gen, candidateHotspot, type);
+		if(rem == null) return null;
+		return verifyRemainder(gen, candidateHotspot, rem, type);
+	}
+	
+	
+	/**
+	 * Get an approximation generator for the given candidate hot spot
+	 * @param candidateHotspot	Hot spot candidate
+	 * @return Approximation generator
+	 */
+	ApproximationGenerator getApproximationGenerator(Hotspot candidateHotspot) {
+		ApproximationGenerator gen = new ApproximationGenerator(candidateHotspot, ont);
+		gen.setClassificationCache(cache);
+		gen.setModuleService(modules);
+		return gen;
+	}
+	
+	
+	/**
+	 * Build (and serialize) the remainder used to verify the given candidate: a bottom module for bottom-module 
+	 * candidates, or the ontology minus the candidate otherwise
+	 * @param gen	Approximation generator of the candidate
+	 * @param candidateHotspot	Hot spot candidate
+	 * @param type	Hotspot candidate type
+	 * @return Remainder, or null if it is too big to be tested
+	 */
+	Approximation buildRemainder(ApproximationGenerator gen, Hotspot candidateHotspot, HotspotCandidateType type) {
+		Approximation rem = null;
+		if(type.equals(HotspotCandidateType.BOTMOD))
+			rem = getApproximation(gen, candidateHotspot, ApproximationType.COMPLETE);
+		else
+			rem = getApproximation(gen, candidateHotspot, ApproximationType.NAIVE);
+		if(rem == null) { // Remainder is too big
+			badSizeRems.incrementAndGet();
+			recordVerdict(candidateHotspot, Verdict.BAD_SIZE);
+		}
+		return rem;
+	}
+	
+	
+	/**
+	 * Join the given candidate hot spots into a single candidate, whose seed concept is that of the first one
+	 * @param members	Hot spot candidates
+	 * @param nr	Candidate number
+	 * @return Hot spot candidate with the axioms of all the given candidates
+	 */
+	Hotspot joinHotspots(List<Hotspot> members, int nr) {
+		Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+		double prepTime = 0;
+		for(Hotspot hs : members) {
+			axioms.addAll(hs.getAxioms());
+			prepTime += hs.getPreparationTime();
+		}
+		return new Hotspot(man, axioms, prepTime, members.get(0).getSeed(), nr);
+	}
+	
+	
+	/**
+	 * Classify the remainder of the given candidate, without keeping it or recording it as the candidate's verdict; 
+	 * used to gauge how much removing the candidate speeds up classification
+	 * @param candidateHotspot	Hot spot candidate
+	 * @param type	Hotspot candidate type
+	 * @param name	Name of the remainder file, if one is needed
+	 * @param timeout	Timeout (in milliseconds), 0 for none
+	 * @return Classification results, or null if the remainder is too big (or its classification failed)
+	 */
+	ClassifierResult probeRemainder(Hotspot candidateHotspot, HotspotCandidateType type, String name, long timeout) {
+		ApproximationGenerator gen = getApproximationGenerator(candidateHotspot);
+		Set<OWLAxiom> remainderAxioms = null;
+		synchronized(extractionLock) {
+			remainderAxioms = gen.getApproximationAxioms(type.equals(HotspotCandidateType.BOTMOD) ? 
+					ApproximationType.COMPLETE : ApproximationType.NAIVE, reasonerName);
+		}
+		if(remainderAxioms.size() >= ont.getLogicalAxiomCount()) return null;
+		String path = outputDir + "Hotspots_" + reasonerName + File.separator + name + ".owl";
+		ClassifierResult result = null;
+		try {
+			result = classify(remainderAxioms, path, timeout);
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+		}
+		new File(path).delete();
+		new File(path.replace(".owl", "_infSubs.tax")).delete();
+		return result;
+	}
+	
+	
+	/**
+	 * Get the classification threshold
+	 * @return Maximum time (in milliseconds) for the classification of an approximation, 0 for none
+	 */
+	long getClassificationThreshold() {
+		return classificationThreshold;
+	}
+	
+	
+	/**
+	 * Classify the remainder of the given candidate with the classification threshold as timeout. If it classifies 
+	 * in time, the candidate is classified as well and, unless it is a bottom-module candidate, the remaining 
+	 * approximation types are tested
+	 * @param gen	Approximation generator of the candidate
+	 * @param candidateHotspot	Hot spot candidate
+	 * @param rem	Remainder, as built by {@link #buildRemainder(ApproximationGenerator, Hotspot, HotspotCandidateType)}
+	 * @param type	Hotspot candidate type
+	 * @return Set of approximations that classify within the threshold, empty if the candidate is not a hot spot, 
+	 * or null if the verification was cancelled
+	 */
+	Set<Approximation> verifyRemainder(ApproximationGenerator gen, Hotspot candidateHotspot, Approximation rem, HotspotCandidateType type) {
+		Set<Approximation> goodApproxs = new HashSet<Approximation>();
+		boolean testOtherRemainders = !type.equals(HotspotCandidateType.BOTMOD);
+		if(verbose) System.out.println(" -------------------\n Candidate hotspot " + candidateHotspot.getCandidateNr() + ". Metrics:\n\tSize: " + 
+				candidateHotspot.getSize() + " axioms\n\tPreparation time: " + candidateHotspot.getPreparationTime() + " seconds\n\tSeed concept: " + 
+				candidateHotspot.getSeedName());
+
+		Verdict verdict = testHotspot(candidateHotspot, rem);
+		boolean isHotspot = verdict.equals(Verdict.HOTSPOT);
+		if(cancelled) return null;
+		if(isHotspot) {
+			gen.setNaiveApproxClassifierResult(rem.getClassifierResults());
+			goodApproxs.add(rem);
+			
+			if(verbose) System.out.println("    Classifying hotspot " + candidateHotspot.getCandidateNr() + "... (timeout: " + classificationThreshold + " milliseconds)");
+			try {
+				candidateHotspot.attachClassifierResults(classify(candidateHotspot.getAxioms(), rem.getHotspotFilePath(), classificationThreshold));
+			} catch (IOException | InterruptedException e) {
+				e.printStackTrace();
+			}
+			
+			if(testOtherRemainders && !cancelled) {
+				Approximation rem1 = getApproximation(gen, candidateHotspot, ApproximationType.COMBINEDCL);
+				if(rem1 != null && testHotspot(candidateHotspot, rem1).equals(Verdict.HOTSPOT))
+					goodApproxs.add(rem1);
+
+				Approximation rem2 = getApproximation(gen, candidateHotspot, ApproximationType.REMCLM);
+				if(rem2 != null && testHotspot(candidateHotspot, rem2).equals(Verdict.HOTSPOT))
+					goodApproxs.add(rem2);
+
+				Approximation rem3 = getApproximation(gen, candidateHotspot, ApproximationType.REMCLMELM);
+				if(rem3 != null && testHotspot(candidateHotspot, rem3).equals(Verdict.HOTSPOT))
+					goodApproxs.add(rem3);
+			}
+			addTiming("CT(M)", candidateHotspot.getClassificationTime());
+			addTiming("CT(Remainder)", rem.getClassifierResults().getReasoningTaskTime());
+		}
+		if(cancelled) return null;
+		if(checkCompleteness && ontResults != null) {
+			for(Approximation a : goodApproxs)
+				isComplete(a, ontResults);
+		}
+		recordVerdict(candidateHotspot, verdict);
+		if(verbose) System.out.println(" Done (candidate " + candidateHotspot.getCandidateNr() + ")");
+		return goodApproxs;
+	}
+	
+	
+	/**
+	 * Check the hot spot size restriction: 0 stands for restriction-free, otherwise the candidate must be non-empty 
+	 * and no bigger than the specified threshold. Candidates that fail the check are counted as bad size hot spots
+	 * @param candidateHotspot	Hot spot candidate
+	 * @return true if the candidate satisfies the size restriction
+	 */
+	boolean hasAcceptableSize(Hotspot candidateHotspot) {
+		if(hotspotSizeThreshold == 0 || (candidateHotspot.getSize() <= hotspotSizeThreshold && candidateHotspot.getSize() > 0))
+			return true;
+		badSizeHotspots.incrementAndGet();
+		recordVerdict(candidateHotspot, Verdict.BAD_SIZE);
+		return false;
+	}
+	
+	
+	/**
+	 * Check whether the given candidate has the same axioms as an earlier one (in which case so would its remainder), 
+	 * by comparing their fingerprints. Candidates that are duplicates are counted as such
+	 * @param candidateHotspot	Hot spot candidate
+	 * @return true if an earlier candidate has the same axioms
+	 */
+	boolean isDuplicate(Hotspot candidateHotspot) {
+		BitSet fp = axiomIndex.getFingerprint(candidateHotspot.getAxioms());
+		if(candidateFingerprints.add(fp)) {
+			if(ledger != null) ledger.recordCandidate(candidateHotspot.getCandidateNr(), candidateHotspot.getSeed(), fp);
+			return false;
+		}
+		duplicateCandidates.incrementAndGet();
+		recordVerdict(candidateHotspot, Verdict.DUPLICATE);
+		System.out.println("\tCandidate " + candidateHotspot.getCandidateNr() + " (seed concept: " + candidateHotspot.getSeedName() + 
+				") is a duplicate of an earlier candidate, skipping... ");
+		return true;
+	}
+	
+	
+	/**
+	 * Check whether the remainder with the given fingerprint contains one of the given remainders, and would 
+	 * therefore (by monotonicity of classification time w.r.t. axioms, which usually holds) be as slow
+	 * @param fp	Remainder fingerprint
+	 * @param remainders	Fingerprints of slow remainders
+	 * @return true if the remainder contains one of the given remainders
+	 */
+	private boolean isDominated(BitSet fp, List<BitSet> remainders) {
+		synchronized(remainders) {
+			for(BitSet slow : remainders) {
+				if(AxiomIndex.contains(fp, slow))
+					return true;
+			}
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Get the number of the next hot spot candidate
+	 * @return Candidate number
+	 */
+	int nextCandidateNr() {
+		return candidateNr.getAndIncrement();
+	}
+	
+	
+	/**
+	 * Get the SAT time of the given class, as reported by the SAT tester or the (glass-box) reasoner
+	 * @param c	OWLClass
+	 * @return SAT time (in seconds), or null if the class has not been tested
+	 */
+	Double getSATTime(OWLClass c) {
+		return satTimeMap.get(c);
+	}
+	
+	
+	/**
+	 * Get the number of classes in the ontology's signature
+	 * @return Number of classes
+	 */
+	int getNumberOfClasses() {
+		return ont.getClassesInSignature().size();
+	}
+	
+	
+	boolean isVerbose() {
+		return verbose;
+	}
 	
 	
 	/**
 	 * Prepare candidate hot spot, i.e., extract usage closure for given class (and a module around it) 
 	 * @param c	OWLClass
+	 * @param nr	Candidate number
 	 * @return Hot spot candidate as an OWLOntology
 	 * @throws OWLOntologyCreationException 
 	 */
-	private Hotspot prepHotspotCandidate(OWLClass c, HotspotCandidateType type) throws OWLOntologyCreationException {
+	Hotspot prepHotspotCandidate(OWLClass c, HotspotCandidateType type, int nr) throws OWLOntologyCreationException {
 		long start = bean.getCurrentThreadCpuTime();
 		
 		Set<OWLAxiom> hotspotCandidate = null;
-		if(type.equals(HotspotCandidateType.BOTMOD))
+		if(adCandidates != null && adCandidates.containsKey(c))
+			hotspotCandidate = new HashSet<OWLAxiom>(adCandidates.get(c));
+		else if(type.equals(HotspotCandidateType.BOTMOD))
 			hotspotCandidate = getBottomModHotspotCandidate(c);
 		else if(type.equals(HotspotCandidateType.STARMOD))
 			hotspotCandidate = getStarModHotspotCandidate(c);
@@ -549,8 +996,9 @@ public class HotspotFinder {
 		
 		long end = bean.getCurrentThreadCpuTime();
 		double total = (end-start)/1000000000.0;
+		if(scheduler != null) scheduler.addPhaseTime(SearchBudgetScheduler.Phase.EXTRACTION, total);
 		
-		return new Hotspot(man, hotspotCandidate, total, c, candidateNr);
+		return new Hotspot(man, hotspotCandidate, total, c, nr);
 	}
 	
 	
@@ -564,7 +1012,7 @@ public class HotspotFinder {
 		Set<OWLAxiom> usageClosure = getUsageHotspotCandidate(c);
 		for(OWLAxiom a : usageClosure)
 			sig.addAll(a.getSignature());
-		return starModExtractor.extract(sig);
+		return modules.extract(sig, ModuleType.STAR);
 	}
 	
 	
@@ -576,7 +1024,7 @@ public class HotspotFinder {
 	private Set<OWLAxiom> getBottomModHotspotCandidate(OWLClass c) {
 		Set<OWLEntity> sig = new HashSet<OWLEntity>();
 		sig.add(c);
-		return botModExtractor.extract(sig);
+		return modules.extract(sig, ModuleType.BOT);
 	}
 	
 	
@@ -591,48 +1039,123 @@ public class HotspotFinder {
 	
 	
 	/**
-	 * Test whether a given candidate hot spot is indeed a hot spot according
-	 * to the classificationThreshold parameter
+	 * Get the timeout for the classification of a remainder. This is the classification threshold, unless 
+	 * branch-and-bound is enabled (i.e., the bound slack is non-negative) and a remainder has already classified 
+	 * in time: then it is the classification time of the fastest such remainder plus the slack (but no less than 
+	 * {@link #MIN_BOUND}), so that remainders slower than the best one found so far are abandoned early
+	 * @return Timeout (in milliseconds), 0 for none
+	 */
+	synchronized long getRemainderTimeout() {
+		if(boundSlack < 0 || bestRemainderTime == Double.MAX_VALUE) 
+			return classificationThreshold;
+		long bound = Math.max((long)Math.ceil(bestRemainderTime*(1+boundSlack)*1000), MIN_BOUND);
+		if(classificationThreshold > 0 && bound >= classificationThreshold)
+			return classificationThreshold;
+		return bound;
+	}
+	
+	
+	/**
+	 * Update the best remainder classification time
+	 * @param time	Classification time of a remainder that classified in time (in seconds)
+	 */
+	private synchronized void updateBound(double time) {
+		if(time < bestRemainderTime) {
+			bestRemainderTime = time;
+			if(verbose && boundSlack >= 0) System.out.println("\tRemainder timeout bound: " + getRemainderTimeout() + " milliseconds");
+		}
+	}
+	
+	
+	/**
+	 * Test whether a given candidate hot spot is indeed a hot spot according to the classificationThreshold 
+	 * parameter (or, with branch-and-bound, the tighter bound given by {@link #getRemainderTimeout()})
 	 * @param candidateHotspot	Hot spot candidate
-	 * @param index	Candidate number
-	 * @return true if the given candidate is indeed a hot spot
-	 * @throws InterruptedException 
-	 * @throws IOException 
+	 * @param rem	Remainder
+	 * @return Verdict on the candidate: {@link Verdict#HOTSPOT} if the remainder classifies in time, 
+	 * {@link Verdict#CUT_SHORT} if its test was cut short by the search budget, {@link Verdict#PRUNED} if it was 
+	 * abandoned by branch-and-bound, {@link Verdict#DOMINATED} if it contains a remainder already found too slow, 
+	 * {@link Verdict#NOT_HOTSPOT} otherwise
 	 */
-	private boolean testHotspot(Hotspot candidateHotspot, Approximation rem) {
-		if(verbose) System.out.println("  --- \n  Testing '" + rem.getApproximationTypeName() + "' approximation. Metrics:");
+	private Verdict testHotspot(Hotspot candidateHotspot, Approximation rem) {
+		if(verbose) System.out.println("  --- \n  Testing '" + rem.getApproximationTypeName() + "' approximation of candidate " + 
+				candidateHotspot.getCandidateNr() + ". Metrics:");
 		if(verbose) System.out.println("\tSize: " + rem.getApproximationSize() + " axioms\n\tPreparation time: " + rem.getPreparationTime() + " seconds");
 		
 		String remainderPath = rem.getApproximationFilePath();
 		String hotspotPath = rem.getHotspotFilePath();
 		boolean isHotspot;
+		long bound = getRemainderTimeout(), timeout = capToBudget(bound);
+		
+		BitSet fp = axiomIndex.getFingerprint(rem.getApproximation());
+		if(isDominated(fp, slowRemainders)) {
+			new File(remainderPath).delete();
+			new File(hotspotPath).delete();
+			dominatedRems.incrementAndGet();
+			System.out.println("\tRemainder contains a remainder already found too slow, skipping... ");
+			return Verdict.DOMINATED;
+		}
+		if(isDominated(fp, prunedRemainders)) { // The bound only gets tighter, so it would be pruned as well
+			new File(remainderPath).delete();
+			new File(hotspotPath).delete();
+			dominatedRems.incrementAndGet();
+			System.out.println("\tRemainder contains a remainder already found slower than the best remainder so far, skipping... ");
+			return Verdict.PRUNED;
+		}
 
-		if(verbose) System.out.println("    Classifying remainder... (timeout: " + classificationThreshold + " milliseconds)");
+		if(verbose) System.out.println("    Classifying remainder... (timeout: " + timeout + " milliseconds)");
 
 		ClassifierResult result = null;
+		long start = System.currentTimeMillis();
 		try {
-			result = classify(remainderPath, true);
+			result = classify(rem.getApproximation(), remainderPath, timeout);
 		} catch (IOException | InterruptedException e) {
 			e.printStackTrace();
 		}
 		rem.attachClassifierResult(result);
+		if(cancelled) return Verdict.CUT_SHORT;
 		
 		if(result.timedOut()) isHotspot = false;
 		else isHotspot = true;
+		if(scheduler != null) {
+			scheduler.addPhaseTime(SearchBudgetScheduler.Phase.VERIFICATION, (System.currentTimeMillis()-start)/1000.0);
+			scheduler.recordRemainderTest(isHotspot ? result.getReasoningTaskTime() : -1);
+		}
 
-		if(!isHotspot) {
+		if(!isHotspot && scheduler != null && (bound == 0 || timeout < bound)) { // Cut short by the search budget, so not known to be slow
+			new File(remainderPath).delete();
+			new File(hotspotPath).delete();
+			System.out.println("\tRemainder test cut short by the search budget... ");
+			addTiming("Remainder Tests", timeout/1000.0);
+			return Verdict.CUT_SHORT;
+		}
+		else if(!isHotspot) {
 			// Delete serialized files
 			new File(remainderPath).delete();
 			new File(hotspotPath).delete();
 			
+			Double d = timeout/1000.0;
+			if(timeout != classificationThreshold) { // Dominated by the best remainder so far, so not known to be too slow
+				prunedRemainders.add(fp);
+				System.out.println("\tRemainder is slower than the best remainder so far... ");
+				addTiming("Pruned Remainder Tests", d);
+				censoredTimings.add(candidateHotspot.getCandidateNr() + "," + candidateHotspot.getSeedName() + "," + 
+						rem.getApproximationTypeName() + "," + rem.getApproximationSize() + "," + d);
+				return Verdict.PRUNED;
+			}
+			slowRemainders.add(fp);
+			if(ledger != null && axiomIndex.isStable(fp)) ledger.recordSlowRemainder(fp);
 			System.out.println("\tRemainder is too slow... ");
-			
-			Double d = classificationThreshold/1000.0;
 			addTiming("Remainder Tests", d);
 		}
-		else
-			tempLog.put(rem, rem.getPreparationTime() + "," + rem.getApproximationSize() + "," + result.getReasoningTaskTime() + "," + result.getNumberOfEntailments() + ",");
-		return isHotspot;
+		else {
+			if(workers != null) serialize(rem);
+			updateBound(result.getReasoningTaskTime());
+			synchronized(tempLog) {
+				tempLog.put(rem, rem.getPreparationTime() + "," + rem.getApproximationSize() + "," + result.getReasoningTaskTime() + "," + result.getNumberOfEntailments() + ",");
+			}
+		}
+		return (isHotspot ? Verdict.HOTSPOT : Verdict.NOT_HOTSPOT);
 	}
 	
 	
@@ -644,6 +1167,41 @@ public class HotspotFinder {
 	 * @throws InterruptedException
 	 */
 	public ClassifierResult classify(String ontologyPath, boolean useTimeout) throws IOException, InterruptedException {
+		return classify(ontologyPath, (useTimeout ? classificationThreshold : 0));
+	}
+	
+	
+	/**
+	 * Classify ontology located in the specified path with the given timeout
+	 * @param ontologyPath	File path to ontology
+	 * @param timeout	Timeout (in milliseconds), 0 for none
+	 * @return Classification results
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	ClassifierResult classify(String ontologyPath, long timeout) throws IOException, InterruptedException {
+		String key = null;
+		if(cache != null) {
+			if(ontologyPath.equals(ontPath)) key = getCacheKey(ont.getAxioms());
+			else key = ClassificationCache.getKey(ontologyPath, true, reasonerName, "-cl");
+			ClassifierResult cached = getCachedResult(key, timeout);
+			if(cached != null) return cached;
+		}
+		return classifyInProcess(ontologyPath, key, timeout);
+	}
+	
+	
+	/**
+	 * Classify ontology located in the specified path with the given timeout in a new process, and store the results 
+	 * in the classification cache (if any)
+	 * @param ontologyPath	File path to ontology
+	 * @param key	Cache key of the ontology (see {@link #getCacheKey(Set)}), null if there is no cache
+	 * @param timeout	Timeout (in milliseconds), 0 for none
+	 * @return Classification results
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private ClassifierResult classifyInProcess(String ontologyPath, String key, long timeout) throws IOException, InterruptedException {
 		ArrayList<String> args = new ArrayList<String>();
 		args.add("-ont"); 		args.add(ontologyPath);
 		args.add("-reasoner");	args.add(reasonerName);
@@ -651,23 +1209,129 @@ public class HotspotFinder {
 		args.add("-cl");
 		args.add("-b");
 		args.add("-v");
-		if(useTimeout) {args.add("-t"); args.add(classificationThreshold + "");}
+		args.add("-bin");
+		if(timeout > 0) {args.add("-t"); args.add(timeout + "");}
 
 		Process p = Dispatcher.executeOperation(EntailmentGenerator.class, false, false, args);
-		InputStream stdout = p.getInputStream();
-		
+		runningProcesses.add(p);
+		ClassifierResult result = readClassifierOutput(new BufferedReader(new InputStreamReader(p.getInputStream())), p, false);
+		if(cache != null && result.getErrorMessage().equals("")) cache.put(key, result, timeout, true);
+		return result;
+	}
+	
+	
+	/**
+	 * Classify the given set of axioms of the ontology. If classification workers are used (see 
+	 * {@link #setClassificationWorkers(boolean)}) and all axioms are in the ontology, the axioms are handed to a worker 
+	 * as a fingerprint; otherwise they are serialized to the given file path (unless it already exists) and classified 
+	 * in a new process
+	 * @param axioms	Set of axioms
+	 * @param filePath	File path of the axioms
+	 * @param timeout	Timeout (in milliseconds), 0 for none
+	 * @return Classification results
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private ClassifierResult classify(Set<OWLAxiom> axioms, String filePath, long timeout) throws IOException, InterruptedException {
+		String key = null;
+		if(cache != null) {
+			key = getCacheKey(axioms);
+			ClassifierResult cached = getCachedResult(key, timeout);
+			if(cached != null) return cached;
+		}
+		if(workers != null) {
+			BitSet fp = axiomIndex.getFingerprint(axioms);
+			if(axiomIndex.isStable(fp)) {
+				ClassifierResult result = classifyInWorker(key, fp, timeout);
+				if(result != null) return result;
+			}
+		}
+		if(!new File(filePath).exists())
+			StreamingOntologyWriter.write(axioms, filePath);
+		return classifyInProcess(filePath, key, timeout);
+	}
+	
+	
+	/**
+	 * Get the classification cache key of the given set of axioms. ABox axioms are left out, since they are ignored 
+	 * by classification processes and workers alike
+	 * @param axioms	Set of axioms
+	 * @return Cache key
+	 */
+	private String getCacheKey(Set<OWLAxiom> axioms) {
+		return ClassificationCache.getKey(axioms, true, reasonerName, "-cl");
+	}
+	
+	
+	/**
+	 * Classify the subset of the ontology with the given fingerprint in a classification worker
+	 * @param key	Cache key of the axioms (see {@link #getCacheKey(Set)}), null if there is no cache
+	 * @param fp	Fingerprint of the axioms
+	 * @param timeout	Timeout (in milliseconds), 0 for none
+	 * @return Classification results, or null if no worker is available
+	 * @throws IOException
+	 */
+	private ClassifierResult classifyInWorker(String key, BitSet fp, long timeout) throws IOException {
+		Worker w = workers.borrow();
+		if(w == null) return null;
+		String resultsPath = outputDir + "Hotspots_" + reasonerName + File.separator + "worker" + workerRequestNr.incrementAndGet() + ".tax";
+		runningProcesses.add(w.getProcess());
+		try {
+			w.send(fp, timeout, resultsPath);
+		} catch (IOException e) { // Worker exited
+			runningProcesses.remove(w.getProcess());
+			workers.discard(w);
+			return null;
+		}
+		ClassifierResult result = readClassifierOutput(w.getReader(), w.getProcess(), true);
+		new File(resultsPath).delete();
+		new File(resultsPath + ".tmp").delete(); // Left by a worker that timed out while saving
+		if(result.timedOut()) workers.discard(w); // The worker exits on timeout or error
+		else workers.release(w);
+		if(cache != null && result.getErrorMessage().equals("")) cache.put(key, result, timeout, true);
+		return result;
+	}
+	
+	
+	/**
+	 * Get the cached classification results for the given key, if any
+	 * @param key	Cache key
+	 * @param timeout	Timeout of the classification that would otherwise be carried out (in milliseconds), 0 for none
+	 * @return Cached classification results, or null if there are none
+	 */
+	private ClassifierResult getCachedResult(String key, long timeout) {
+		ClassifierResult cached = cache.get(key, timeout, true);
+		if(cached != null) {
+			if(cached.timedOut()) System.out.println("\tAborted: Reasoning task exceeded timeout (cached result)");
+			else if(verbose) System.out.println("\tClassification time: " + cached.getReasoningTaskTime() + " seconds (cached result)" +
+					"\n\tNr. Entailments: " + cached.getNumberOfEntailments() + "\n\tNr. Unsatisfiable classes: " + cached.getNumberOfUnsatisfiableClasses());
+		}
+		return cached;
+	}
+	
+	
+	/**
+	 * Read the output of a classification process (or worker) up to the end of its results, and load the 
+	 * subsumptions it saved
+	 * @param reader	Reader of the process output
+	 * @param p	Process, which must be in the running processes
+	 * @param endMarker	true if the output of each classification ends with a line "--EOF--" (as that of workers does)
+	 * @return Classification results, with an error message if classification failed or was cancelled
+	 * @throws IOException
+	 */
+	private ClassifierResult readClassifierOutput(BufferedReader reader, Process p, boolean endMarker) throws IOException {
 		// Desired output 
 		double clTime = 0; 
 		int nrEnts = 0, nrUnsat = 0;
 		boolean isConsistent = true, timedOut = false;
-		String infSubsFile = "";
+		String infSubsFile = "", errorMsg = "";
 		
-		BufferedReader reader = new BufferedReader(new InputStreamReader(stdout));
 		String line = reader.readLine();
 		while (line != null && !line.trim().equals("--EOF--")) {
 			if(line.contains("Aborted") || line.contains("Exception") || line.contains("Error")) {
 				System.out.println(line);
 				timedOut = true;
+				if(!line.contains("Aborted")) errorMsg = line.trim();
 				break;
 			}
 			if(line.contains("Classification time")) {
@@ -693,9 +1357,21 @@ public class HotspotFinder {
 			if(line == null)
 				break;
 		}
+		if(line == null && !timedOut && endMarker) { // Worker exited before the end of its results
+			timedOut = true;
+			errorMsg = "Classification process exited unexpectedly";
+		}
+		runningProcesses.remove(p);
+		if(cancelled) { // Process was terminated
+			p.destroy();
+			timedOut = true;
+			errorMsg = "Cancelled";
+		}
 		
 		Set<OWLAxiom> entailments = new HashSet<OWLAxiom>();
-		if(!timedOut && !infSubsFile.equals("")) {
+		if(!timedOut && infSubsFile.endsWith(".tax"))
+			return new ClassifierResult(new TaxonomyReader(infSubsFile).getTaxonomy(), clTime, errorMsg, isConsistent, timedOut);
+		else if(!timedOut && !infSubsFile.equals("")) {
 			OWLOntology infSubs = null;
 			try {
 				infSubs = new OntologyLoader(new File(infSubsFile), false).loadOntology();
@@ -704,7 +1380,7 @@ public class HotspotFinder {
 			}
 			if(infSubs != null) entailments = infSubs.getAxioms();
 		}
-		return new ClassifierResult(entailments, clTime, nrUnsat, "", isConsistent, timedOut);
+		return new ClassifierResult(entailments, clTime, nrUnsat, errorMsg, isConsistent, timedOut);
 	}
 	
 	
@@ -718,7 +1394,10 @@ public class HotspotFinder {
 	 */
 	private Approximation getApproximation(ApproximationGenerator gen, Hotspot candidateHotspot, ApproximationType type) {
 		long start = bean.getCurrentThreadCpuTime();
-		Set<OWLAxiom> remainderAxioms = gen.getApproximationAxioms(type, reasonerName);
+		Set<OWLAxiom> remainderAxioms = null;
+		synchronized(extractionLock) { // The ontology manager is not thread-safe
+			remainderAxioms = gen.getApproximationAxioms(type, reasonerName);
+		}
 		long end = bean.getCurrentThreadCpuTime();
 		double total = (end-start)/1000000000.0;
 		
@@ -728,22 +1407,33 @@ public class HotspotFinder {
 			if(candidatePath.contains(".owl"))
 				candidatePath = candidatePath.replaceAll(".owl", "");
 
-			String approxFile = candidatePath + "remainder" + candidateNr + "_" + type.toString() + ".owl";
-			String hsFile = candidatePath + "hotspot" + candidateNr + ".owl";
+			String approxFile = candidatePath + "remainder" + candidateHotspot.getCandidateNr() + "_" + type.toString() + ".owl";
+			String hsFile = candidatePath + "hotspot" + candidateHotspot.getCandidateNr() + ".owl";
 			candidateHotspot.setPath(hsFile);
-			try {
-				man.saveOntology(man.createOntology(remainderAxioms), new OWLXMLOntologyFormat(), IRI.create("file:" + approxFile));
-				man.saveOntology(candidateHotspot.getHotspotAsOntology(), new OWLXMLOntologyFormat(), IRI.create("file:" + hsFile));
-			} catch (OWLOntologyStorageException | OWLOntologyCreationException e) {
-				e.printStackTrace();
-			}
-			return new Approximation(remainderAxioms, approxFile, candidateHotspot, hsFile, total, remainderAxioms.size(), type);
+			Approximation rem = new Approximation(remainderAxioms, approxFile, candidateHotspot, hsFile, total, remainderAxioms.size(), type);
+			if(workers == null) serialize(rem); // Workers are handed fingerprints instead
+			return rem;
 		}
 		else {
 			System.out.println("\tApproximation " + type.name() + " too big...");
 			return null;
 		}
 	}
+	
+	
+	/**
+	 * Serialize the given approximation and its hot spot, unless the latter is already serialized
+	 * @param rem	Approximation
+	 */
+	private void serialize(Approximation rem) {
+		try {
+			StreamingOntologyWriter.write(rem.getApproximation(), rem.getApproximationFilePath());
+			if(!new File(rem.getHotspotFilePath()).exists())
+				StreamingOntologyWriter.write(rem.getHotspot().getAxioms(), rem.getHotspotFilePath());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
 		
 	
 	/**
@@ -752,7 +1442,7 @@ public class HotspotFinder {
 	 * @throws InterruptedException 
 	 * @throws IOException 
 	 */
-	private ArrayList<OWLClass> getIndicators(boolean glassBoxReasoner) throws IOException, InterruptedException {
+	ArrayList<OWLClass> getIndicators(boolean glassBoxReasoner) throws IOException, InterruptedException {
 		ArrayList<OWLClass> classes = null;
 		if(indStrategy.equals(HotspotIndicatorStrategy.SAT))
 			classes = performSATTest(glassBoxReasoner);
@@ -760,9 +1450,152 @@ public class HotspotFinder {
 			classes = new ArrayList<OWLClass>(ont.getClassesInSignature());
 			Collections.shuffle(classes);
 		}
-		else if(indStrategy.equals(HotspotIndicatorStrategy.AD)) {
-			throw new Error("Feature not implemented");
+		else if(indStrategy.equals(HotspotIndicatorStrategy.AD))
+			classes = getADIndicators();
+		else if(indStrategy.equals(HotspotIndicatorStrategy.LEARNED))
+			classes = getLearnedIndicators();
+		if(classBudget > 0) {
+			// Classes that exceed their classification budget come first
+			Set<OWLClass> seeds = new LinkedHashSet<OWLClass>(getUnresolvedClasses());
+			seeds.addAll(classes);
+			classes = new ArrayList<OWLClass>(seeds);
+		}
+		if(!resolvedSeeds.isEmpty()) classes.removeAll(resolvedSeeds); // Known not to be hot spot seeds
+		return classes;
+	}
+	
+	
+	/**
+	 * Classify the ontology with a time budget per class (see {@link #classBudget}), and gather the classes 
+	 * whose subsumers could not be computed within the budget. No output directory is given to the classification 
+	 * process, so it writes no results or logs
+	 * @return List of unresolved classes
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private ArrayList<OWLClass> getUnresolvedClasses() throws IOException, InterruptedException {
+		ArrayList<String> args = new ArrayList<String>();
+		args.add("-ont"); 		args.add(ontPath);
+		args.add("-reasoner");	args.add(reasonerName);
+		args.add("-cl");
+		args.add("-b");
+		args.add("-v");
+		args.add("-any");
+		args.add("-cb");		args.add(classBudget + "");
+		if(classificationThreshold > 0) {args.add("-t"); args.add(classificationThreshold + "");}
+		
+		if(verbose) System.out.println(" Classifying ontology with a time budget of " + classBudget + " milliseconds per class...");
+		Process p = Dispatcher.executeOperation(EntailmentGenerator.class, false, false, args);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
+		
+		ArrayList<OWLClass> unresolved = new ArrayList<OWLClass>();
+		String line = reader.readLine();
+		while(line != null && !line.trim().equals("--EOF--")) {
+			line = line.trim();
+			if(line.startsWith("Unresolved:"))
+				unresolved.add(df.getOWLClass(IRI.create(line.substring(line.indexOf(":")+2))));
+			else if(line.contains("Aborted"))
+				break;
+			line = reader.readLine();
+		}
+		if(verbose) System.out.println(" Done. Unresolved classes: " + unresolved.size());
+		return unresolved;
+	}
+	
+	
+	/**
+	 * Get indicator classes from the atomic decomposition of the ontology: the cones of the atoms (within the hot spot
+	 * size threshold) are ranked by their structural cost, and each is represented by a class in the signature of its 
+	 * atom. The cone of an atom is a bottom module, so the hot spot candidate of each indicator is its cone, rather 
+	 * than a module extracted for it
+	 * @return List of indicator classes
+	 */
+	private ArrayList<OWLClass> getADIndicators() {
+		AtomicDecomposition ad = new AtomicDecomposition(ont, modules, MAX_PROCESSES);
+		List<Atom> atoms = new ArrayList<Atom>(ad.decompose());
+		final Map<Atom,Double> scores = new HashMap<Atom,Double>();
+		for(Atom a : atoms) {
+			int size = a.getCone().size();
+			if(hotspotSizeThreshold != 0 && size > hotspotSizeThreshold) continue;
+			double cost = 0;
+			for(OWLAxiom ax : a.getCone())
+				cost += CandidateRanker.getStructuralCost(ax);
+			scores.put(a, (cost/size) * Math.log(1+size)); // Density of costly constructs, favouring bigger cones
+		}
+		atoms.retainAll(scores.keySet());
+		Collections.sort(atoms, new Comparator<Atom>() {
+			@Override
+			public int compare(Atom a1, Atom a2) {
+				int c = Double.compare(scores.get(a2), scores.get(a1));
+				return (c != 0 ? c : Integer.compare(a1.getCone().size(), a2.getCone().size()));
+			}
+		});
+		
+		adCandidates = new HashMap<OWLClass,Set<OWLAxiom>>();
+		ArrayList<OWLClass> classes = new ArrayList<OWLClass>();
+		for(Atom a : atoms) {
+			List<OWLClass> atomClasses = new ArrayList<OWLClass>();
+			for(OWLEntity e : a.getSignature())
+				if(e.isOWLClass() && !e.isTopEntity() && !e.isBottomEntity()) atomClasses.add(e.asOWLClass());
+			Collections.sort(atomClasses);
+			for(OWLClass c : atomClasses) {
+				if(!adCandidates.containsKey(c)) {
+					adCandidates.put(c, a.getCone());
+					classes.add(c);
+					break;
+				}
+			}
+		}
+		if(verbose) System.out.println(" Atomic decomposition: " + ad.decompose().size() + " atoms (" + ad.getDecompositionTime() + 
+				" seconds). Candidate cones: " + classes.size());
+		return classes;
+	}
+	
+	
+	/**
+	 * Get indicators ranked by the probability that their candidates are hot spots, according to a 
+	 * {@link CandidateRanker} trained on the candidates verified in earlier runs (those in the candidates file in the 
+	 * output directory). The candidates are extracted, but not reasoned with. If there are too few earlier candidates 
+	 * to train on, the indicators are ranked by the structural cost of their candidates instead
+	 * @return List of indicator classes
+	 * @throws IOException
+	 */
+	private ArrayList<OWLClass> getLearnedIndicators() throws IOException {
+		boolean trained = candidateRanker.train(new File(outputDir + "HSF_Candidates.csv"), reasonerName);
+		if(verbose) {
+			if(trained) System.out.println(" Candidate ranker trained on " + candidateRanker.getNumberOfExamples() + " candidates (" + 
+					candidateRanker.getNumberOfPositiveExamples() + " hot spots), training accuracy: " + 
+					String.format("%.2f", candidateRanker.getTrainingAccuracy()));
+			else System.out.println(" Too few earlier candidates to train the candidate ranker on (" + candidateRanker.getNumberOfExamples() + 
+					"), ranking candidates by structural cost");
+		}
+		ArrayList<OWLClass> classes = new ArrayList<OWLClass>(ont.getClassesInSignature());
+		Collections.sort(classes); // Ties are ranked in a fixed order
+		final Map<OWLClass,Double> scores = new HashMap<OWLClass,Double>();
+		for(OWLClass c : classes) {
+			Set<OWLAxiom> candidate = null;
+			try {
+				candidate = prepHotspotCandidate(c, candidateType, 0).getAxioms();
+			} catch (OWLOntologyCreationException e) {
+				e.printStackTrace();
+				continue;
+			}
+			if(trained)
+				scores.put(c, candidateRanker.score(candidateRanker.getFeatures(candidate)));
+			else {
+				double cost = 0;
+				for(OWLAxiom ax : candidate)
+					cost += CandidateRanker.getStructuralCost(ax);
+				scores.put(c, cost);
+			}
 		}
+		classes.retainAll(scores.keySet());
+		Collections.sort(classes, new Comparator<OWLClass>() {
+			@Override
+			public int compare(OWLClass c1, OWLClass c2) {
+				return Double.compare(scores.get(c2), scores.get(c1));
+			}
+		});
 		return classes;
 	}
 	
@@ -775,6 +1608,11 @@ public class HotspotFinder {
 	 * @throws InterruptedException
 	 */
 	private ArrayList<OWLClass> performSATTest(boolean glassBoxReasoner) throws IOException, InterruptedException {
+		if(hasStoredSATTest()) {
+			System.out.println(" -------------------\n SAT test results restored from ledger");
+			addTiming("SAT Test", ledger.getSATTestTime());
+			return ranking.toSortedList();
+		}
 		Process p = null;
 		if(glassBoxReasoner) p = execRegularClassification();
 		else p = execSATTester();
@@ -789,37 +1627,77 @@ public class HotspotFinder {
         String line = reader.readLine();
         double status = 0;
         double counter = 0, nrClasses = classes.size();
-        if(glassBoxReasoner) nrClasses *= 2;
+        long start = System.currentTimeMillis();
 
         while(line != null && !line.trim().equals("--EOF--")) {
 //        	System.out.println("[debug] " + line);
-        	if(line.startsWith("<") || line.startsWith("ObjectComplementOf")) {
+        	if(line.startsWith("<") || line.startsWith("ObjectComplementOf") || line.startsWith("Sat")) {
         		counter++;
         		updateSATMap(line, glassBoxReasoner);
         		int status2 = (int)(100*(counter/nrClasses));
         		if(status < status2)
         			System.out.println("   " + status2 + "% (" + (int)counter + "/" + (int)nrClasses + " tests done)");
         		status = status2;
+        		if(scheduler != null && scheduler.isSATProfilingOver()) { // Rank the classes profiled so far
+        			p.destroy();
+        			double time = (System.currentTimeMillis()-start)/1000.0;
+        			System.out.println(" Stopped SAT tests: share of the search budget spent (" + (int)counter + " tests done)");
+        			addTiming("SAT Test", time);
+        			scheduler.addPhaseTime(SearchBudgetScheduler.Phase.SAT_PROFILING, time);
+        			break;
+        		}
         	}
         	else if(line.startsWith("SAT")) {
         		System.out.println(" Done. " + line);
         		Double time = Double.valueOf(line.substring(line.indexOf(":")+2, line.lastIndexOf(" s")));
         		addTiming("SAT Test", time);
+        		recordSATTestDone(line);
         	}
         	
         	line = reader.readLine();
     		if (line == null)
     			break;
         }
-		return sortHashMap(satTimeMap);
+		return ranking.toSortedList();
+	}
+	
+	
+	/**
+	 * Check whether the results of a complete SAT test are stored in the ledger
+	 * @return true if the SAT test need not be performed again
+	 */
+	boolean hasStoredSATTest() {
+		return ledger != null && ledger.getSATTestTime() != null && !satTimeMap.isEmpty();
+	}
+	
+	
+	/**
+	 * Record in the ledger, if any, that the SAT test is complete
+	 * @param line	SAT tester output line with the SAT test time
+	 */
+	void recordSATTestDone(String line) {
+		Double time = Double.valueOf(line.substring(line.indexOf(":")+2, line.lastIndexOf(" s")));
+		if(ledger != null) ledger.recordSATTestDone(time);
+		if(scheduler != null) scheduler.addPhaseTime(SearchBudgetScheduler.Phase.SAT_PROFILING, time);
+	}
+	
+	
+	/**
+	 * Check whether the given class is known, from the ledger, not to seed a hot spot
+	 * @param c	OWLClass
+	 * @return true if the candidate seeded by the class was already tested and found not to be a hot spot
+	 */
+	boolean isResolved(OWLClass c) {
+		return resolvedSeeds.contains(c);
 	}
 	
 	
 	/**
 	 * Update the SAT tests time map
 	 * @param line	Line of input stream reader
+	 * @return Class whose SAT time was updated
 	 */
-	private void updateSATMap(String line, boolean glassBoxReasoner) {
+	OWLClass updateSATMap(String line, boolean glassBoxReasoner) {
 		String[] results = line.split(" ");		
 		OWLClass c = null;
 		String ce = results[0];
@@ -835,6 +1713,9 @@ public class HotspotFinder {
 		else if(results[1].contains("error")) time = 0;
 		else time = Double.parseDouble(results[1]);
 		satTimeMap.put(c, time);
+		ranking.update(c, time);
+		if(ledger != null) ledger.recordSATTime(c, time);
+		return c;
 	}
 	
 	
@@ -844,7 +1725,7 @@ public class HotspotFinder {
 	 * @throws IOException
 	 * @throws InterruptedException
 	 */
-	private Process execSATTester() throws IOException, InterruptedException {
+	Process execSATTester() throws IOException, InterruptedException {
 		System.out.println(" -------------------\n Performing SAT tests...");
 		ArrayList<String> args = new ArrayList<String>();
 		args.add("-ont");			args.add(ontPath);
@@ -860,26 +1741,6 @@ public class HotspotFinder {
 	}
 	
 	
-	/**
-	 * Sort hashmap in descending order of values (sat time)
-	 */
-	private ArrayList<OWLClass> sortHashMap(HashMap<OWLClass, Double> times) {
-		ArrayList<OWLClass> list = new ArrayList<OWLClass>();
-
-		List<OWLClass> keylist = new ArrayList<OWLClass>(times.keySet());
-		List<Double> valuelist = new ArrayList<Double>(times.values());
-		
-		ArrayList<Double> sortedValueList = new ArrayList<Double>(times.values());
-		Collections.sort(sortedValueList);
-		Collections.reverse(sortedValueList);
-		
-		for(int i = 0; i < sortedValueList.size(); i++) {
-			OWLClass c = (OWLClass) keylist.get(valuelist.indexOf(sortedValueList.get(i)));
-			list.add(c);
-		}
-	
-		return list;
-	}
 	
 	
 	/**
@@ -888,7 +1749,8 @@ public class HotspotFinder {
 	public enum HotspotIndicatorStrategy {
 		SAT ("SAT-Based Search"),
 		RANDOM ("Random Concept Picking Search"),
-		AD ("Atomic Decomposition Based Search");
+		AD ("Atomic Decomposition Based Search"),
+		LEARNED ("Learned Candidate Ranking Search");
 		
 		String name;
 		HotspotIndicatorStrategy(String name) {
@@ -906,7 +1768,9 @@ public class HotspotFinder {
 	 */
 	public enum HotspotSearchStrategy {
 		SEQ ("Sequential search strategy"),
-		CON ("Concurrent search strategy");
+		CON ("Concurrent search strategy"),
+		PIPE ("Pipelined search strategy"),
+		JOINT ("Joint (greedy multi-hot spot) search strategy");
 		
 		String name;
 		HotspotSearchStrategy(String name) {
@@ -955,8 +1819,8 @@ public class HotspotFinder {
 			String filename = outputDir + "HSF_ClassHierarchy_" + aCounter + ".owl";
 			if(verbose) System.out.println(" Serialized class hierarchy (" + classHierarchy.size() + " entailments) as: " + filename);
 			try {
-				man.saveOntology(man.createOntology(classHierarchy), new OWLXMLOntologyFormat(), IRI.create("file:" + filename));
-			} catch (OWLOntologyStorageException | OWLOntologyCreationException e) {
+				StreamingOntologyWriter.write(classHierarchy, filename);
+			} catch (IOException e) {
 				e.printStackTrace();
 			}
 			aCounter++;
@@ -977,7 +1841,8 @@ public class HotspotFinder {
 	 * Produce a log of hotspot finding timings
 	 */
 	public void produceLog(Set<Approximation> approxs) {
-		String header = "\nOntology,Reasoner,SAT Time,Hotspot Finding Time,Slow Remainders Testing Time,Bad Size Hotspots,Bad Size Remainders,";
+		String header = "\nOntology,Reasoner,SAT Time,Hotspot Finding Time,Slow Remainders Testing Time,Bad Size Hotspots,Bad Size Remainders," +
+				"Duplicate Candidates,Dominated Remainders,";
 		
 		Double sat = timings.get("SAT Test");
 		Double hsf = timings.get("Hotspot Search");
@@ -985,7 +1850,7 @@ public class HotspotFinder {
 		if(remTests == null) remTests = 0.0;
 		
 		String row = ontPath.substring(ontPath.lastIndexOf("/")+1, ontPath.length()) + "," + reasonerName + "," + sat + "," + hsf + "," + remTests 
-				+ "," + badSizeHotspots + "," + badSizeRems + ",";
+				+ "," + badSizeHotspots.get() + "," + badSizeRems.get() + "," + duplicateCandidates.get() + "," + dominatedRems.get() + ",";
 		
 		for(Approximation a : approxs) {
 			Hotspot h = a.getHotspot();
@@ -1003,7 +1868,7 @@ public class HotspotFinder {
 			row += ar.getReasoningTaskTime() + "," + ar.getNumberOfEntailments() + ",";
 			
 			header += "CT(Compilation),AtSubs(Compilation),";
-			if(a.getApproximationType().equals(ApproximationType.COMPLETE))
+			if(a.getApproximationType().equals(ApproximationType.COMPLETE) && r != null)
 				row += (ar.getReasoningTaskTime()+r.getReasoningTaskTime()) + "," + a.getRemainderAndHotspotEntailments().size() + ",";
 			else
 				row += ar.getReasoningTaskTime() + "," + ar.getNumberOfEntailments() + ",";
@@ -1026,27 +1891,35 @@ public class HotspotFinder {
 			}
 			
 			// Axiom overlap between hotspot and remainder
-			int partsAxiomOverlap = 0;
-			for(OWLAxiom ax : h.getAxioms()) {
-				if(a.getApproximation().contains(ax))
-					partsAxiomOverlap++;
-			}
+			BitSet axiomOverlap = axiomIndex.getFingerprint(h.getAxioms());
+			axiomOverlap.and(axiomIndex.getFingerprint(a.getApproximation()));
+			int partsAxiomOverlap = axiomOverlap.cardinality();
 			
 			// Entailment overlap between hotspot and remainder 
 			int partsEntailmentOverlap = 0;
-			for(OWLAxiom ax : r.getEntailments()) {
-				if(ar.getEntailments().contains(ax))
-					partsEntailmentOverlap++;
-			}
+			if(r != null)
+				partsEntailmentOverlap = entailmentDiff.diff(entailmentDiff.encode(r), 
+						entailmentDiff.encode(ar)).getNumberOfSharedEntailments();
 			header += "Nr. Concepts in sig(M) and sig(Remainder),Nr. Concepts in sig(Remainder) and sig(O)," +
 					"Nr. Axioms in Remainder and Hotspot,Nr. Entailments from Remainder and Hotspot,";
 			row += partsSigOverlap + "," + ontRemainderSigOverlap + "," + partsAxiomOverlap + "," + partsEntailmentOverlap + ",";
+			if(completeness.containsKey(a)) {
+				header += "Completeness (%),";
+				row += completeness.get(a) + ",";
+			}
 		}
 
 		if(verbose) {
 			System.out.println(" -------------------\n Hotspot Finder Metrics:");
-			System.out.println("    Bad size hotspots: " + badSizeHotspots);
-			System.out.println("    Bad size remainders: " + badSizeRems);
+			System.out.println("    Bad size hotspots: " + badSizeHotspots.get());
+			System.out.println("    Bad size remainders: " + badSizeRems.get());
+			System.out.println("    Duplicate candidates: " + duplicateCandidates.get());
+			System.out.println("    Dominated remainders: " + dominatedRems.get());
+			if(boundSlack >= 0) System.out.println("    Pruned remainders: " + censoredTimings.size());
+			if(workers != null) System.out.println("    Classification workers started: " + workers.getNumberOfWorkersStarted());
+			System.out.println("    Module cache: " + modules.getNumberOfHits() + " hits, " + modules.getNumberOfPartialHits() + 
+					" partial hits, " + modules.getNumberOfMisses() + " misses");
+			if(scheduler != null) scheduler.printMetrics();
 		}
 		
 		Double total = 0.0;
@@ -1063,12 +1936,56 @@ public class HotspotFinder {
 	}
 	
 	
+	/**
+	 * Serialize the candidate records, i.e., the features of each candidate whose remainder was classified against 
+	 * the classification threshold and whether it is a hot spot, from which the candidate ranker of the learned 
+	 * indicator strategy is trained in later runs
+	 * @throws IOException
+	 */
+	public void serializeCandidateRecords() throws IOException {
+		File f = new File(outputDir + "HSF_Candidates.csv");
+		boolean exists = f.exists();
+		FileWriter writer = new FileWriter(f, true);
+		if(!exists) {
+			writer.append("Ontology,Reasoner,Candidate Type,Hotspot Seed Concept,");
+			for(String feature : CandidateRanker.FEATURES)
+				writer.append(feature + ",");
+			writer.append("Hotspot\n");
+		}
+		String ontName = ontPath.substring(ontPath.lastIndexOf("/")+1, ontPath.length());
+		synchronized(candidateRecords) {
+			for(String s : candidateRecords)
+				writer.append(ontName + "," + reasonerName + "," + s + "\n");
+		}
+		writer.close();
+	}
+	
+	
+	/**
+	 * Serialize the censored remainder timings, i.e., those of remainders abandoned by branch-and-bound, for which 
+	 * only a lower bound (the timeout they were abandoned at) is known
+	 * @throws IOException
+	 */
+	public void serializeCensoredTimings() throws IOException {
+		File f = new File(outputDir + "HSF_Censored.csv");
+		boolean exists = f.exists();
+		FileWriter writer = new FileWriter(f, true);
+		if(!exists) writer.append("Ontology,Reasoner,Hotspot Candidate Nr.,Hotspot Seed Concept,Approximation,Size,CT(Remainder) Lower Bound\n");
+		String ontName = ontPath.substring(ontPath.lastIndexOf("/")+1, ontPath.length());
+		synchronized(censoredTimings) {
+			for(String s : censoredTimings)
+				writer.append(ontName + "," + reasonerName + "," + s + "\n");
+		}
+		writer.close();
+	}
+	
+	
 	/**
 	 * Add timing to timings map
 	 * @param s	Description
 	 * @param d	Time (in seconds)
 	 */
-	public void addTiming(String s, Double d) {
+	public synchronized void addTiming(String s, Double d) {
 		if(timings.keySet().contains(s)) {
 			Double d0 = timings.get(s);
 			d0 += d;
@@ -1088,9 +2005,11 @@ public class HotspotFinder {
 	public static void main(String[] args) throws OWLOntologyCreationException, IOException, InterruptedException {
 		System.out.println("Executing Hot Spot Finder...");
 		String ontFile = null, reasonerName = null, outputDir = null, indStrat = "SAT", searchStrat = "SEQ", hsType = "STAR";
-		boolean verbose = false, ignoreAbox = false;
+		boolean verbose = false, ignoreAbox = false, resume = false, useWorkers = false, checkCompleteness = false, glassBox = false;
 		int minHotspots = 0, maxTests = 0, sizeThreshold = 0;
-		long timeout = 0, indTimeout = 0;
+		long timeout = 0, indTimeout = 0, classBudget = 0, searchBudget = 0;
+		double boundSlack = -1, minRate = SearchBudgetScheduler.DEFAULT_MIN_RATE;
+		String cacheDir = null;
 		
 		for (int i = 0; i < args.length; i++) {
 			String arg = args[i].trim();
@@ -1104,7 +2023,16 @@ public class HotspotFinder {
 			if(arg.equalsIgnoreCase("-p"))			searchStrat = args[++i].trim();
 			if(arg.equalsIgnoreCase("-a"))			hsType = args[++i].trim();
 			if(arg.equalsIgnoreCase("-o"))			outputDir = args[++i].trim();
+			if(arg.equalsIgnoreCase("-cb"))			classBudget = Long.parseLong(args[++i].trim());
+			if(arg.equalsIgnoreCase("-cache"))		cacheDir = args[++i].trim();
+			if(arg.equalsIgnoreCase("-bb"))			boundSlack = Double.parseDouble(args[++i].trim());
+			if(arg.equalsIgnoreCase("-sb"))			searchBudget = Long.parseLong(args[++i].trim());
+			if(arg.equalsIgnoreCase("-sr"))			minRate = Double.parseDouble(args[++i].trim());
 			if(arg.equalsIgnoreCase("-b"))			ignoreAbox = true;
+			if(arg.equalsIgnoreCase("-resume"))		resume = true;
+			if(arg.equalsIgnoreCase("-w"))			useWorkers = true;
+			if(arg.equalsIgnoreCase("-cc"))			checkCompleteness = true;
+			if(arg.equalsIgnoreCase("-gb"))			glassBox = true;
 			if(arg.equalsIgnoreCase("-v"))			verbose = true;
 		}
 		
@@ -1112,14 +2040,22 @@ public class HotspotFinder {
 		if(indStrat.equalsIgnoreCase("sat"))			indStrategy = HotspotIndicatorStrategy.SAT;
 		else if(indStrat.equalsIgnoreCase("ad"))		indStrategy = HotspotIndicatorStrategy.AD;
 		else if(indStrat.equalsIgnoreCase("random"))	indStrategy = HotspotIndicatorStrategy.RANDOM;
+		else if(indStrat.equalsIgnoreCase("learned"))	indStrategy = HotspotIndicatorStrategy.LEARNED;
 		else throw new Error("Unrecognized hot spot indicator strategy: " + indStrat + 
-					". Accepted values are SAT, AD, or Random");
+					". Accepted values are SAT, AD, Random or Learned");
 		
 		HotspotSearchStrategy searchStrategy = null;
 		if(searchStrat.equalsIgnoreCase("seq"))			searchStrategy = HotspotSearchStrategy.SEQ;
 		else if(searchStrat.equalsIgnoreCase("con"))	searchStrategy = HotspotSearchStrategy.CON;
-		else throw new Error("Unrecognized hot spot search strategy: " + indStrat + 
-					". Accepted values are SEQ or CON");
+		else if(searchStrat.equalsIgnoreCase("pipe"))	searchStrategy = HotspotSearchStrategy.PIPE;
+		else if(searchStrat.equalsIgnoreCase("joint"))	searchStrategy = HotspotSearchStrategy.JOINT;
+		else throw new Error("Unrecognized hot spot search strategy: " + searchStrat + 
+					". Accepted values are SEQ, CON, PIPE or JOINT");
+		if(searchStrategy.equals(HotspotSearchStrategy.CON) && !indStrategy.equals(HotspotIndicatorStrategy.SAT)) {
+			System.out.println("Error: The concurrent hot spot search strategy (-p CON) only supports the SAT hot spot indicator (-s SAT)\n");
+			Dispatcher.printUsage();
+			return;
+		}
 		
 		HotspotCandidateType hotspotType = null;
 		if(hsType.equalsIgnoreCase("bot"))				hotspotType = HotspotCandidateType.BOTMOD;
@@ -1138,15 +2074,39 @@ public class HotspotFinder {
 			if(indTimeout != 0) finder.csatTimeout = indTimeout;
 			if(minHotspots != 0) finder.minHotspots = minHotspots;
 			if(maxTests != 0) finder.maxTests = maxTests;
+			if(classBudget != 0) finder.classBudget = classBudget;
+			if(boundSlack >= 0) finder.boundSlack = boundSlack;
+			finder.checkCompleteness = checkCompleteness;
+			if(searchBudget != 0) finder.setSearchBudget(searchBudget, minRate);
+			CandidateLedger ledger = null;
+			if(resume && searchStrategy.equals(HotspotSearchStrategy.JOINT)) {
+				System.out.println(" The joint search strategy does not record its progress, ignoring -resume");
+				resume = false;
+			}
+			if(resume) {
+				String config = "hsf -s " + indStrategy + " -a " + hotspotType + " -t " + timeout + " -i " + finder.csatTimeout + 
+						" -cb " + finder.classBudget + " -bb " + finder.boundSlack + " -size " + finder.hotspotSizeThreshold;
+				ledger = new CandidateLedger(outputDir, ClassificationCache.getKey(ont.getAxioms(), reasonerName, config));
+				finder.setLedger(ledger);
+			}
+			ClassificationCache cache = null;
+			if(cacheDir != null) {
+				cache = new ClassificationCache(cacheDir);
+				finder.setClassificationCache(cache);
+			}
+			if(useWorkers) finder.setClassificationWorkers(ignoreAbox);
 			
 			long start = finder.bean.getCurrentThreadCpuTime();
 			
-			Set<Approximation> approxs = finder.findApproximations(hotspotType, false);
+			Set<Approximation> approxs = finder.findApproximations(hotspotType, glassBox);
 			
 			long end = finder.bean.getCurrentThreadCpuTime();
 			double total = (end-start)/1000000000.0;
 			
 			finder.addTiming("Hotspot Search", total);
+			finder.shutdownClassificationWorkers();
+			if(cache != null && verbose) 
+				System.out.println(" Classification cache: " + cache.getNumberOfHits() + " hits, " + cache.getNumberOfMisses() + " misses");
 			finder.produceLog(approxs);
 			
 			if(!approxs.isEmpty()) {
@@ -1157,6 +2117,9 @@ public class HotspotFinder {
 			FileWriter writer = new FileWriter(new File(outputDir + "HSF_Log.csv"), true);
 			writer.append(finder.getLog());
 			writer.close();
+			if(boundSlack >= 0) finder.serializeCensoredTimings();
+			finder.serializeCandidateRecords();
+			if(ledger != null) ledger.close();
 		}
 		else throw new RuntimeException("Error: Minimum parameters are: -ont OntologyFilePath -reasoner ReasonerName.\n" +
 					"\tPlease review the usage information via the -h flag.");
@@ -0,0 +1,581 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.hotspots;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.semanticweb.owlapi.model.OWLClass;
+
+import uk.ac.manchester.cs.romer.approximation.Approximation;
+import uk.ac.manchester.cs.romer.approximation.ApproximationGenerator;
+import uk.ac.manchester.cs.romer.hotspots.HotspotFinder.HotspotCandidateType;
+import uk.ac.manchester.cs.romer.utils.ResultsSerializer;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * <code>HotspotSearchPipeline</code> carries out the hot spot search as a pipeline of stages connected by bounded
+ * queues: a source of indicator classes (streamed from the SAT tester, or the glass-box reasoner, as they are tested),
+ * a ranker that keeps the classes not yet passed on in descending order of SAT time, module extraction, approximation
+ * building, and a pool of classification workers that verify the candidates. Each stage runs at its own rate; a full
+ * queue blocks the stage that feeds it, except for the ranker, which keeps ranking incoming classes meanwhile.
+ * </p><p>
+ * Module extraction runs in half as many threads as there are processors. Approximation building shares the hot spot
+ * finder's ontology manager, so it runs in a single thread; the classifications, carried out in child processes, run in
+ * parallel. Once enough hot spots are found all stages are stopped, and the classifications in progress terminated.
+ * </p>
+ */
+public class HotspotSearchPipeline {
+	private static final PipelineItem END = new PipelineItem(null, 0, 0);
+	private HotspotFinder finder;
+	private HotspotCandidateType type;
+	private int nrWorkers, capacity;
+	private BlockingQueue<PipelineItem> satQueue, seedQueue, hotspotQueue, remainderQueue;
+	private List<StageMetrics> metrics;
+	private Set<Approximation> approxs;
+	private Set<Hotspot> hotspots;
+	private ExecutorService executor;
+	private Process satProcess;
+	private volatile boolean stopped = false, rankingDone = false;
+	private long start;
+	private double elapsed;
+
+
+	/**
+	 * Constructor
+	 * @param finder	Hot spot finder whose candidates are verified
+	 * @param type	Hotspot candidate type
+	 */
+	public HotspotSearchPipeline(HotspotFinder finder, HotspotCandidateType type) {
+		this.finder = finder;
+		this.type = type;
+		this.nrWorkers = Math.max(finder.MAX_PROCESSES - 1, 1);
+		this.capacity = 2 * nrWorkers;
+		this.metrics = new ArrayList<StageMetrics>();
+		this.approxs = Collections.synchronizedSet(new HashSet<Approximation>());
+		this.hotspots = Collections.synchronizedSet(new HashSet<Hotspot>());
+	}
+
+
+	/**
+	 * Run the pipeline until enough hot spots are found, the indicator classes run out, or the maximum
+	 * number of candidates has been tested
+	 * @param streamSATTimes	true if indicator classes should be streamed from the SAT tester (or the glass-box reasoner)
+	 * as they are tested, false if they should be gathered up front according to the hot spot finder's indicator strategy
+	 * @param glassBoxReasoner	true if SAT times should be obtained from a classification by a glass-box reasoner
+	 * @return Set of approximations with classification time below the threshold
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public Set<Approximation> run(boolean streamSATTimes, boolean glassBoxReasoner) throws IOException, InterruptedException {
+		if(finder.isVerbose()) System.out.println("\n [Using pipelined hot spot search strategy]");
+		satQueue = new ArrayBlockingQueue<PipelineItem>(Math.max(100, capacity));
+		seedQueue = new ArrayBlockingQueue<PipelineItem>(capacity);
+		hotspotQueue = new ArrayBlockingQueue<PipelineItem>(capacity);
+		remainderQueue = new ArrayBlockingQueue<PipelineItem>(capacity);
+
+		List<PipelineItem> indicators = null;
+		if(streamSATTimes && !finder.hasStoredSATTest())
+			satProcess = (glassBoxReasoner ? finder.execRegularClassification() : finder.execSATTester());
+		else {
+			ArrayList<OWLClass> classes = finder.getIndicators(glassBoxReasoner);
+			indicators = new ArrayList<PipelineItem>();
+			for(int i = 0; i < classes.size(); i++) // Ranked in the given order
+				indicators.add(new PipelineItem(classes.get(i), classes.size()-i, i));
+		}
+
+		StageMetrics sourceMetrics = new StageMetrics("Indicator source", 1, null);
+		StageMetrics rankerMetrics = new StageMetrics("Ranking", 1, satQueue);
+		metrics.add(sourceMetrics);
+		metrics.add(rankerMetrics);
+		Stage extraction = new ModuleExtractionStage(seedQueue, hotspotQueue, Math.max(finder.MAX_PROCESSES/2, 1), 1);
+		Stage building = new ApproximationBuildingStage(hotspotQueue, remainderQueue, nrWorkers);
+		Stage classification = new ClassificationStage(remainderQueue, nrWorkers);
+
+		start = System.nanoTime();
+		executor = Executors.newFixedThreadPool(4 + nrWorkers);
+		executor.execute(new IndicatorSource(indicators, glassBoxReasoner, sourceMetrics));
+		executor.execute(new Ranker(rankerMetrics, extraction.getNumberOfThreads()));
+		extraction.start(executor);
+		building.start(executor);
+		classification.start(executor);
+		executor.shutdown();
+		while(!executor.awaitTermination(1, TimeUnit.SECONDS));
+
+		if(satProcess != null) satProcess.destroy();
+		finder.resetCancellation();
+		elapsed = (System.nanoTime()-start)/1000000000.0;
+		return new HashSet<Approximation>(approxs);
+	}
+
+
+	/**
+	 * Get the metrics of each stage, in pipeline order
+	 * @return List of stage metrics
+	 */
+	public List<StageMetrics> getStageMetrics() {
+		return metrics;
+	}
+
+
+	/**
+	 * Get the (wall-clock) time taken by the last call to {@link #run(boolean, boolean)}
+	 * @return Pipeline run time (in seconds)
+	 */
+	public double getRunTime() {
+		return elapsed;
+	}
+
+
+	/**
+	 * Print the throughput, utilization and input queue depth of each stage
+	 */
+	public void printMetrics() {
+		System.out.println(" -------------------\n Pipeline Metrics (run time: " + elapsed + " seconds):");
+		for(StageMetrics m : metrics) {
+			String out = "    " + m.getName() + " (" + m.getNumberOfThreads() + " thread" + (m.getNumberOfThreads() > 1 ? "s" : "") + "): " +
+					m.getProcessedItems() + " items passed on, " + m.getDroppedItems() + " dropped, " +
+					String.format("%.2f", m.getThroughput(elapsed)) + " items/second, " +
+					String.format("%.0f", 100*m.getUtilization(elapsed)) + "% busy";
+			if(m.getQueueCapacity() > 0)
+				out += ", input queue depth: " + String.format("%.2f", m.getAverageQueueDepth()) + " avg, " + m.getMaxQueueDepth() +
+					" max (capacity " + m.getQueueCapacity() + ")";
+			System.out.println(out);
+		}
+	}
+
+
+	/**
+	 * Stop all stages and terminate the classifications in progress
+	 * @param message	Message printed in verbose mode
+	 */
+	private synchronized void stop(String message) {
+		if(stopped) return;
+		stopped = true;
+		finder.cancelClassifications();
+		if(satProcess != null) satProcess.destroy();
+		executor.shutdownNow();
+		if(finder.isVerbose()) System.out.println(message);
+	}
+
+
+	/**
+	 * Source stage: passes on indicator classes as they are tested by the SAT tester (or glass-box reasoner),
+	 * or from a precomputed list
+	 */
+	private class IndicatorSource implements Runnable {
+		private List<PipelineItem> indicators;
+		private boolean glassBoxReasoner;
+		private StageMetrics stageMetrics;
+
+		public IndicatorSource(List<PipelineItem> indicators, boolean glassBoxReasoner, StageMetrics stageMetrics) {
+			this.indicators = indicators;
+			this.glassBoxReasoner = glassBoxReasoner;
+			this.stageMetrics = stageMetrics;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if(indicators != null) {
+					for(PipelineItem item : indicators) {
+						if(!pass(item)) break;
+						stageMetrics.addItem(0);
+					}
+				}
+				else {
+					BufferedReader reader = new BufferedReader(new InputStreamReader(satProcess.getInputStream()));
+					String line = reader.readLine();
+					int counter = 0;
+					while(line != null && !line.trim().equals("--EOF--") && !stopped && !rankingDone) {
+						if(line.startsWith("<") || line.startsWith("ObjectComplementOf") || line.startsWith("Sat")) {
+							long itemStart = System.nanoTime();
+							OWLClass c = finder.updateSATMap(line, glassBoxReasoner);
+							PipelineItem item = new PipelineItem(c, finder.getSATTime(c), counter++);
+							stageMetrics.addItem(System.nanoTime()-itemStart);
+							if(!pass(item)) break;
+						}
+						else if(line.startsWith(" SAT") || line.startsWith(" Reasoner"))
+							System.out.println(line);
+						else if(line.startsWith("SAT"))
+							finder.recordSATTestDone(line);
+						line = reader.readLine();
+					}
+					satProcess.destroy();
+				}
+			} catch (InterruptedException e) {
+				// Pipeline stopped
+			} catch (IOException e) {
+				if(!stopped && !rankingDone) e.printStackTrace();
+			} finally {
+				if(!stopped && !rankingDone) putQuietly(satQueue, END);
+			}
+		}
+		
+		/**
+		 * Put an item in the ranker's queue, waiting for room unless the pipeline is stopped or the ranker is done
+		 * @param item	Item
+		 * @return true if the item was queued
+		 */
+		private boolean pass(PipelineItem item) throws InterruptedException {
+			while(!stopped && !rankingDone) {
+				if(satQueue.offer(item, 100, TimeUnit.MILLISECONDS))
+					return true;
+			}
+			return false;
+		}
+	}
+
+
+	/**
+	 * Ranking stage: keeps the indicator classes received in descending order of SAT time, and passes on the
+	 * highest ranked one whenever the module extraction stage has room for it
+	 */
+	private class Ranker implements Runnable {
+		private StageMetrics stageMetrics;
+		private int downstreamThreads;
+
+		public Ranker(StageMetrics stageMetrics, int downstreamThreads) {
+			this.stageMetrics = stageMetrics;
+			this.downstreamThreads = downstreamThreads;
+		}
+
+		@Override
+		public void run() {
+			IndicatorRanking ranking = new IndicatorRanking();
+			Map<OWLClass,PipelineItem> ranked = new HashMap<OWLClass,PipelineItem>();
+			List<PipelineItem> batch = new ArrayList<PipelineItem>();
+			boolean sourceDone = false;
+			try {
+				while(!stopped && ranking.getNumberOfTakenClasses() < finder.maxTests && !finder.isSearchOver()) {
+					if(!sourceDone) {
+						stageMetrics.sampleQueueDepth(satQueue.size());
+						PipelineItem item = (ranking.size() == 0 ? satQueue.take() : satQueue.poll());
+						if(item != null) batch.add(item);
+						satQueue.drainTo(batch);
+						for(PipelineItem i : batch) {
+							if(i == END) sourceDone = true;
+							else if(!finder.isResolved(i.seed) && ranking.update(i.seed, i.priority)) 
+								ranked.put(i.seed, i); // Classes passed on (or known not to be seeds of hot spots) are not ranked again
+						}
+						batch.clear();
+					}
+					if(ranking.size() == 0) {
+						if(sourceDone) break;
+						continue;
+					}
+					PipelineItem top = ranked.get(ranking.peek());
+					boolean accepted = true;
+					if(sourceDone) seedQueue.put(top);
+					else accepted = seedQueue.offer(top, 10, TimeUnit.MILLISECONDS);
+					if(accepted) {
+						ranking.poll();
+						ranked.remove(top.seed);
+						stageMetrics.addItem(0);
+					}
+				}
+			} catch (InterruptedException e) {
+				// Pipeline stopped
+			} finally {
+				rankingDone = true; // No more classes needed, so the source can stop
+				if(satProcess != null) satProcess.destroy();
+				stageMetrics.addDropped(ranking.size());
+				if(!stopped)
+					for(int i = 0; i < downstreamThreads; i++) putQuietly(seedQueue, END);
+			}
+		}
+	}
+
+
+	/**
+	 * A stage run by a number of threads that take items from an input queue, process them, and put the results
+	 * (if any) in an output queue
+	 */
+	private abstract class Stage implements Runnable {
+		private BlockingQueue<PipelineItem> in, out;
+		private StageMetrics stageMetrics;
+		private AtomicInteger running;
+		private int nrThreads, downstreamThreads;
+
+		public Stage(String name, BlockingQueue<PipelineItem> in, BlockingQueue<PipelineItem> out, int nrThreads, int downstreamThreads) {
+			this.in = in;
+			this.out = out;
+			this.nrThreads = nrThreads;
+			this.downstreamThreads = downstreamThreads;
+			this.running = new AtomicInteger(nrThreads);
+			this.stageMetrics = new StageMetrics(name, nrThreads, in);
+			metrics.add(stageMetrics);
+		}
+
+		/**
+		 * Process an item
+		 * @param item	Item taken from the input queue
+		 * @return Item to be put in the output queue, or null if it should be dropped
+		 */
+		protected abstract PipelineItem process(PipelineItem item) throws Exception;
+
+		public int getNumberOfThreads() {
+			return nrThreads;
+		}
+
+		public void start(ExecutorService executor) {
+			for(int i = 0; i < nrThreads; i++)
+				executor.execute(this);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while(!stopped) {
+					stageMetrics.sampleQueueDepth(in.size());
+					PipelineItem item = in.take();
+					if(item == END) break;
+					long itemStart = System.nanoTime();
+					PipelineItem result = null;
+					try {
+						result = process(item);
+					} catch (Exception e) {
+						if(!stopped) e.printStackTrace();
+					}
+					if(result == null) {
+						stageMetrics.addDropped(1);
+						stageMetrics.addBusyTime(System.nanoTime()-itemStart);
+					}
+					else {
+						stageMetrics.addItem(System.nanoTime()-itemStart);
+						if(out != null) out.put(result);
+					}
+				}
+			} catch (InterruptedException e) {
+				// Pipeline stopped
+			} finally {
+				if(running.decrementAndGet() == 0 && out != null && !stopped)
+					for(int i = 0; i < downstreamThreads; i++) putQuietly(out, END);
+			}
+		}
+	}
+
+
+	/**
+	 * Module extraction stage: prepares the candidate hot spot of each seed class
+	 */
+	private class ModuleExtractionStage extends Stage {
+		public ModuleExtractionStage(BlockingQueue<PipelineItem> in, BlockingQueue<PipelineItem> out, int nrThreads, int downstreamThreads) {
+			super("Module extraction", in, out, nrThreads, downstreamThreads);
+		}
+
+		@Override
+		protected PipelineItem process(PipelineItem item) throws Exception {
+			int nr = finder.nextCandidateNr();
+			if(finder.isVerbose()) System.out.println("Preparing candidate " + nr + "\n\tClass: " + ResultsSerializer.getManchesterRendering(item.seed) +
+					"\n\tSAT Time: " + finder.getSATTime(item.seed) + " seconds" + "\n\tIndex in received list: " + item.order);
+			item.hotspot = finder.prepHotspotCandidate(item.seed, type, nr);
+			return (finder.hasAcceptableSize(item.hotspot) && !finder.isDuplicate(item.hotspot) ? item : null);
+		}
+	}
+
+
+	/**
+	 * Approximation building stage: builds and serializes the remainder of each candidate hot spot
+	 */
+	private class ApproximationBuildingStage extends Stage {
+		public ApproximationBuildingStage(BlockingQueue<PipelineItem> in, BlockingQueue<PipelineItem> out, int downstreamThreads) {
+			super("Approximation building", in, out, 1, downstreamThreads);
+		}
+
+		@Override
+		protected PipelineItem process(PipelineItem item) throws Exception {
+			item.generator = finder.getApproximationGenerator(item.hotspot);
+			item.remainder = finder.buildRemainder(item.generator, item.hotspot, type);
+			return (item.remainder != null ? item : null);
+		}
+	}
+
+
+	/**
+	 * Classification stage: verifies each candidate by classifying its remainder (and, if it is a hot spot,
+	 * the candidate itself and its other approximations)
+	 */
+	private class ClassificationStage extends Stage {
+		public ClassificationStage(BlockingQueue<PipelineItem> in, int nrThreads) {
+			super("Classification", in, null, nrThreads, 0);
+		}
+
+		@Override
+		protected PipelineItem process(PipelineItem item) throws Exception {
+			Set<Approximation> verified = finder.verifyRemainder(item.generator, item.hotspot, item.remainder, type);
+			if(finder.isSearchOver()) stop(" Search budget scheduler: stopped the pipeline");
+			if(verified == null || verified.isEmpty()) return null;
+
+			double total = (System.nanoTime()-start)/1000000000.0;
+			boolean enough;
+			synchronized(hotspots) {
+				approxs.addAll(verified);
+				hotspots.add(item.hotspot);
+				finder.logHotspot(item.hotspot, total);
+				enough = hotspots.size() >= finder.minHotspots;
+				if(finder.isVerbose()) System.out.println("Total nr. of hot spots: " + hotspots.size());
+			}
+			if(enough) stop(" Enough hot spots found: stopped the pipeline");
+			return item;
+		}
+	}
+
+
+	private void putQuietly(BlockingQueue<PipelineItem> queue, PipelineItem item) {
+		try {
+			queue.put(item);
+		} catch (InterruptedException e) {
+			// Pipeline stopped
+		}
+	}
+
+
+	/**
+	 * An item flowing through the pipeline: a seed class, and the candidate hot spot and remainder built from it
+	 */
+	private static class PipelineItem {
+		private OWLClass seed;
+		private double priority;
+		private int order;
+		private Hotspot hotspot;
+		private ApproximationGenerator generator;
+		private Approximation remainder;
+
+		public PipelineItem(OWLClass seed, double priority, int order) {
+			this.seed = seed;
+			this.priority = priority;
+			this.order = order;
+		}
+	}
+
+
+	/**
+	 * Throughput and input queue depth metrics of a pipeline stage
+	 */
+	public static class StageMetrics {
+		private String name;
+		private int nrThreads, queueCapacity;
+		private AtomicInteger processed = new AtomicInteger(), dropped = new AtomicInteger(), maxQueueDepth = new AtomicInteger();
+		private AtomicLong busyTime = new AtomicLong(), queueSamples = new AtomicLong(), queueDepthSum = new AtomicLong();
+
+		private StageMetrics(String name, int nrThreads, BlockingQueue<?> in) {
+			this.name = name;
+			this.nrThreads = nrThreads;
+			this.queueCapacity = (in != null ? in.size() + in.remainingCapacity() : 0);
+		}
+
+		private void addItem(long nanos) {
+			processed.incrementAndGet();
+			busyTime.addAndGet(nanos);
+		}
+
+		private void addDropped(int nr) {
+			dropped.addAndGet(nr);
+		}
+
+		private void addBusyTime(long nanos) {
+			busyTime.addAndGet(nanos);
+		}
+
+		private void sampleQueueDepth(int depth) {
+			queueSamples.incrementAndGet();
+			queueDepthSum.addAndGet(depth);
+			int max = maxQueueDepth.get();
+			while(depth > max && !maxQueueDepth.compareAndSet(max, depth))
+				max = maxQueueDepth.get();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getNumberOfThreads() {
+			return nrThreads;
+		}
+
+		/**
+		 * @return Number of items passed on to the next stage (or, for the last stage, verified as hot spots)
+		 */
+		public int getProcessedItems() {
+			return processed.get();
+		}
+
+		/**
+		 * @return Number of items discarded by the stage, e.g., candidates that fail the size restrictions
+		 */
+		public int getDroppedItems() {
+			return dropped.get();
+		}
+
+		/**
+		 * @param runTime	Pipeline run time (in seconds)
+		 * @return Number of items handled (passed on or dropped) per second
+		 */
+		public double getThroughput(double runTime) {
+			return (runTime > 0 ? (processed.get() + dropped.get()) / runTime : 0);
+		}
+
+		/**
+		 * @param runTime	Pipeline run time (in seconds)
+		 * @return Fraction of the run time the stage's threads spent processing items
+		 */
+		public double getUtilization(double runTime) {
+			return (runTime > 0 ? busyTime.get() / (runTime * 1000000000.0 * nrThreads) : 0);
+		}
+
+		/**
+		 * @return Average number of items waiting in the input queue, sampled whenever the stage takes an item
+		 */
+		public double getAverageQueueDepth() {
+			long samples = queueSamples.get();
+			return (samples > 0 ? (double)queueDepthSum.get() / samples : 0);
+		}
+
+		public int getMaxQueueDepth() {
+			return maxQueueDepth.get();
+		}
+
+		/**
+		 * @return Capacity of the input queue, or 0 if the stage has none
+		 */
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+	}
+}
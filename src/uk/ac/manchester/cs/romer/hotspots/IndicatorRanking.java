@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.hotspots;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLClass;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Online ranking of indicator classes in descending order of priority (e.g., SAT time), kept as an indexed binary
+ * max-heap: adding a class, changing its priority, and taking the highest ranked class all take logarithmic time.
+ * Classes with the same priority are ranked in the order they were first added. A class that has been taken is
+ * not ranked again, even if its priority is later updated.
+ * </p>
+ */
+public class IndicatorRanking {
+	private OWLClass[] heap;
+	private double[] priorities;
+	private long[] order;
+	private int size = 0;
+	private long counter = 0;
+	private Map<OWLClass,Integer> position;
+	private Set<OWLClass> taken;
+
+	/**
+	 * Constructor
+	 */
+	public IndicatorRanking() {
+		this.heap = new OWLClass[16];
+		this.priorities = new double[16];
+		this.order = new long[16];
+		this.position = new HashMap<OWLClass,Integer>();
+		this.taken = new HashSet<OWLClass>();
+	}
+
+
+	/**
+	 * Add a class to the ranking, or update its priority if it is already ranked
+	 * @param c	OWLClass
+	 * @param priority	Priority
+	 * @return true if the class is ranked, false if it has already been taken
+	 */
+	public synchronized boolean update(OWLClass c, double priority) {
+		if(taken.contains(c)) return false;
+		Integer i = position.get(c);
+		if(i == null) {
+			if(size == heap.length) {
+				heap = Arrays.copyOf(heap, 2*size);
+				priorities = Arrays.copyOf(priorities, 2*size);
+				order = Arrays.copyOf(order, 2*size);
+			}
+			heap[size] = c;
+			priorities[size] = priority;
+			order[size] = counter++;
+			position.put(c, size);
+			siftUp(size++);
+		}
+		else {
+			double old = priorities[i];
+			priorities[i] = priority;
+			if(priority > old) siftUp(i);
+			else siftDown(i);
+		}
+		return true;
+	}
+
+
+	/**
+	 * Get the highest ranked class, without taking it
+	 * @return Highest ranked class, or null if there are no ranked classes
+	 */
+	public synchronized OWLClass peek() {
+		return (size > 0 ? heap[0] : null);
+	}
+
+
+	/**
+	 * Take the highest ranked class, which is then no longer ranked
+	 * @return Highest ranked class, or null if there are no ranked classes
+	 */
+	public synchronized OWLClass poll() {
+		if(size == 0) return null;
+		OWLClass top = heap[0];
+		swap(0, --size);
+		heap[size] = null;
+		position.remove(top);
+		if(size > 0) siftDown(0);
+		taken.add(top);
+		return top;
+	}
+
+
+	/**
+	 * Take the given class out of the ranking (or keep it from being ranked), as if it had been taken
+	 * @param c	OWLClass
+	 */
+	public synchronized void exclude(OWLClass c) {
+		Integer i = position.get(c);
+		if(i != null) {
+			swap(i, --size);
+			heap[size] = null;
+			position.remove(c);
+			if(i < size) {
+				siftUp(i);
+				siftDown(i);
+			}
+		}
+		taken.add(c);
+	}
+
+
+	/**
+	 * Get the classes currently ranked, in rank order, without taking them
+	 * @return List of ranked classes
+	 */
+	public synchronized ArrayList<OWLClass> toSortedList() {
+		IndicatorRanking copy = new IndicatorRanking();
+		copy.heap = Arrays.copyOf(heap, heap.length);
+		copy.priorities = Arrays.copyOf(priorities, priorities.length);
+		copy.order = Arrays.copyOf(order, order.length);
+		copy.size = size;
+		copy.position = new HashMap<OWLClass,Integer>(position);
+		ArrayList<OWLClass> list = new ArrayList<OWLClass>(size);
+		while(copy.size > 0)
+			list.add(copy.poll());
+		return list;
+	}
+
+
+	/**
+	 * Get the number of classes currently ranked
+	 * @return Number of ranked classes
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+
+	/**
+	 * Get the number of classes taken so far
+	 * @return Number of taken classes
+	 */
+	public synchronized int getNumberOfTakenClasses() {
+		return taken.size();
+	}
+
+
+	/**
+	 * Check whether a class has been taken
+	 * @param c	OWLClass
+	 * @return true if the class has been taken, false otherwise
+	 */
+	public synchronized boolean isTaken(OWLClass c) {
+		return taken.contains(c);
+	}
+
+
+	private boolean ranksAbove(int i, int j) {
+		if(priorities[i] != priorities[j]) return priorities[i] > priorities[j];
+		return order[i] < order[j];
+	}
+
+
+	private void siftUp(int i) {
+		while(i > 0) {
+			int parent = (i-1)/2;
+			if(!ranksAbove(i, parent)) break;
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+
+	private void siftDown(int i) {
+		while(true) {
+			int left = 2*i+1, right = left+1, top = i;
+			if(left < size && ranksAbove(left, top)) top = left;
+			if(right < size && ranksAbove(right, top)) top = right;
+			if(top == i) break;
+			swap(i, top);
+			i = top;
+		}
+	}
+
+
+	private void swap(int i, int j) {
+		OWLClass c = heap[i];
+		heap[i] = heap[j];
+		heap[j] = c;
+		double p = priorities[i];
+		priorities[i] = priorities[j];
+		priorities[j] = p;
+		long o = order[i];
+		order[i] = order[j];
+		order[j] = o;
+		if(heap[i] != null) position.put(heap[i], i);
+		if(heap[j] != null) position.put(heap[j], j);
+	}
+}
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.hotspots;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import uk.ac.manchester.cs.romer.approximation.Approximation;
+import uk.ac.manchester.cs.romer.approximation.ApproximationGenerator;
+import uk.ac.manchester.cs.romer.hotspots.HotspotFinder.HotspotCandidateType;
+import uk.ac.manchester.cs.romer.reasonertasks.ClassifierResult;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * <code>JointHotspotSearch</code> looks for sets of candidate hot spots that, removed together, make the remainder
+ * classify within the classification threshold, for ontologies where no single candidate is enough. The set is grown
+ * greedily: at each step, the candidates seeded by the highest ranked indicator classes (as many as there are worker
+ * threads) are each tentatively added to the set, the resulting remainders are classified in parallel, and the
+ * candidate whose addition yields the fastest remainder is kept. Candidates whose addition does not speed up the
+ * remainder are dropped.
+ * </p><p>
+ * Remainders are classified with a timeout of {@link #PROBE_FACTOR} times the classification threshold, so that
+ * removals that speed up a remainder still too slow can be told apart. If no remainder classifies within that
+ * timeout, the highest ranked candidate is kept. The search stops when a set is found (and, if more hot spots are
+ * wanted, starts again with the remaining candidates), when the candidates run out, when the set would exceed the
+ * hot spot size threshold, or once the maximum number of tests has been used on remainder classifications.
+ * </p>
+ */
+public class JointHotspotSearch {
+	private static final double PROBE_FACTOR = 2;
+	private HotspotFinder finder;
+	private HotspotCandidateType type;
+	private int width, nrProbes = 0, nrSteps = 0, nrDropped = 0;
+	private List<Integer> setSizes;
+	private long start;
+	private double elapsed;
+
+	/**
+	 * Constructor
+	 * @param finder	Hot spot finder whose candidates are combined
+	 * @param type	Hotspot candidate type
+	 */
+	public JointHotspotSearch(HotspotFinder finder, HotspotCandidateType type) {
+		this.finder = finder;
+		this.type = type;
+		this.width = Math.max(finder.MAX_PROCESSES - 1, 1);
+		this.setSizes = new ArrayList<Integer>();
+	}
+
+
+	/**
+	 * Run the search until enough hot spot sets are found, the candidates run out, or the maximum number of
+	 * tests has been used
+	 * @param glassBoxReasoner	true if SAT times should be obtained from a classification by a glass-box reasoner
+	 * @return Set of approximations with classification time below the threshold
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws OWLOntologyCreationException
+	 */
+	public Set<Approximation> run(boolean glassBoxReasoner) throws IOException, InterruptedException, OWLOntologyCreationException {
+		Iterator<OWLClass> seeds = finder.getIndicators(glassBoxReasoner).iterator();
+		if(finder.isVerbose()) System.out.println("\n [Using joint hot spot search strategy]");
+		start = System.currentTimeMillis();
+		Set<Approximation> approxs = new HashSet<Approximation>();
+		ExecutorService executor = Executors.newFixedThreadPool(width);
+		List<Hotspot> pool = new ArrayList<Hotspot>();
+		int found = 0;
+		try {
+			while(found < finder.minHotspots && nrProbes < finder.maxTests && !finder.isSearchOver()) {
+				Set<Approximation> apps = growSet(executor, seeds, pool);
+				if(apps == null) break;
+				if(!apps.isEmpty()) {
+					approxs.addAll(apps);
+					found++;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+			elapsed = (System.currentTimeMillis()-start)/1000.0;
+		}
+		return approxs;
+	}
+
+
+	/**
+	 * Grow a set of candidates until their joint remainder classifies within the classification threshold, and
+	 * verify the joint candidate
+	 * @param executor	Executor that runs the remainder classifications
+	 * @param seeds	Indicator classes not yet used as seeds, in rank order
+	 * @param pool	Candidates not yet in a set, in rank order
+	 * @return Set of approximations of the joint candidate that classify within the threshold, empty if it is not a
+	 * hot spot, or null if no set was found
+	 * @throws InterruptedException
+	 * @throws OWLOntologyCreationException
+	 */
+	private Set<Approximation> growSet(ExecutorService executor, Iterator<OWLClass> seeds, List<Hotspot> pool)
+			throws InterruptedException, OWLOntologyCreationException {
+		List<Hotspot> members = new ArrayList<Hotspot>();
+		Set<OWLAxiom> removed = new HashSet<OWLAxiom>();
+		long threshold = finder.getClassificationThreshold();
+		long probeTimeout = (long)(threshold * PROBE_FACTOR);
+		double currentTime = Double.MAX_VALUE; // Classification time of the remainder of the current set (in seconds)
+
+		while(nrProbes < finder.maxTests && !finder.isSearchOver()) {
+			fillPool(seeds, pool, removed);
+			if(pool.isEmpty()) break;
+			nrSteps++;
+			if(finder.isVerbose()) System.out.println(" -------------------\n Joint search step " + nrSteps + ": trying " + pool.size() +
+					" candidate" + (pool.size() > 1 ? "s" : "") + " with a set of " + members.size() + " (" + removed.size() + " axioms)");
+
+			List<Future<ClassifierResult>> futures = new ArrayList<Future<ClassifierResult>>();
+			for(int i = 0; i < pool.size(); i++) {
+				List<Hotspot> set = new ArrayList<Hotspot>(members);
+				set.add(pool.get(i));
+				futures.add(executor.submit(new RemainderProbe(finder.joinHotspots(set, 0), "joint" + nrSteps + "_" + i, finder.capToBudget(probeTimeout))));
+			}
+
+			double[] times = new double[pool.size()];
+			int best = -1;
+			for(int i = 0; i < futures.size(); i++) {
+				ClassifierResult r = null;
+				try {
+					r = futures.get(i).get();
+				} catch (ExecutionException e) {
+					e.printStackTrace();
+				}
+				nrProbes++;
+				times[i] = (r == null || r.timedOut() ? Double.MAX_VALUE : r.getReasoningTaskTime());
+				if(finder.isVerbose()) System.out.println("\tWith candidate " + pool.get(i).getCandidateNr() + " (seed concept: " +
+						pool.get(i).getSeedName() + "): " + (times[i] == Double.MAX_VALUE ? "timed out" : times[i] + " seconds"));
+				if(times[i] < Double.MAX_VALUE && (best == -1 || times[i] < times[best]))
+					best = i;
+			}
+			if(best == -1) best = 0; // No remainder classified in time: follow the indicator ranking
+
+			Hotspot chosen = pool.get(best);
+			double chosenTime = times[best];
+			List<Hotspot> remaining = new ArrayList<Hotspot>();
+			for(int i = 0; i < pool.size(); i++) {
+				if(i == best) continue;
+				if(currentTime < Double.MAX_VALUE && times[i] >= currentTime) nrDropped++; // Does not speed up the remainder
+				else remaining.add(pool.get(i));
+			}
+			pool.clear();
+			pool.addAll(remaining);
+			members.add(chosen);
+			removed.addAll(chosen.getAxioms());
+			currentTime = Math.min(currentTime, chosenTime);
+			if(finder.isVerbose()) System.out.println("\tAdded candidate " + chosen.getCandidateNr() + " to the set (" + members.size() +
+					" candidates, " + removed.size() + " axioms)");
+
+			if(chosenTime < Double.MAX_VALUE && (threshold == 0 || chosenTime*1000 <= threshold))
+				return verifySet(members);
+		}
+		if(finder.isVerbose()) System.out.println(" Joint search: no set of " + (members.isEmpty() ? "" : "up to " + members.size() + " ") +
+				"candidates found whose remainder classifies in time");
+		return null;
+	}
+
+
+	/**
+	 * Add candidates, seeded by the highest ranked indicator classes not yet used as seeds, to the pool until it has as
+	 * many candidates as there are worker threads. Candidates whose axioms are all in the current set, or that would
+	 * make it exceed the hot spot size threshold, are not added
+	 * @param seeds	Indicator classes not yet used as seeds, in rank order
+	 * @param pool	Candidates not yet in a set
+	 * @param removed	Axioms of the current set
+	 * @throws OWLOntologyCreationException
+	 */
+	private void fillPool(Iterator<OWLClass> seeds, List<Hotspot> pool, Set<OWLAxiom> removed) throws OWLOntologyCreationException {
+		Iterator<Hotspot> it = pool.iterator();
+		while(it.hasNext()) {
+			if(!fits(it.next(), removed)) {
+				it.remove();
+				nrDropped++;
+			}
+		}
+		while(pool.size() < width && seeds.hasNext()) {
+			OWLClass c = seeds.next();
+			Hotspot candidateHotspot = finder.prepHotspotCandidate(c, type, finder.nextCandidateNr());
+			if(!finder.hasAcceptableSize(candidateHotspot) || finder.isDuplicate(candidateHotspot)) continue;
+			if(fits(candidateHotspot, removed)) pool.add(candidateHotspot);
+			else nrDropped++;
+		}
+	}
+
+
+	/**
+	 * Check whether a candidate can be added to the current set: it must have axioms not in the set, and the set must
+	 * remain within the hot spot size threshold
+	 * @param candidateHotspot	Hot spot candidate
+	 * @param removed	Axioms of the current set
+	 * @return true if the candidate can be added to the set
+	 */
+	private boolean fits(Hotspot candidateHotspot, Set<OWLAxiom> removed) {
+		int added = 0;
+		for(OWLAxiom ax : candidateHotspot.getAxioms()) {
+			if(!removed.contains(ax)) added++;
+		}
+		return added > 0 && (finder.hotspotSizeThreshold == 0 || removed.size() + added <= finder.hotspotSizeThreshold);
+	}
+
+
+	/**
+	 * Verify the joint candidate of the given set as a hot spot, as the other search strategies verify single candidates
+	 * @param members	Candidates in the set
+	 * @return Set of approximations of the joint candidate that classify within the threshold, empty if it is not a hot spot
+	 */
+	private Set<Approximation> verifySet(List<Hotspot> members) {
+		Hotspot joint = finder.joinHotspots(members, finder.nextCandidateNr());
+		setSizes.add(members.size());
+		if(finder.isVerbose()) {
+			String nrs = "";
+			for(Hotspot hs : members)
+				nrs += (nrs.isEmpty() ? "" : ", ") + hs.getCandidateNr();
+			System.out.println(" Joint candidate " + joint.getCandidateNr() + " combines candidates " + nrs);
+		}
+		ApproximationGenerator gen = finder.getApproximationGenerator(joint);
+		Approximation rem = finder.buildRemainder(gen, joint, type);
+		if(rem == null) return new HashSet<Approximation>();
+		Set<Approximation> approxs = finder.verifyRemainder(gen, joint, rem, type);
+		if(approxs == null) return new HashSet<Approximation>();
+		if(!approxs.isEmpty()) finder.logHotspot(joint, (System.currentTimeMillis()-start)/1000.0);
+		return approxs;
+	}
+
+
+	/**
+	 * Print the metrics of the search
+	 */
+	public void printMetrics() {
+		System.out.println(" -------------------\n Joint Search Metrics (run time: " + elapsed + " seconds):");
+		System.out.println("    Steps: " + nrSteps);
+		System.out.println("    Remainders classified: " + nrProbes);
+		System.out.println("    Candidates dropped: " + nrDropped);
+		System.out.println("    Sets found: " + setSizes.size() + (setSizes.isEmpty() ? "" : " (sizes: " + setSizes + ")"));
+	}
+
+
+	/**
+	 * Classification of the remainder of a tentative set of candidates
+	 */
+	private class RemainderProbe implements Callable<ClassifierResult> {
+		private Hotspot joint;
+		private String name;
+		private long timeout;
+
+		/**
+		 * Constructor
+		 * @param joint	Joint candidate of the tentative set
+		 * @param name	Name of the remainder file, if one is needed
+		 * @param timeout	Timeout (in milliseconds), 0 for none
+		 */
+		public RemainderProbe(Hotspot joint, String name, long timeout) {
+			this.joint = joint;
+			this.name = name;
+			this.timeout = timeout;
+		}
+
+		@Override
+		public ClassifierResult call() {
+			return finder.probeRemainder(joint, type, name, timeout);
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.hotspots;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Wall-clock budget for a hot spot search. SAT profiling may take up to a fixed share of the budget (the ranking of 
+ * the classes profiled by then is used), and candidate extraction and remainder verification share the rest. The 
+ * rest is not split between the two in advance: extraction is not bounded on its own, being cheap next to the 
+ * classification of a remainder, and no remainder is classified for longer than the budget left. The search stops once the budget is spent or, after an
+ * approximation is found, once the expected improvement per unit time drops below a threshold. Improvement is the
+ * reduction of the classification time of the best remainder found so far (initially, the classification threshold),
+ * and its expected rate is a moving average of the improvement of each remainder test over the time since the previous
+ * one, so the search goes on while tests keep producing faster remainders.
+ * </p>
+ */
+public class SearchBudgetScheduler {
+	/** Default minimum expected improvement rate (seconds of classification time saved per second of search) */
+	public static final double DEFAULT_MIN_RATE = 0.01;
+	private static final double SAT_SHARE = 0.3; // Largest share of the budget given to SAT profiling
+	private static final double SMOOTHING = 0.3; // Weight of the latest remainder test in the expected improvement rate
+	private static final int MIN_TESTS = 3; // Remainder tests after the first approximation before the rate is trusted
+	private long budget, start = -1, lastTest;
+	private double minRate, bestTime, rate = 0;
+	private int nrTests = 0, testsSinceFirst = 0;
+	private boolean found = false;
+	private String stopReason;
+	private double[] phaseTimes = new double[Phase.values().length];
+
+	/**
+	 * Search phases
+	 */
+	public enum Phase {
+		SAT_PROFILING ("SAT profiling"),
+		EXTRACTION ("Candidate extraction"),
+		VERIFICATION ("Remainder verification");
+
+		private final String name;
+		Phase(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	/**
+	 * Constructor
+	 * @param budget	Search budget (in milliseconds)
+	 * @param minRate	Minimum expected improvement rate (seconds of classification time saved per second of search)
+	 * @param classificationThreshold	Classification threshold (in milliseconds), 0 for none
+	 */
+	public SearchBudgetScheduler(long budget, double minRate, long classificationThreshold) {
+		this.budget = budget;
+		this.minRate = minRate;
+		this.bestTime = (classificationThreshold > 0 ? classificationThreshold/1000.0 : budget/1000.0);
+	}
+
+
+	/**
+	 * Start the budget clock, unless it is already running
+	 */
+	public synchronized void start() {
+		if(start < 0) {
+			start = System.currentTimeMillis();
+			lastTest = start;
+		}
+	}
+
+
+	/**
+	 * Get the budget left
+	 * @return Time left (in milliseconds), no less than 0
+	 */
+	public synchronized long getRemainingTime() {
+		if(start < 0) return budget;
+		return Math.max(budget - (System.currentTimeMillis()-start), 0);
+	}
+
+
+	/**
+	 * Check whether SAT profiling has taken its share of the budget
+	 * @return true if SAT profiling should stop
+	 */
+	public synchronized boolean isSATProfilingOver() {
+		return start >= 0 && System.currentTimeMillis()-start >= budget*SAT_SHARE;
+	}
+
+
+	/**
+	 * Record the outcome of a remainder test
+	 * @param time	Classification time of the remainder (in seconds), or a negative value if it did not classify in time
+	 */
+	public synchronized void recordRemainderTest(double time) {
+		long now = System.currentTimeMillis();
+		double gain = 0;
+		if(time >= 0 && time < bestTime) {
+			gain = bestTime - time;
+			bestTime = time;
+			found = true;
+		}
+		double elapsed = Math.max(now-lastTest, 1)/1000.0;
+		rate = (nrTests == 0 ? gain/elapsed : SMOOTHING*gain/elapsed + (1-SMOOTHING)*rate);
+		lastTest = now;
+		nrTests++;
+		if(found) testsSinceFirst++;
+	}
+
+
+	/**
+	 * Add to the time spent in a search phase
+	 * @param phase	Search phase
+	 * @param time	Time (in seconds)
+	 */
+	public synchronized void addPhaseTime(Phase phase, double time) {
+		phaseTimes[phase.ordinal()] += time;
+	}
+
+
+	/**
+	 * Check whether the search should stop: the budget is spent, or an approximation was found and the expected
+	 * improvement rate has dropped below the minimum
+	 * @return true if the search should stop
+	 */
+	public synchronized boolean shouldStop() {
+		if(stopReason != null) return true;
+		if(start >= 0 && getRemainingTime() == 0)
+			stopReason = "budget spent";
+		else if(found && testsSinceFirst >= MIN_TESTS && rate < minRate)
+			stopReason = "expected improvement rate (" + String.format("%.4f", rate) + ") below " + minRate;
+		return stopReason != null;
+	}
+
+
+	/**
+	 * Get the reason the search was stopped
+	 * @return Reason, or null if the search was not stopped by the scheduler
+	 */
+	public synchronized String getStopReason() {
+		return stopReason;
+	}
+
+
+	/**
+	 * Get the expected improvement rate
+	 * @return Expected improvement rate (seconds of classification time saved per second of search)
+	 */
+	public synchronized double getExpectedImprovementRate() {
+		return rate;
+	}
+
+
+	/**
+	 * Print the budget, the time spent in each phase and, if the search was stopped early, why
+	 */
+	public synchronized void printMetrics() {
+		System.out.println("    Search budget: " + budget + " milliseconds (" + getRemainingTime() + " left)");
+		for(Phase p : Phase.values())
+			System.out.println("      " + p + ": " + phaseTimes[p.ordinal()] + " seconds");
+		System.out.println("      Remainder tests: " + nrTests + ". Expected improvement rate: " + String.format("%.4f", rate));
+		if(stopReason != null) System.out.println("      Stopped early: " + stopReason);
+	}
+}
@@ -26,16 +26,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyStorageException;
 
 import uk.ac.manchester.cs.romer.Dispatcher;
 import uk.ac.manchester.cs.romer.OntologyLoader;
+import uk.ac.manchester.cs.romer.reasonertasks.ClassifierResult;
 import uk.ac.manchester.cs.romer.reasonertasks.EntailmentGenerator;
+import uk.ac.manchester.cs.romer.utils.ClassificationCache;
 
 /**
  * @author Rafael S. Goncalves <br/>
@@ -55,6 +59,7 @@ public class PerformanceProfiler {
 	private String outputDir, reasonerName;
 	private BufferedWriter writer;
 	private int nrRuns;
+	private ClassificationCache cache;
 	
 	/**
 	 * Constructor
@@ -164,8 +169,19 @@ public class PerformanceProfiler {
 	 * @return Classification time of partition
 	 */
 	public double benchmarkPartition(String ontPath, int partitionNr, long timeout) {
+		String key = null;
+		if(cache != null) {
+			key = ClassificationCache.getKey(ontPath, false, reasonerName, "-cl");
+			ClassifierResult cached = cache.get(key, timeout, false);
+			if(cached != null) {
+				if(cached.timedOut()) return timeout;
+				return cached.getReasoningTaskTime();
+			}
+		}
+		
 		double clTime = 0;
-		boolean timedOut = false;
+		int nrUnsat = 0;
+		boolean timedOut = false, isConsistent = true;
 		try {
 			ArrayList<String> args = new ArrayList<String>();
 			args.add("-ont"); 		args.add(ontPath);
@@ -185,6 +201,10 @@ public class PerformanceProfiler {
 	        	}
 	        	if(line.contains("Classification time"))
 	        		clTime = Double.parseDouble(line.substring(line.indexOf(":")+2, line.indexOf(" seconds")));
+	        	if(line.contains("Nr. Unsatisfiable Classes"))
+	        		nrUnsat = Integer.parseInt(line.substring(line.indexOf(":")+2, line.length()));
+	        	if(line.equals("Ontology is inconsistent"))
+	        		isConsistent = false;
 	        	line = reader.readLine();
 	        	if(line == null) break;
 	        }
@@ -192,11 +212,22 @@ public class PerformanceProfiler {
 		} catch (IOException | InterruptedException e) {
 			e.printStackTrace();
 		}
+		if(cache != null)
+			cache.put(key, new ClassifierResult(new HashSet<OWLAxiom>(), clTime, nrUnsat, "", isConsistent, timedOut), timeout, false);
 		if(timedOut) clTime = timeout;
 		return clTime;
 	}
 	
 	
+	/**
+	 * Set the cache consulted before benchmarking a partition, and updated with the partition's classification time
+	 * @param cache	Classification cache
+	 */
+	public void setClassificationCache(ClassificationCache cache) {
+		this.cache = cache;
+	}
+	
+	
 	/**
 	 * @param args
 	 * @throws OWLOntologyCreationException 
@@ -205,7 +236,7 @@ public class PerformanceProfiler {
 	 */
 	public static void main(String[] args) throws OWLOntologyCreationException, OWLOntologyStorageException, IOException {
 		System.out.println("Executing Performance Profiler...");
-		String ontFile = null, reasonerName = null, outputDir = null;
+		String ontFile = null, reasonerName = null, outputDir = null, cacheDir = null;
 		int nrRuns = 5, nrPartitions = 4;
 		boolean verbose = false;
 		long timeout = 0;
@@ -218,6 +249,7 @@ public class PerformanceProfiler {
 			if(arg.equalsIgnoreCase("-o"))			outputDir = args[++i].trim();
 			if(arg.equalsIgnoreCase("-r"))			nrRuns = Integer.parseInt(args[++i].trim());
 			if(arg.equalsIgnoreCase("-l"))			nrPartitions = Integer.parseInt(args[++i].trim());
+			if(arg.equalsIgnoreCase("-cache"))		cacheDir = args[++i].trim();
 			if(arg.equalsIgnoreCase("-v"))			verbose = true;
 		}
 		
@@ -230,6 +262,7 @@ public class PerformanceProfiler {
 		if(ontFile != null && reasonerName != null) {
 			OWLOntology ont = new OntologyLoader(new File(ontFile), verbose).loadOntology();
 			PerformanceProfiler profiler = new PerformanceProfiler(ont, reasonerName, outputDir, nrRuns, verbose);
+			if(cacheDir != null) profiler.setClassificationCache(new ClassificationCache(cacheDir));
 			profiler.profileOntologyReasonerPair(nrPartitions, timeout);
 		}
 		else
@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLDataPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLDataPropertyExpression;
+import org.semanticweb.owlapi.model.OWLLiteral;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLObjectPropertyAssertionAxiom;
+import org.semanticweb.owlapi.model.OWLObjectPropertyExpression;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+
+import uk.ac.manchester.cs.romer.ReasonerLoader;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * <code>AboxSummarizer</code> builds a summary of the ABox in the style of SHER: individuals with the same pattern,
+ * i.e., the same asserted concepts, data values and property neighbourhood (properties to or from individuals with
+ * given asserted concepts), are merged into one summary individual, and each assertion is mapped onto the summary
+ * individuals. Since the summary is a homomorphic image of the ABox, and the TBox has no nominals:
+ * <ul>
+ * <li>if the summary is consistent then so is the ontology;</li>
+ * <li>the types of a summary individual are an upper bound on the types of the individuals it stands for;</li>
+ * <li>the subsumers of the pattern's description (the conjunction of its concepts and neighbourhood) are a lower bound.</li>
+ * </ul>
+ * Only the types that fall between both bounds are checked against the full ontology, so reasoning mostly depends
+ * on the number of distinct patterns rather than on the number of individuals.
+ * </p>
+ */
+public class AboxSummarizer {
+	private static final String SUMMARY_NS = "http://owl.cs.manchester.ac.uk/romer/summary#";
+	private OWLOntology ont, summary;
+	private OWLDataFactory df;
+	private String reasonerName;
+	private boolean verbose;
+	private Map<OWLNamedIndividual,Set<Object>> patterns;
+	private Map<Set<Object>,OWLNamedIndividual> summaryIndividuals;
+	private Map<Set<Object>,OWLClassExpression> descriptions;
+	private OWLReasoner summaryReasoner, reasoner;
+	private int nrRefinementTests = 0;
+
+
+	/**
+	 * Constructor
+	 * @param ont	OWLOntology
+	 * @param reasonerName	Reasoner name
+	 * @param verbose	Verbose mode
+	 */
+	public AboxSummarizer(OWLOntology ont, String reasonerName, boolean verbose) {
+		this.ont = ont;
+		this.reasonerName = reasonerName;
+		this.verbose = verbose;
+		this.df = ont.getOWLOntologyManager().getOWLDataFactory();
+	}
+
+
+	/**
+	 * Check whether the ontology can be summarized, i.e., individuals only occur in class, object and data property
+	 * assertions (so there are no nominals, same or different individual assertions, or negative property assertions),
+	 * there are no anonymous individuals, and there are no keys or rules
+	 * @return true if the ontology can be summarized, false otherwise
+	 */
+	public boolean isApplicable() {
+		for(OWLAxiom ax : ont.getAxioms()) {
+			if(ax.isOfType(AxiomType.ANNOTATION_ASSERTION)) continue;
+			if(ax.isOfType(AxiomType.HAS_KEY) || ax.isOfType(AxiomType.SWRL_RULE)) return false;
+			if(!ax.getAnonymousIndividuals().isEmpty()) return false;
+			if(ax.getIndividualsInSignature().isEmpty()) continue;
+			if(ax.isOfType(AxiomType.CLASS_ASSERTION)) {
+				if(!((OWLClassAssertionAxiom)ax).getClassExpression().getIndividualsInSignature().isEmpty()) return false;
+			}
+			else if(!ax.isOfType(AxiomType.OBJECT_PROPERTY_ASSERTION, AxiomType.DATA_PROPERTY_ASSERTION, AxiomType.DECLARATION))
+				return false;
+		}
+		return true;
+	}
+
+
+	/**
+	 * Check whether the ABox summary is consistent. If it is then the ontology is consistent, otherwise the result
+	 * is inconclusive
+	 * @return true if the summary is consistent, false otherwise
+	 */
+	public boolean isSummaryConsistent() {
+		if(summaryReasoner == null) {
+			buildSummary();
+			summaryReasoner = new ReasonerLoader(reasonerName, summary, false).getReasoner();
+		}
+		return summaryReasoner.isConsistent();
+	}
+
+
+	/**
+	 * Realize the ontology via its ABox summary
+	 * @return Set of inferred class assertions (as produced by the OWL API's InferredClassAssertionAxiomGenerator),
+	 * or null if the summary is inconsistent
+	 */
+	public Set<OWLAxiom> realize() {
+		if(!isSummaryConsistent()) {
+			if(verbose) System.out.println("\tAbox summary is inconsistent; summarization is inconclusive");
+			return null;
+		}
+		Map<Set<Object>,Set<OWLNamedIndividual>> members = new HashMap<Set<Object>,Set<OWLNamedIndividual>>();
+		for(OWLNamedIndividual ind : patterns.keySet()) {
+			Set<Object> pattern = patterns.get(ind);
+			if(!members.containsKey(pattern)) members.put(pattern, new HashSet<OWLNamedIndividual>());
+			members.get(pattern).add(ind);
+		}
+
+		Set<OWLAxiom> results = new HashSet<OWLAxiom>();
+		for(Set<Object> pattern : members.keySet()) {
+			OWLClassExpression desc = descriptions.get(pattern);
+			for(OWLClass c : summaryReasoner.getTypes(summaryIndividuals.get(pattern), false).getFlattened()) {
+				if(c.isOWLThing() || summaryReasoner.isEntailed(df.getOWLSubClassOfAxiom(desc, c))) {
+					for(OWLNamedIndividual ind : members.get(pattern))
+						results.add(df.getOWLClassAssertionAxiom(c, ind));
+				}
+				else {
+					// Inconclusive: check each individual against the full ontology
+					if(reasoner == null) reasoner = new ReasonerLoader(reasonerName, ont, false).getReasoner();
+					for(OWLNamedIndividual ind : members.get(pattern)) {
+						OWLAxiom ax = df.getOWLClassAssertionAxiom(c, ind);
+						nrRefinementTests++;
+						if(reasoner.isEntailed(ax)) results.add(ax);
+					}
+				}
+			}
+		}
+		if(verbose) System.out.println("\tAbox summary: " + patterns.size() + " individuals, " + summaryIndividuals.size() +
+				" summary individuals, " + nrRefinementTests + " refinement tests");
+		return results;
+	}
+
+
+	/**
+	 * Get the number of individuals in the ABox summary
+	 * @return Number of summary individuals
+	 */
+	public int getNumberOfSummaryIndividuals() {
+		return summaryIndividuals.size();
+	}
+
+
+	/**
+	 * Get the number of instance checks performed against the full ontology
+	 * @return Number of refinement tests
+	 */
+	public int getNumberOfRefinementTests() {
+		return nrRefinementTests;
+	}
+
+
+	/**
+	 * Dispose of the reasoners used
+	 */
+	public void dispose() {
+		if(summaryReasoner != null) summaryReasoner.dispose();
+		if(reasoner != null) reasoner.dispose();
+	}
+
+
+	/**
+	 * Compute the pattern of each individual, and create the summary ontology with one individual per pattern
+	 */
+	private void buildSummary() {
+		Map<OWLNamedIndividual,Set<OWLClassExpression>> concepts = new HashMap<OWLNamedIndividual,Set<OWLClassExpression>>();
+		Map<OWLNamedIndividual,Set<Object>> neighbourhood = new HashMap<OWLNamedIndividual,Set<Object>>();
+		for(OWLNamedIndividual ind : ont.getIndividualsInSignature()) {
+			concepts.put(ind, new HashSet<OWLClassExpression>());
+			neighbourhood.put(ind, new HashSet<Object>());
+		}
+		Set<OWLAxiom> tbox = new HashSet<OWLAxiom>();
+		Set<OWLClassAssertionAxiom> classAssertions = new HashSet<OWLClassAssertionAxiom>();
+		Set<OWLObjectPropertyAssertionAxiom> objAssertions = new HashSet<OWLObjectPropertyAssertionAxiom>();
+		Set<OWLDataPropertyAssertionAxiom> dataAssertions = new HashSet<OWLDataPropertyAssertionAxiom>();
+		for(OWLAxiom ax : ont.getAxioms()) {
+			if(ax.isOfType(AxiomType.CLASS_ASSERTION)) {
+				OWLClassAssertionAxiom ca = (OWLClassAssertionAxiom)ax;
+				concepts.get(ca.getIndividual().asOWLNamedIndividual()).add(ca.getClassExpression());
+				classAssertions.add(ca);
+			}
+			else if(ax.isOfType(AxiomType.OBJECT_PROPERTY_ASSERTION))
+				objAssertions.add(((OWLObjectPropertyAssertionAxiom)ax).getSimplified());
+			else if(ax.isOfType(AxiomType.DATA_PROPERTY_ASSERTION)) {
+				OWLDataPropertyAssertionAxiom da = (OWLDataPropertyAssertionAxiom)ax;
+				neighbourhood.get(da.getSubject().asOWLNamedIndividual()).add(Arrays.asList(da.getProperty(), da.getObject()));
+				dataAssertions.add(da);
+			}
+			else if(ax.getIndividualsInSignature().isEmpty() && !ax.isOfType(AxiomType.ANNOTATION_ASSERTION))
+				tbox.add(ax);
+		}
+		for(OWLObjectPropertyAssertionAxiom ax : objAssertions) {
+			OWLNamedIndividual sub = ax.getSubject().asOWLNamedIndividual(), obj = ax.getObject().asOWLNamedIndividual();
+			neighbourhood.get(sub).add(Arrays.asList(ax.getProperty(), Boolean.TRUE, concepts.get(obj)));
+			neighbourhood.get(obj).add(Arrays.asList(ax.getProperty(), Boolean.FALSE, concepts.get(sub)));
+		}
+
+		patterns = new HashMap<OWLNamedIndividual,Set<Object>>();
+		summaryIndividuals = new HashMap<Set<Object>,OWLNamedIndividual>();
+		descriptions = new HashMap<Set<Object>,OWLClassExpression>();
+		Set<OWLAxiom> axioms = new HashSet<OWLAxiom>(tbox);
+		for(OWLNamedIndividual ind : concepts.keySet()) {
+			Set<Object> pattern = new HashSet<Object>(concepts.get(ind));
+			pattern.addAll(neighbourhood.get(ind));
+			patterns.put(ind, pattern);
+			if(!summaryIndividuals.containsKey(pattern)) {
+				OWLNamedIndividual s = df.getOWLNamedIndividual(IRI.create(SUMMARY_NS + "s" + summaryIndividuals.size()));
+				summaryIndividuals.put(pattern, s);
+				descriptions.put(pattern, getDescription(concepts.get(ind), neighbourhood.get(ind)));
+				axioms.add(df.getOWLDeclarationAxiom(s));
+			}
+		}
+		for(OWLClassAssertionAxiom ax : classAssertions)
+			axioms.add(df.getOWLClassAssertionAxiom(ax.getClassExpression(), getSummaryIndividual(ax.getIndividual())));
+		for(OWLObjectPropertyAssertionAxiom ax : objAssertions)
+			axioms.add(df.getOWLObjectPropertyAssertionAxiom(ax.getProperty(), getSummaryIndividual(ax.getSubject()),
+					getSummaryIndividual(ax.getObject())));
+		for(OWLDataPropertyAssertionAxiom ax : dataAssertions)
+			axioms.add(df.getOWLDataPropertyAssertionAxiom(ax.getProperty(), getSummaryIndividual(ax.getSubject()), ax.getObject()));
+
+		try {
+			summary = OWLManager.createOWLOntologyManager().createOntology(axioms);
+		} catch (OWLOntologyCreationException e) {
+			e.printStackTrace();
+		}
+	}
+
+
+	private OWLNamedIndividual getSummaryIndividual(Object ind) {
+		return summaryIndividuals.get(patterns.get(ind));
+	}
+
+
+	/**
+	 * Get the description of a pattern, i.e., the conjunction of its concepts, existential restrictions for each of
+	 * its neighbours, and value restrictions for its data values
+	 * @param concepts	Asserted concepts
+	 * @param neighbourhood	Neighbourhood and data values
+	 * @return Class expression
+	 */
+	@SuppressWarnings("unchecked")
+	private OWLClassExpression getDescription(Set<OWLClassExpression> concepts, Set<Object> neighbourhood) {
+		Set<OWLClassExpression> conjuncts = new HashSet<OWLClassExpression>(concepts);
+		for(Object o : neighbourhood) {
+			List<Object> entry = (List<Object>)o;
+			if(entry.size() == 2)
+				conjuncts.add(df.getOWLDataHasValue((OWLDataPropertyExpression)entry.get(0), (OWLLiteral)entry.get(1)));
+			else {
+				OWLObjectPropertyExpression p = (OWLObjectPropertyExpression)entry.get(0);
+				if(entry.get(1).equals(Boolean.FALSE)) p = p.getInverseProperty();
+				conjuncts.add(df.getOWLObjectSomeValuesFrom(p, getConjunction((Set<OWLClassExpression>)entry.get(2))));
+			}
+		}
+		return getConjunction(conjuncts);
+	}
+
+
+	private OWLClassExpression getConjunction(Set<OWLClassExpression> conjuncts) {
+		if(conjuncts.isEmpty()) return df.getOWLThing();
+		if(conjuncts.size() == 1) return conjuncts.iterator().next();
+		return df.getOWLObjectIntersectionOf(conjuncts);
+	}
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.reasoner.ReasonerProgressMonitor;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Progress monitor that attributes the time of a classification to the classes of the ontology, for reasoners
+ * that report nothing per class. The time of each per-class reasoner call (wrapped between {@link #startClass()}
+ * and {@link #endClass(OWLClass)}) is attributed to that class, less the time of any bulk reasoner task (such as
+ * precomputing the whole class hierarchy) that the reasoner reported, through the progress monitor, as running
+ * within the call. The calls should therefore be satisfiability tests made before the class hierarchy is computed,
+ * since most reasoners compute it in one bulk task on the first request for superclasses. Each attributed time is
+ * printed as a line "SatP(&lt;class IRI&gt;) seconds", as expected from glass-box reasoners by the hot spot finder.
+ * </p>
+ */
+public class ClassCostAttributor implements ReasonerProgressMonitor {
+	private PrintStream out;
+	private Map<OWLClass,Double> costs;
+	private long taskStart = -1, taskTime = 0, classStart, taskTimeAtClassStart;
+	private int nrTasks = 0;
+
+	/**
+	 * Constructor
+	 * @param out	Stream to print attributed times to (may be null)
+	 */
+	public ClassCostAttributor(PrintStream out) {
+		this.out = out;
+		this.costs = new LinkedHashMap<OWLClass,Double>();
+	}
+
+
+	@Override
+	public synchronized void reasonerTaskStarted(String taskName) {
+		if(taskStart < 0) taskStart = System.nanoTime(); // Nested tasks are timed once
+		nrTasks++;
+	}
+
+
+	@Override
+	public synchronized void reasonerTaskStopped() {
+		if(taskStart >= 0) {
+			taskTime += System.nanoTime()-taskStart;
+			taskStart = -1;
+		}
+	}
+
+
+	@Override
+	public void reasonerTaskProgressChanged(int value, int max) {}
+
+
+	@Override
+	public void reasonerTaskBusy() {}
+
+
+	/**
+	 * Start timing the reasoner calls for a class
+	 */
+	public synchronized void startClass() {
+		taskTimeAtClassStart = getBulkTaskTimeNanos();
+		classStart = System.nanoTime();
+	}
+
+
+	/**
+	 * Stop timing the reasoner calls for a class, and attribute their time to that class
+	 * @param c	OWL class
+	 * @return Time attributed to the class (in seconds)
+	 */
+	public synchronized double endClass(OWLClass c) {
+		long elapsed = System.nanoTime()-classStart;
+		long bulk = getBulkTaskTimeNanos()-taskTimeAtClassStart;
+		double cost = Math.max(elapsed-bulk, 0)/1000000000.0;
+		Double previous = costs.get(c);
+		costs.put(c, previous == null ? cost : previous + cost);
+		if(out != null) out.println("SatP(" + c.getIRI().toQuotedString() + ") " + cost);
+		return cost;
+	}
+
+
+	/**
+	 * Get the time attributed to each class
+	 * @return Map of classes to their attributed time (in seconds)
+	 */
+	public synchronized Map<OWLClass,Double> getCosts() {
+		return costs;
+	}
+
+
+	/**
+	 * Get the total time attributed to classes
+	 * @return Total attributed time (in seconds)
+	 */
+	public synchronized double getAttributedTime() {
+		double total = 0;
+		for(Double d : costs.values())
+			total += d;
+		return total;
+	}
+
+
+	/**
+	 * Get the time of the bulk reasoner tasks reported so far, which is not attributed to any class
+	 * @return Bulk task time (in seconds)
+	 */
+	public synchronized double getBulkTaskTime() {
+		return getBulkTaskTimeNanos()/1000000000.0;
+	}
+
+
+	/**
+	 * Get the number of bulk reasoner tasks reported so far
+	 * @return Number of reasoner tasks
+	 */
+	public synchronized int getNumberOfReasonerTasks() {
+		return nrTasks;
+	}
+
+
+	private long getBulkTaskTimeNanos() {
+		return taskTime + (taskStart >= 0 ? System.nanoTime()-taskStart : 0);
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import uk.ac.manchester.cs.romer.OntologyLoader;
+import uk.ac.manchester.cs.romer.utils.AxiomIndex;
+import uk.ac.manchester.cs.romer.utils.TaxonomyWriter;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Long-lived classification process: loads the ontology once, and then classifies subsets of it given on standard
+ * input as fingerprints over the ontology's {@link AxiomIndex}, so that hot spot candidates and remainders need not
+ * be serialized and parsed again for each classification. Once the ontology is loaded, a line with the number of
+ * axioms and the digest of the index is printed, so the requesting process can check that both index the axioms
+ * in the same way. Each request is one line:
+ * </p>
+ * <pre>timeout(ms)	results file	[+|~]fingerprint</pre>
+ * <p>
+ * where '+' gives the axioms in the subset and '~' those not in it. ABox axioms are ignored. The output of each
+ * request is that of {@link EntailmentGenerator} classification, with the subsumptions saved to the given file as a
+ * binary taxonomy, followed by a line "--EOF--". On timeout (or error) the process prints the reason and exits, as
+ * the reasoner cannot be reliably stopped; the requesting process then starts a new worker if needed.
+ * </p>
+ */
+public class ClassificationWorker {
+	private OWLOntologyManager man;
+	private AxiomIndex index;
+	private String reasonerName;
+	private ExecutorService executor;
+
+	/**
+	 * Constructor
+	 * @param ont	OWLOntology
+	 * @param reasonerName	Reasoner name
+	 */
+	public ClassificationWorker(OWLOntology ont, String reasonerName) {
+		this.reasonerName = reasonerName;
+		this.man = OWLManager.createOWLOntologyManager();
+		this.index = new AxiomIndex(ont);
+		this.executor = Executors.newSingleThreadExecutor();
+	}
+
+
+	/**
+	 * Serve classification requests from standard input until it is closed
+	 * @throws IOException
+	 */
+	public void serve() throws IOException {
+		System.out.println("Axiom index: " + index.getNumberOfOntologyAxioms() + " " + index.getDigest());
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+		String line;
+		while((line = reader.readLine()) != null) {
+			String[] fields = line.split("\t");
+			if(fields.length != 3) {
+				System.out.println("\tERROR\tMalformed request");
+				break;
+			}
+			BitSet fp = AxiomIndex.decode(fields[2].substring(1));
+			if(fields[2].startsWith("~")) fp.flip(0, index.getNumberOfOntologyAxioms());
+			classify(index.getAxioms(fp), Long.parseLong(fields[0]), fields[1]);
+			System.out.println("--EOF--");
+			System.out.flush();
+		}
+		executor.shutdownNow();
+		System.exit(0);
+	}
+
+
+	/**
+	 * Classify the given subset of the ontology, saving the subsumptions to the given file
+	 * @param axioms	Set of axioms
+	 * @param timeout	Timeout (in milliseconds), 0 for none
+	 * @param filePath	Results file path
+	 */
+	private void classify(Set<OWLAxiom> axioms, long timeout, final String filePath) {
+		OWLOntology subset = null;
+		try {
+			subset = man.createOntology(axioms);
+		} catch (OWLOntologyCreationException e) {
+			e.printStackTrace();
+			System.out.println("\tERROR\t" + e.getMessage());
+			System.exit(0);
+		}
+		man.removeAxioms(subset, subset.getABoxAxioms(true));
+
+		final OWLOntology o = subset;
+		Future<ClassifierResult> future = executor.submit(new Callable<ClassifierResult>() {
+			@Override
+			public ClassifierResult call() throws IOException {
+				TaxonomyWriter writer = new TaxonomyWriter(filePath, o.getClassesInSignature(true), null);
+				EntailmentGenerator gen = new EntailmentGenerator(o, reasonerName, true, false, false, true);
+				ClassifierResult r = gen.classify(writer);
+				if(r.getErrorMessage().equals("") && writer.wroteOutput())
+					System.out.println("Classification results saved to: " + writer.getFilePath());
+				return r;
+			}
+		});
+		try {
+			if(timeout > 0) future.get(timeout, TimeUnit.MILLISECONDS);
+			else future.get();
+		} catch (TimeoutException e) {
+			System.out.println("\n\tAborted: Reasoning task exceeded timeout");
+			System.exit(0);
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+			System.out.println("\tERROR\t" + e.getMessage());
+			System.exit(0);
+		}
+		man.removeOntology(subset);
+	}
+
+
+	/**
+	 * main
+	 * @throws OWLOntologyCreationException
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws OWLOntologyCreationException, IOException {
+		String ontFile = null, reasonerName = null;
+		boolean ignoreAbox = false;
+
+		for(int i = 0; i < args.length; i++) {
+			String arg = args[i].trim();
+			if(arg.equalsIgnoreCase("-ont"))		ontFile = args[++i].trim();
+			if(arg.equalsIgnoreCase("-reasoner"))	reasonerName = args[++i].trim();
+			if(arg.equalsIgnoreCase("-b"))			ignoreAbox = true;
+		}
+
+		if(ontFile != null && reasonerName != null) {
+			OWLOntology ont = new OntologyLoader(new File(ontFile), false).loadOntology(ignoreAbox);
+			new ClassificationWorker(ont, reasonerName).serve();
+		}
+		else
+			throw new RuntimeException("Error: Minimum parameters are: -ont ONTOLOGY -reasoner REASONERNAME.\n" +
+					"\tPlease review the usage information via the -h flag.");
+	}
+}
@@ -18,6 +18,8 @@
  ******************************************************************************/
 package uk.ac.manchester.cs.romer.reasonertasks;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
@@ -31,6 +33,9 @@ import org.semanticweb.owlapi.model.OWLClass;
 public class ClassifierResult extends EntailmentGeneratorResult {
 	private Set<OWLClass> unsatClasses;
 	private int nrUnsatClasses;
+	private Taxonomy taxonomy;
+	private List<OWLClass> unprocessed = Collections.emptyList(), unresolved = Collections.emptyList();
+	private double coverage = 1;
 	
 	/**
 	 * Constructor 1.1
@@ -88,6 +93,129 @@ public class ClassifierResult extends EntailmentGeneratorResult {
 	}
 	
 	
+	/**
+	 * Constructor 3, where only the number of entailments is recorded
+	 * @param nrEntailments	Number of entailments
+	 * @param time	Classification time
+	 * @param unsatClasses	Set of unsatisfiable classes
+	 * @param errorMsg	Error message (if applicable)
+	 * @param isConsistent	true if ontology is consistent
+	 */
+	public ClassifierResult(int nrEntailments, double time, Set<OWLClass> unsatClasses, String errorMsg, boolean isConsistent) {
+		super(nrEntailments, time, errorMsg, isConsistent);
+		this.unsatClasses = unsatClasses;
+		this.nrUnsatClasses = unsatClasses.size();
+	}
+	
+	
+	/**
+	 * Constructor 4, where the entailments are only materialised as axioms when requested
+	 * @param taxonomy	Classification results
+	 * @param time	Classification time
+	 * @param errorMsg	Error message (if applicable)
+	 * @param isConsistent	true if ontology is consistent
+	 * @param timedOut	true if classification timed out
+	 */
+	public ClassifierResult(Taxonomy taxonomy, double time, String errorMsg, boolean isConsistent, boolean timedOut) {
+		super(null, time, errorMsg, isConsistent, timedOut);
+		this.taxonomy = taxonomy;
+		this.unsatClasses = taxonomy.getUnsatisfiableClasses();
+		this.nrUnsatClasses = unsatClasses.size();
+	}
+	
+	
+	/**
+	 * Get the classification results as a taxonomy, which is built from the entailments on first use
+	 * @return Taxonomy, or null if there are no classification results
+	 */
+	public synchronized Taxonomy getTaxonomy() {
+		if(taxonomy == null && super.getEntailments() != null)
+			taxonomy = new Taxonomy(super.getEntailments());
+		return taxonomy;
+	}
+	
+	
+	/**
+	 * Check whether the classification results are held as a taxonomy (so that {@link #getTaxonomy()} is cheap)
+	 * @return true if the results are held as a taxonomy, false otherwise
+	 */
+	public synchronized boolean hasTaxonomy() {
+		return taxonomy != null;
+	}
+	
+	
+	@Override
+	public synchronized Set<OWLAxiom> getEntailments() {
+		if(super.getEntailments() == null && taxonomy != null)
+			setEntailments(taxonomy.getAxioms());
+		return super.getEntailments();
+	}
+	
+	
+	@Override
+	public int getNumberOfEntailments() {
+		if(super.getEntailments() == null && taxonomy != null)
+			return taxonomy.getNumberOfAxioms();
+		return super.getNumberOfEntailments();
+	}
+	
+	
+	/**
+	 * Mark the result as partial, i.e., obtained from a classification that was stopped before processing all classes
+	 * @param unprocessed	Classes whose subsumers were not computed
+	 * @param coverage	Fraction of classes whose subsumers were computed
+	 */
+	void setUnprocessedClasses(List<OWLClass> unprocessed, double coverage) {
+		this.unprocessed = unprocessed;
+		this.coverage = coverage;
+	}
+	
+	
+	/**
+	 * Set the classes whose subsumers could not be computed within their time budget
+	 * @param unresolved	Unresolved classes
+	 */
+	void setUnresolvedClasses(List<OWLClass> unresolved) {
+		this.unresolved = unresolved;
+	}
+	
+	
+	/**
+	 * Check whether this is a partial result, i.e., some classes were not processed or not resolved
+	 * @return true if some classes were not processed or not resolved, false otherwise
+	 */
+	public boolean isPartial() {
+		return !unprocessed.isEmpty() || !unresolved.isEmpty();
+	}
+	
+	
+	/**
+	 * Get the fraction of classes whose subsumers were computed
+	 * @return Coverage, between 0 and 1
+	 */
+	public double getCoverage() {
+		return coverage;
+	}
+	
+	
+	/**
+	 * Get the classes whose subsumers were not computed
+	 * @return List of unprocessed classes
+	 */
+	public List<OWLClass> getUnprocessedClasses() {
+		return unprocessed;
+	}
+	
+	
+	/**
+	 * Get the classes whose subsumers could not be computed within their time budget
+	 * @return List of unresolved classes
+	 */
+	public List<OWLClass> getUnresolvedClasses() {
+		return unresolved;
+	}
+	
+	
 	/**
 	 * Get the set of unsatisfiable classes
 	 * @return Set of unsatisfiable classes
@@ -39,7 +39,10 @@ import uk.ac.manchester.cs.romer.ReasonerLoader;
  */
 public class ConsistencyTester {
 	private OWLReasoner reasoner;
+	private OWLOntology ont;
+	private String reasonerName;
 	private ThreadMXBean bean;
+	private boolean verbose, summarize;
 	
 	/**
 	 * Constructor 1
@@ -57,22 +60,47 @@ public class ConsistencyTester {
 	 * @param reasonerName	Name of reasoner to be used
 	 */
 	public ConsistencyTester(OWLOntology ont, String reasonerName, boolean verbose) {
-		this.reasoner = new ReasonerLoader(reasonerName, ont, verbose).getReasoner();
+		this.ont = ont;
+		this.reasonerName = reasonerName;
+		this.verbose = verbose;
 		this.bean = ManagementFactory.getThreadMXBean();
 	}
 	
 	
+	/**
+	 * Set whether consistency should first be checked on an ABox summary (see {@link AboxSummarizer}), and only 
+	 * on the full ontology if the summary is inconsistent. Only applies to testers created from an ontology
+	 * @param summarize	true if the ABox should be summarized, false otherwise
+	 */
+	public void setAboxSummarization(boolean summarize) {
+		this.summarize = summarize;
+	}
+	
+	
 	/**
 	 * Check ontology consistency
 	 * @return ConsistencyResult
 	 */
 	public ConsistencyResult isConsistent() {
+		double summaryTime = 0;
+		if(summarize && ont != null) {
+			long start = bean.getCurrentThreadCpuTime();
+			AboxSummarizer summarizer = new AboxSummarizer(ont, reasonerName, verbose);
+			boolean cons = summarizer.isApplicable() && summarizer.isSummaryConsistent();
+			summarizer.dispose();
+			summaryTime = (bean.getCurrentThreadCpuTime()-start)/1000000000.0;
+			if(cons) {
+				if(verbose) System.out.println("\tAbox summary is consistent");
+				return new ConsistencyResult(true, summaryTime);
+			}
+		}
+		if(reasoner == null) reasoner = new ReasonerLoader(reasonerName, ont, verbose).getReasoner();
 		long start = bean.getCurrentThreadCpuTime();
 		
 		boolean cons = reasoner.isConsistent();
 		
 		long end = bean.getCurrentThreadCpuTime();
-		double total = (end-start)/1000000000.0;
+		double total = (end-start)/1000000000.0 + summaryTime;
 		
 		return new ConsistencyResult(cons, total);
 	}
@@ -110,7 +138,7 @@ public class ConsistencyTester {
 		System.out.println("Executing consistency tester...");
 		String ontFile = "", reasonerName = "";
 		long timeout = 0;
-		boolean verbose = false;
+		boolean verbose = false, summarize = false;
 
 		for (int i = 0; i < args.length; i++) {
 			String arg = args[i].trim();
@@ -118,10 +146,12 @@ public class ConsistencyTester {
 			if(arg.equalsIgnoreCase("-reasoner"))	reasonerName = args[++i].trim();
 			if(arg.equalsIgnoreCase("-t"))			timeout = Long.parseLong(args[++i].trim());
 			if(arg.equalsIgnoreCase("-v"))			verbose = true;
+			if(arg.equalsIgnoreCase("-sum"))		summarize = true;
 		}
 
 		if(ontFile != null && reasonerName != null) {
 			ConsistencyTester tester = new ConsistencyTester(new OntologyLoader(new File(ontFile), verbose).loadOntology(), reasonerName, verbose);
+			tester.setAboxSummarization(summarize);
 			ConsistencyResult r = null;
 			if(timeout != 0)
 				r = tester.isConsistent(timeout);
@@ -18,9 +18,14 @@
  ******************************************************************************/
 package uk.ac.manchester.cs.romer.reasonertasks;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
@@ -60,4 +65,44 @@ public class CustomInferredSubClassAxiomGenerator extends InferredClassAxiomGene
 	public String getLabel() {
         return "Subclasses";
     }
+	
+	
+	/**
+	 * Get the transitive reduction of a set of atomic subsumptions, keeping equivalences
+	 * @param subs	Set of atomic subsumptions
+	 * @return Set of direct subsumptions
+	 */
+	public static Set<OWLAxiom> getTransitiveReduction(Set<OWLAxiom> subs) {
+		Map<OWLClassExpression,Set<OWLClassExpression>> supers = new HashMap<OWLClassExpression,Set<OWLClassExpression>>();
+		for(OWLAxiom ax : subs) {
+			OWLSubClassOfAxiom subAx = (OWLSubClassOfAxiom)ax;
+			Set<OWLClassExpression> s = supers.get(subAx.getSubClass());
+			if(s == null) {
+				s = new HashSet<OWLClassExpression>();
+				supers.put(subAx.getSubClass(), s);
+			}
+			s.add(subAx.getSuperClass());
+		}
+		Set<OWLAxiom> output = new HashSet<OWLAxiom>();
+		for(OWLAxiom ax : subs) {
+			OWLSubClassOfAxiom subAx = (OWLSubClassOfAxiom)ax;
+			OWLClassExpression a = subAx.getSubClass(), c = subAx.getSuperClass();
+			boolean direct = true;
+			for(OWLClassExpression b : supers.get(a)) {
+				if(b.equals(c) || isSubsumedBy(supers, b, a)) continue; // Skip equivalents of the subclass
+				if(isSubsumedBy(supers, b, c) && !isSubsumedBy(supers, c, b)) {
+					direct = false;
+					break;
+				}
+			}
+			if(direct) output.add(ax);
+		}
+		return output;
+	}
+	
+	
+	private static boolean isSubsumedBy(Map<OWLClassExpression,Set<OWLClassExpression>> supers, OWLClassExpression sub, OWLClassExpression sup) {
+		Set<OWLClassExpression> s = supers.get(sub);
+		return s != null && s.contains(sup);
+	}
 }
@@ -18,37 +18,44 @@
  ******************************************************************************/
 package uk.ac.manchester.cs.romer.reasonertasks;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 
 import org.semanticweb.HermiT.datatypes.UnsupportedDatatypeException;
+import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLClassAssertionAxiom;
-import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
-import org.semanticweb.owlapi.model.OWLSubDataPropertyOfAxiom;
-import org.semanticweb.owlapi.model.OWLSubObjectPropertyOfAxiom;
 import org.semanticweb.owlapi.reasoner.InconsistentOntologyException;
 import org.semanticweb.owlapi.reasoner.InferenceType;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
 import org.semanticweb.owlapi.reasoner.OWLReasonerRuntimeException;
 import org.semanticweb.owlapi.reasoner.ReasonerInternalException;
+import org.semanticweb.owlapi.reasoner.SimpleConfiguration;
 import org.semanticweb.owlapi.util.InferredClassAssertionAxiomGenerator;
 
 import uk.ac.manchester.cs.romer.OntologyLoader;
 import uk.ac.manchester.cs.romer.ReasonerLoader;
 import uk.ac.manchester.cs.romer.utils.CSVSerializer;
 import uk.ac.manchester.cs.romer.utils.ResultsSerializer;
+import uk.ac.manchester.cs.romer.utils.SubsumptionWriter;
+import uk.ac.manchester.cs.romer.utils.TaxonomyWriter;
 
 /**
  * @author Rafael S. Goncalves <br/>
@@ -62,7 +69,19 @@ public class EntailmentGenerator {
 	private ThreadMXBean bean;
 	private CSVSerializer s;
 	private ResultsSerializer rs;
-	private boolean verbose, includeAsserted, directOnly;
+	private boolean verbose, includeAsserted, directOnly, hybrid, binaryOutput, summarize, anytime, costAttribution;
+	private int nrThreads = 1;
+	private long classBudget = 0;
+	private static final long GRACE_PERIOD = 5000;
+	private List<OWLClass> priorityClasses = new ArrayList<OWLClass>();
+	private volatile ParallelClassifier currentClassifier;
+	private volatile OWLReasoner currentReasoner; // Reasoner of a sequential anytime classification
+	private volatile boolean stopRequested = false;
+	private volatile int nrClassesDone = 0;
+	private List<OWLClass> classOrder = new ArrayList<OWLClass>();
+	private volatile SubsumptionHandler currentPipeline;
+	private boolean pipelineFinished = false;
+	private Timer graceTimer; // Guarded by this
 
 	
 	/**
@@ -140,32 +159,180 @@ public class EntailmentGenerator {
 	}
 	
 	
+	/**
+	 * Set whether classification should be hybrid, i.e., the OWL 2 EL part of the ontology is classified 
+	 * by an EL reasoner and the remainder by the chosen reasoner (see {@link HybridClassifier})
+	 * @param hybrid	true if classification should be hybrid, false otherwise
+	 */
+	public void setHybridClassification(boolean hybrid) {
+		this.hybrid = hybrid;
+	}
+	
+	
+	/**
+	 * Set the number of reasoner instances used (in parallel) for classification and realization, see 
+	 * {@link ParallelClassifier} and {@link ParallelRealizer}
+	 * @param nrThreads	Number of reasoner instances
+	 */
+	public void setNumberOfThreads(int nrThreads) {
+		this.nrThreads = nrThreads;
+	}
+	
+	
+	/**
+	 * Set whether classification should run in anytime mode: classes are classified one at a time (by a 
+	 * {@link ParallelClassifier} if more than one thread is set), and when the timeout is reached classification stops 
+	 * and returns (and serializes) the subsumptions computed so far, together with the classes that were not processed, 
+	 * rather than aborting. Does not apply to hybrid classification
+	 * @param anytime	true if classification should be anytime, false otherwise
+	 */
+	public void setAnytime(boolean anytime) {
+		this.anytime = anytime;
+	}
+	
+	
+	/**
+	 * Set a time budget for each class: classes are classified one at a time (by a {@link ParallelClassifier}, with as
+	 * many threads as set), and a class whose subsumers are not computed within the budget is reported as unresolved 
+	 * rather than holding up (or timing out) the whole classification
+	 * @param classBudget	Time budget per class (in milliseconds), 0 for no budget
+	 */
+	public void setClassBudget(long classBudget) {
+		this.classBudget = classBudget;
+	}
+	
+	
+	/**
+	 * Set the classes to be processed first in classification
+	 * @param priorityClasses	List of classes, in order of priority
+	 */
+	public void setPriorityClasses(List<OWLClass> priorityClasses) {
+		this.priorityClasses = priorityClasses;
+	}
+	
+	
+	/**
+	 * Set whether realization should be carried out on an ABox summary (see {@link AboxSummarizer}), and refined 
+	 * on the full ontology only where the summary is inconclusive
+	 * @param summarize	true if the ABox should be summarized, false otherwise
+	 */
+	public void setAboxSummarization(boolean summarize) {
+		this.summarize = summarize;
+	}
+	
+	
+	/**
+	 * Set whether classification should attribute its time to the classes of the ontology (see {@link ClassCostAttributor}):
+	 * each class is tested for satisfiability on its own before the class hierarchy is computed, the test is timed, less 
+	 * any bulk reasoner task it triggers, and the time of each class is printed as it would be by a glass-box reasoner. 
+	 * Does not apply to hybrid, parallel or per-class budget classification
+	 * @param costAttribution	true if classification time should be attributed to classes, false otherwise
+	 */
+	public void setCostAttribution(boolean costAttribution) {
+		this.costAttribution = costAttribution;
+	}
+	
+	
+	/**
+	 * Set whether serialized classification results should be written as a binary taxonomy file (see {@link TaxonomyWriter})
+	 * rather than OWL/XML
+	 * @param binaryOutput	true if results should be written in binary form, false otherwise
+	 */
+	public void setBinaryOutput(boolean binaryOutput) {
+		this.binaryOutput = binaryOutput;
+	}
+	
+	
 	/**
 	 * Classify ontology
 	 * @return Classification results
 	 * @throws IOException 
 	 */
 	public ClassifierResult classify() {
-		Set<OWLAxiom> results = new HashSet<OWLAxiom>();
-		Set<OWLClass> unsat = new HashSet<OWLClass>();
+		if(hybrid) return classifyHybrid();
+		SubsumptionCollector collector = new SubsumptionCollector(ont.getOWLOntologyManager().getOWLDataFactory());
+		ClassifierResult r = classify(collector);
+		ClassifierResult result = new ClassifierResult(collector.getAxioms(), r.getReasoningTaskTime(), r.getUnsatisfiableClasses(), 
+				r.getErrorMessage(), r.isConsistent());
+		if(r.isPartial()) {
+			result.setUnprocessedClasses(r.getUnprocessedClasses(), r.getCoverage());
+			result.setUnresolvedClasses(r.getUnresolvedClasses());
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Classify ontology, pushing each atomic subsumption through a pipeline as soon as it is generated: trivial 
+	 * (and, if so set, asserted) subsumptions are dropped, the rest are counted and then passed on to the given handler. 
+	 * The time spent in the pipeline is not included in the classification time
+	 * @param handler	Pipeline stage that receives the (filtered) subsumptions
+	 * @return Classification results, holding only the number of entailments and the unsatisfiable classes
+	 */
+	public ClassifierResult classify(SubsumptionHandler handler) {
+		SubsumptionCounter counter = new SubsumptionCounter(handler);
+		SubsumptionHandler pipeline = new SubsumptionFilter(ont, includeAsserted, counter);
+		currentPipeline = pipeline;
+		pipelineFinished = false;
+		if(hybrid) {
+			ClassifierResult r = classifyHybrid();
+			push(r.getEntailments(), pipeline);
+			pipeline.finish();
+			return new ClassifierResult(getNumberOfSubsumptions(counter, handler), r.getReasoningTaskTime(), r.getUnsatisfiableClasses(), 
+					r.getErrorMessage(), r.isConsistent());
+		}
 		String errorMsg = "";
 		boolean isConsistent = true;
 		long start = bean.getCurrentThreadCpuTime(); 
-		double creationTime = 0;	
+		double creationTime = 0, outputTime = 0;
+		ParallelClassifier pc = null;
 		try {
-			OWLReasoner reasoner = createReasoner();
-			creationTime = (bean.getCurrentThreadCpuTime()-start)/1000000000.0;
-			System.out.println("\tReasoner creation time: " + creationTime + " seconds");
-			
-			if(reasoner != null) {
+			if(nrThreads > 1 || classBudget > 0) {
+				if(costAttribution) System.out.println("\tCost attribution is not supported for parallel or per-class budget classification");
 				if(verbose) System.out.print(" Classifying ontology... ");
-				start = bean.getCurrentThreadCpuTime();
-				if(reasonerName.equalsIgnoreCase("elk")) reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
-
-				CustomInferredSubClassAxiomGenerator subs = new CustomInferredSubClassAxiomGenerator(directOnly);
-				results.addAll(subs.createAxioms(ont.getOWLOntologyManager(), reasoner));
+				pc = new ParallelClassifier(ont, reasonerName, nrThreads, verbose);
+				pc.setPriorityClasses(priorityClasses);
+				pc.setClassBudget(classBudget);
+				if(anytime || classBudget > 0) {
+					if(directOnly) System.out.println("\tAll (not only direct) subsumptions are returned in parallel anytime or per-class budget mode");
+					currentClassifier = pc;
+					try {
+						pc.classify(pipeline);
+					} finally {
+						cancelGracePeriod();
+					}
+				}
+				else {
+					Set<OWLAxiom> results = pc.classify();
+					if(directOnly) results = CustomInferredSubClassAxiomGenerator.getTransitiveReduction(results);
+					push(results, pipeline);
+				}
+			}
+			else {
+				ClassCostAttributor attributor = (costAttribution ? new ClassCostAttributor(System.out) : null);
+				OWLReasoner reasoner = (attributor != null ? 
+						new ReasonerLoader(reasonerName, ont, verbose).getReasoner(new SimpleConfiguration(attributor)) : createReasoner());
+				creationTime = (bean.getCurrentThreadCpuTime()-start)/1000000000.0;
+				System.out.println("\tReasoner creation time: " + creationTime + " seconds");
+				
+				if(reasoner != null) {
+					if(attributor != null) System.out.println(" Classifying ontology (attributing time to classes)... ");
+					else if(verbose) System.out.print(" Classifying ontology... ");
+					start = bean.getCurrentThreadCpuTime();
+					if(reasonerName.equalsIgnoreCase("elk")) reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+					if(anytime) currentReasoner = reasoner;
+					try {
+						outputTime = pushSubsumptions(reasoner, pipeline, attributor);
+					} finally {
+						if(anytime) cancelGracePeriod();
+					}
+					if(attributor != null && verbose) 
+						System.out.println("\tTime not attributed to classes: " + attributor.getBulkTaskTime() + " seconds (" + 
+								attributor.getNumberOfReasonerTasks() + " reasoner tasks)");
+				}
 			}
 		}
+
 		catch(InconsistentOntologyException e) {
 			isConsistent = false;
 			System.out.println("\n\tInconsistent ontology");
@@ -207,9 +374,13 @@ public class EntailmentGenerator {
 			System.out.println("\n\tERROR\t" + errorMsg);
 			e.printStackTrace();
 		}
+		finishPipeline();
+		currentClassifier = null;
+		currentReasoner = null;
 		
 		long end = bean.getCurrentThreadCpuTime();
-		double total = (end-start)/1000000000.0;
+		double total = (end-start)/1000000000.0 - outputTime;
+		if(pc != null) total = pc.getClassificationTime();
 		
 		if(verbose && errorMsg.equals("")) System.out.println(" done\n\tClassification time: " + total + " seconds");
 		else if(verbose) System.out.println(" done\n\tElapsed time: " + total + " seconds"); 
@@ -219,22 +390,193 @@ public class EntailmentGenerator {
 			else s.appendToCsv("Reasoner Creation Time", creationTime + "");
 		}
 		
+		int nrEntailments = getNumberOfSubsumptions(counter, handler);
+		Set<OWLClass> unsat = counter.getUnsatisfiableClasses();
 		if(!isConsistent) {
-			unsat = ont.getClassesInSignature();
+			if(nrEntailments == 0) unsat = ont.getClassesInSignature();
 			if(verbose) System.out.println("Ontology is inconsistent");
 		}
 		
-		if(!results.isEmpty()) {
-			results = pruneClassificationResults(results);
-			unsat = getUnsatisfiableClasses(results);
-		}
-		
-		if(verbose && isConsistent) System.out.println("\tNr. Entailments: " + results.size());
+		if(verbose && isConsistent) System.out.println("\tNr. Entailments: " + nrEntailments);
 		if(verbose) System.out.println("\tNr. Unsatisfiable Classes: " + unsat.size());
 		
 		errorMsg = errorMsg.replaceAll(",", ";");
 		
-		return new ClassifierResult(results, total, unsat, errorMsg, isConsistent);
+		ClassifierResult r = new ClassifierResult(nrEntailments, total, unsat, errorMsg, isConsistent);
+		if(pc == null && stopRequested) {
+			List<OWLClass> unprocessed = getUnprocessedClasses();
+			int nrClasses = classOrder.size(), nrProcessed = nrClasses - unprocessed.size();
+			r.setUnprocessedClasses(unprocessed, nrProcessed/(double)nrClasses);
+			if(verbose) System.out.println("\tPartial classification: " + nrProcessed + " of " + nrClasses + 
+					" classes processed (coverage: " + r.getCoverage() + ")");
+		}
+		if(pc != null) {
+			List<OWLClass> unprocessed = pc.getUnprocessedClasses(), unresolved = pc.getUnresolvedClasses();
+			if(!unprocessed.isEmpty() || !unresolved.isEmpty()) {
+				int nrClasses = pc.getNumberOfClasses();
+				int nrProcessed = nrClasses - unprocessed.size() - unresolved.size();
+				r.setUnprocessedClasses(unprocessed, nrProcessed/(double)nrClasses);
+				r.setUnresolvedClasses(unresolved);
+				if(verbose) System.out.println("\tPartial classification: " + nrProcessed + " of " + nrClasses + 
+						" classes processed (coverage: " + r.getCoverage() + ")");
+			}
+			if(verbose && classBudget > 0) {
+				System.out.println("\tNr. Unresolved Classes: " + unresolved.size());
+				for(OWLClass c : unresolved)
+					System.out.println("\tUnresolved: " + c.getIRI());
+			}
+		}
+		return r;
+	}
+	
+	
+	/**
+	 * Push the subsumptions of each class in the ontology (and its imports) into the pipeline, class by class (priority 
+	 * classes first), until done or stopped. If an attributor is given, each class is first tested for satisfiability on 
+	 * its own, and the time of the test is attributed to it (and printed, followed by the total once all classes are 
+	 * done): reasoners such as HermiT, FaCT++ and Pellet compute the whole class hierarchy in one bulk task on the first 
+	 * request for superclasses, whose time cannot be told apart by class
+	 * @param reasoner	OWL reasoner
+	 * @param pipeline	Pipeline
+	 * @param attributor	Class cost attributor monitoring the reasoner, or null
+	 * @return Time spent in the pipeline and in printing attributed times (in seconds)
+	 */
+	private double pushSubsumptions(OWLReasoner reasoner, SubsumptionHandler pipeline, ClassCostAttributor attributor) {
+		OWLClass nothing = ont.getOWLOntologyManager().getOWLDataFactory().getOWLNothing();
+		List<OWLClass> sups = new ArrayList<OWLClass>();
+		long outputTime = 0;
+		classOrder = getClassOrder();
+		nrClassesDone = 0;
+		if(attributor != null) {
+			try {
+				reasoner.isConsistent(); // Not attributed to the first class
+				for(OWLClass c : classOrder) {
+					if(stopRequested) break;
+					attributor.startClass();
+					reasoner.isSatisfiable(c);
+					long start = bean.getCurrentThreadCpuTime();
+					attributor.endClass(c);
+					outputTime += bean.getCurrentThreadCpuTime()-start;
+				}
+			} catch(RuntimeException e) {
+				if(!stopRequested) throw e; // Otherwise interrupted
+			}
+			System.out.println("SAT testing time: " + attributor.getAttributedTime() + " seconds");
+		}
+		for(OWLClass c : classOrder) {
+			if(stopRequested) break;
+			sups.clear();
+			try {
+				if(reasoner.isSatisfiable(c))
+					sups.addAll(reasoner.getSuperClasses(c, directOnly).getFlattened());
+				else
+					sups.add(nothing);
+			} catch(RuntimeException e) {
+				if(stopRequested) break; // Interrupted
+				throw e;
+			}
+			
+			long start = bean.getCurrentThreadCpuTime();
+			for(OWLClass sup : sups)
+				pipeline.handle(c, sup);
+			nrClassesDone++;
+			outputTime += bean.getCurrentThreadCpuTime()-start;
+		}
+		return outputTime/1000000000.0;
+	}
+	
+	
+	/**
+	 * Get the number of subsumptions pushed through a finished pipeline: as written to a binary taxonomy file, if the 
+	 * pipeline ends in one, since a subsumption pushed more than once is only written (and counted) once; otherwise as 
+	 * seen by the counter
+	 * @param counter	Pipeline stage that counts subsumptions
+	 * @param handler	Pipeline stage that received the subsumptions from the counter
+	 * @return Number of subsumptions
+	 */
+	private int getNumberOfSubsumptions(SubsumptionCounter counter, SubsumptionHandler handler) {
+		if(handler instanceof TaxonomyWriter) return ((TaxonomyWriter)handler).getNumberOfSubsumptions();
+		return counter.getNumberOfSubsumptions();
+	}
+	
+	
+	/**
+	 * Get the classes in the ontology (and its imports) in classification order: priority classes first, then the rest. 
+	 * owl:Thing and owl:Nothing are left out, as their subsumptions are all trivial
+	 * @return List of classes
+	 */
+	private List<OWLClass> getClassOrder() {
+		Set<OWLClass> classes = ont.getClassesInSignature(true);
+		Set<OWLClass> added = new HashSet<OWLClass>();
+		List<OWLClass> order = new ArrayList<OWLClass>();
+		for(OWLClass c : priorityClasses) {
+			if(classes.contains(c) && added.add(c)) order.add(c);
+		}
+		for(OWLClass c : classes) {
+			if(!c.isOWLThing() && !c.isOWLNothing() && added.add(c)) order.add(c);
+		}
+		return order;
+	}
+	
+	
+	/**
+	 * Get the classes not classified (so far) by the current anytime classification
+	 * @return List of unprocessed classes
+	 */
+	private List<OWLClass> getUnprocessedClasses() {
+		ParallelClassifier pc = currentClassifier;
+		if(pc != null) return pc.getUnprocessedClasses();
+		List<OWLClass> order = classOrder;
+		return new ArrayList<OWLClass>(order.subList(Math.min(nrClassesDone, order.size()), order.size()));
+	}
+	
+	
+	/**
+	 * Finish the current pipeline, unless it has already been finished
+	 */
+	private void finishPipeline() {
+		SubsumptionHandler pipeline = currentPipeline;
+		if(pipeline == null) return;
+		synchronized(pipeline) {
+			if(!pipelineFinished) {
+				pipeline.finish();
+				pipelineFinished = true;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Push a set of atomic subsumptions into the pipeline
+	 * @param axioms	Set of axioms
+	 * @param pipeline	Pipeline
+	 */
+	private void push(Set<OWLAxiom> axioms, SubsumptionHandler pipeline) {
+		if(axioms == null) return;
+		for(OWLAxiom ax : axioms) {
+			if(!ax.isOfType(AxiomType.SUBCLASS_OF)) continue;
+			OWLSubClassOfAxiom subAx = (OWLSubClassOfAxiom)ax;
+			if(!subAx.getSubClass().isAnonymous() && !subAx.getSuperClass().isAnonymous())
+				pipeline.handle(subAx.getSubClass().asOWLClass(), subAx.getSuperClass().asOWLClass());
+		}
+	}
+	
+	
+	/**
+	 * Classify ontology using an EL reasoner for the EL part of the ontology and the chosen reasoner for the remainder
+	 * @return Classification results
+	 */
+	private ClassifierResult classifyHybrid() {
+		if(verbose) System.out.println(" Classifying ontology (hybrid)... ");
+		ClassifierResult r = new HybridClassifier(ont, reasonerName, includeAsserted, directOnly, verbose).classify();
+		if(s != null) s.appendToCsv("Reasoner Creation Time", r.getReasoningTaskTime() + "");
+		
+		if(verbose && r.getErrorMessage().equals("")) System.out.println("\tClassification time: " + r.getReasoningTaskTime() + " seconds");
+		else if(verbose) System.out.println("\tElapsed time: " + r.getReasoningTaskTime() + " seconds");
+		if(verbose && !r.isConsistent()) System.out.println("Ontology is inconsistent");
+		if(verbose && r.isConsistent()) System.out.println("\tNr. Entailments: " + r.getNumberOfEntailments());
+		if(verbose) System.out.println("\tNr. Unsatisfiable Classes: " + r.getNumberOfUnsatisfiableClasses());
+		return r;
 	}
 	
 	
@@ -244,32 +586,37 @@ public class EntailmentGenerator {
 	 * @return Classification results
 	 */	
 	public ClassifierResult classify(long timeout) {
-		if(timeout != 0) {
-			Timer t = new Timer(true);
-			t.schedule(interrupt, timeout);
-		}
+		scheduleTimeout(timeout);
 		return classify();
 	}
 	
 	
 	/**
-	 * Given a set of entailments, retrieve those unsatisfiable classes
-	 * @param entailments	Set of entailments
-	 * @return Set of unsatisfiable classes
+	 * Classify ontology with a timeout, pushing subsumptions to the given handler
+	 * @param timeout	Timeout for classification (in milliseconds)
+	 * @param handler	Pipeline stage that receives the (filtered) subsumptions
+	 * @return Classification results
+	 */	
+	public ClassifierResult classify(long timeout, SubsumptionHandler handler) {
+		scheduleTimeout(timeout);
+		return classify(handler);
+	}
+	
+	
+	/**
+	 * Schedule the classification timeout: in anytime mode classification is stopped (see {@link #setAnytime(boolean)}),
+	 * otherwise the process is aborted
+	 * @param timeout	Timeout for classification (in milliseconds)
 	 */
-	private Set<OWLClass> getUnsatisfiableClasses(Set<OWLAxiom> entailments) {
-		Set<OWLClass> unsat = new HashSet<OWLClass>();
-		for(OWLAxiom ax : entailments) {
-			if(ax.isOfType(AxiomType.SUBCLASS_OF)) {
-				OWLSubClassOfAxiom subAx = (OWLSubClassOfAxiom)ax;
-				if(subAx.getSuperClass().isOWLNothing()) {
-					OWLClassExpression sub = subAx.getSubClass();
-					if(!sub.isAnonymous())
-						unsat.add(sub.asOWLClass());
-				}
-			}
+	private void scheduleTimeout(long timeout) {
+		if(timeout == 0) return;
+		Timer t = new Timer(true);
+		if(anytime && !hybrid)
+			t.schedule(stopTrigger, timeout);
+		else {
+			if(anytime) System.out.println("\tAnytime mode is not supported for hybrid classification");
+			t.schedule(interrupt, timeout);
 		}
-		return unsat;
 	}
 	
 	
@@ -284,13 +631,30 @@ public class EntailmentGenerator {
 		boolean isConsistent = true;
 		
 		long start = 0;
+		double summaryTime = 0;
+		ParallelRealizer pr = null;
 		try {
-			OWLReasoner reasoner = createReasoner();
-			if(reasonerName.equalsIgnoreCase("elk")) reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
-			
-			start = bean.getCurrentThreadCpuTime();
-			InferredClassAssertionAxiomGenerator gen = new InferredClassAssertionAxiomGenerator();
-			results = new HashSet<OWLAxiom>(gen.createAxioms(ont.getOWLOntologyManager(), reasoner));
+			if(summarize) {
+				start = bean.getCurrentThreadCpuTime();
+				AboxSummarizer summarizer = new AboxSummarizer(ont, reasonerName, verbose);
+				if(summarizer.isApplicable()) results = summarizer.realize();
+				else if(verbose) System.out.println("\tAbox cannot be summarized: it has nominals, same, different or negative " +
+						"assertions, anonymous individuals, keys or rules");
+				summarizer.dispose();
+				if(results == null) summaryTime = (bean.getCurrentThreadCpuTime()-start)/1000000000.0;
+			}
+			if(results == null && nrThreads > 1) {
+				pr = new ParallelRealizer(ont, reasonerName, nrThreads, verbose);
+				results = pr.realize();
+			}
+			else if(results == null) {
+				OWLReasoner reasoner = createReasoner();
+				if(reasonerName.equalsIgnoreCase("elk")) reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+
+				start = bean.getCurrentThreadCpuTime();
+				InferredClassAssertionAxiomGenerator gen = new InferredClassAssertionAxiomGenerator();
+				results = new HashSet<OWLAxiom>(gen.createAxioms(ont.getOWLOntologyManager(), reasoner));
+			}
 			
 //			InferredPropertyAssertionGenerator pGen = new InferredPropertyAssertionGenerator();
 //			results.addAll(pGen.createAxioms(ont.getOWLOntologyManager(), reasoner));
@@ -312,7 +676,8 @@ public class EntailmentGenerator {
 		}
 		
 		long end = bean.getCurrentThreadCpuTime();
-		double total = (end-start)/1000000000.0;
+		double total = (end-start)/1000000000.0 + summaryTime;
+		if(pr != null) total = pr.getRealizationTime() + summaryTime;
 		
 		if(results != null) {
 			if(!results.isEmpty())
@@ -356,48 +721,22 @@ public class EntailmentGenerator {
 	}
 	
 	
-	/**
-	 * Remove superfluous (A => Top, Bot => B) and asserted axioms
-	 * @param axioms	Set of inferred axioms to remove asserted ones from
-	 * @return Pruned set of inferences
-	 */
-	private Set<OWLAxiom> pruneClassificationResults(Set<OWLAxiom> axioms) {
-		Set<OWLAxiom> toRemove = new HashSet<OWLAxiom>();
-		for(OWLAxiom ax : axioms) {
-			if(ax instanceof OWLSubClassOfAxiom) {
-				OWLSubClassOfAxiom subAx = (OWLSubClassOfAxiom)ax; 
-				if(subAx.getSuperClass().isOWLThing() || subAx.getSubClass().isOWLNothing() || (!includeAsserted && ont.containsAxiom(ax)))
-					toRemove.add(ax);
-			}
-			else if(ax instanceof OWLSubObjectPropertyOfAxiom) {
-				OWLSubObjectPropertyOfAxiom subAx = (OWLSubObjectPropertyOfAxiom)ax;
-				if(subAx.getSuperProperty().isOWLTopObjectProperty() || subAx.getSubProperty().isOWLBottomObjectProperty() || 
-						(!includeAsserted && ont.containsAxiom(ax)))
-					toRemove.add(ax);
-			}
-			else if(ax instanceof OWLSubDataPropertyOfAxiom) {
-				OWLSubDataPropertyOfAxiom subAx = (OWLSubDataPropertyOfAxiom)ax;
-				if(subAx.getSuperProperty().isOWLTopDataProperty() || subAx.getSubProperty().isOWLBottomDataProperty() ||
-						(!includeAsserted && ont.containsAxiom(ax)))
-					toRemove.add(ax);
-			}
-			else if(!includeAsserted && ont.containsAxiom(ax))
-				toRemove.add(ax);
-		}
-		axioms.removeAll(toRemove);
-		return axioms;
-	}
-	
-	
 	/**
 	 * Benchmark classification on the given ontology-reasoner pair
 	 * @param timeout	Timeout in milliseconds
 	 * @throws IOException
 	 */
 	public void benchmarkAndSerializeClassificationResults(long timeout) throws IOException {
+		SubsumptionWriter owlWriter = null;
+		TaxonomyWriter binWriter = null;
+		SubsumptionHandler writer = null;
+		if(binaryOutput) 
+			writer = binWriter = new TaxonomyWriter(rs.getBinaryClassificationOutputPath(), ont.getClassesInSignature(true), null);
+		else 
+			writer = owlWriter = new SubsumptionWriter(rs.getClassificationOutputPath(), null);
 		ClassifierResult r = null;
-		if(timeout != 0) r = classify(timeout);
-		else r = classify();
+		if(timeout != 0) r = classify(timeout, writer);
+		else r = classify(writer);
 		
 		if(r != null) {
 			if(r.getErrorMessage() == "") {
@@ -407,19 +746,33 @@ public class EntailmentGenerator {
 				else s.appendToCsv("Nr. Entailments", "Inconsistent");
 
 				s.appendToCsv("Nr. Unsat Classes", r.getNumberOfUnsatisfiableClasses() + "");
+				if(anytime) s.appendToCsv("Coverage", r.getCoverage() + "");
+				if(classBudget > 0) s.appendToCsv("Nr. Unresolved Classes", r.getUnresolvedClasses().size() + "");
 			}
 			else {
 				s.appendToCsv("Classification Time"," ");
 				s.appendToCsv("Nr. Entailments"," ");
 				s.appendToCsv("Nr. Unsat Classes"," ");
+				if(anytime) s.appendToCsv("Coverage"," ");
+				if(classBudget > 0) s.appendToCsv("Nr. Unresolved Classes"," ");
 			}
 			s.appendToCsv("Error", r.getErrorMessage());
 		}
 		s.finalize();
 
-		if(r.getEntailments() != null && !r.getEntailments().isEmpty()) {
-			String outFileName = rs.serialize(r);
-			if(verbose) System.out.println("Classification results saved to: " + outFileName);
+		boolean wroteOutput = (binaryOutput ? binWriter.wroteOutput() : owlWriter.wroteOutput());
+		String outFileName = (binaryOutput ? binWriter.getFilePath() : owlWriter.getFilePath());
+		if(wroteOutput) {
+			if(r.getErrorMessage().equals("")) {
+				if(verbose) System.out.println("Classification results saved to: " + outFileName);
+			}
+			else new File(outFileName).delete(); // Partial results
+		}
+		if(r != null && r.isPartial()) {
+			List<OWLClass> unclassifiedClasses = new ArrayList<OWLClass>(r.getUnresolvedClasses());
+			unclassifiedClasses.addAll(r.getUnprocessedClasses());
+			String unclassified = rs.serializeUnclassifiedClasses(unclassifiedClasses);
+			if(verbose) System.out.println("Unclassified classes saved to: " + unclassified);
 		}
 		
 		System.out.println("Done benchmarking");
@@ -452,6 +805,58 @@ public class EntailmentGenerator {
 	}
 	
 	
+	/**
+	 * Anytime stop trigger: stops classification (between classes), interrupting the reasoners if they support it. If 
+	 * classification has not stopped after a grace period, the results so far are saved and the process is aborted
+	 */
+	private TimerTask stopTrigger = new TimerTask() {
+		@Override
+		public void run() {
+			System.out.println("\n\tTimeout: stopping classification");
+			ParallelClassifier pc = currentClassifier;
+			OWLReasoner reasoner = currentReasoner;
+			if(pc == null && reasoner == null) {
+				interrupt.run(); // Still creating the reasoner
+				return;
+			}
+			stopRequested = true;
+			if(pc != null) pc.stop();
+			else {
+				try {
+					reasoner.interrupt();
+				} catch(RuntimeException e) {
+					e.printStackTrace();
+				}
+			}
+			synchronized(EntailmentGenerator.this) {
+				graceTimer = new Timer(true);
+				graceTimer.schedule(new TimerTask() {
+					@Override
+					public void run() {
+						synchronized(EntailmentGenerator.this) {
+							if(graceTimer == null) return; // Classification stopped in time
+							finishPipeline();
+							if(rs != null) rs.serializeUnclassifiedClasses(getUnprocessedClasses());
+							interrupt.run();
+						}
+					}
+				}, GRACE_PERIOD);
+			}
+		}
+	};
+	
+	
+	/**
+	 * Cancel the grace period started by the anytime stop trigger, if any, once classification has stopped
+	 */
+	private synchronized void cancelGracePeriod() {
+		if(graceTimer != null) {
+			graceTimer.cancel();
+			graceTimer = null;
+		}
+	}
+	
+	
 	/**
 	 * Interrupt trigger	
 	 */
@@ -468,6 +873,26 @@ public class EntailmentGenerator {
 	};
 	
 
+	/**
+	 * Load a list of classes from a file with one class IRI per line
+	 * @param file	File
+	 * @return List of classes
+	 * @throws IOException
+	 */
+	public static List<OWLClass> loadClassList(File file) throws IOException {
+		OWLDataFactory df = OWLManager.getOWLDataFactory();
+		List<OWLClass> classes = new ArrayList<OWLClass>();
+		BufferedReader br = new BufferedReader(new FileReader(file));
+		String line;
+		while((line = br.readLine()) != null) {
+			line = line.trim();
+			if(!line.isEmpty()) classes.add(df.getOWLClass(IRI.create(line)));
+		}
+		br.close();
+		return classes;
+	}
+	
+
 	/**
 	 * main
 	 * @throws OWLOntologyCreationException 
@@ -475,9 +900,11 @@ public class EntailmentGenerator {
 	 */
 	public static void main(String[] args) throws OWLOntologyCreationException, IOException {
 		System.out.println("Executing Entailment Generator...");
-		String ontFile = null, reasonerName = null, outputDir = null;
-		boolean verbose = false, classification = false, realization = false, includeAsserted = true, directOnly = false, ignoreAbox = false;
-		long timeout = 0;
+		String ontFile = null, reasonerName = null, outputDir = null, priorityFile = null;
+		boolean verbose = false, classification = false, realization = false, includeAsserted = true, directOnly = false, ignoreAbox = false,
+				hybrid = false, binaryOutput = false, summarize = false, anytime = false, costAttribution = false;
+		long timeout = 0, classBudget = 0;
+		int nrThreads = 1;
 		
 		for (int i = 0; i < args.length; i++) {
 			String arg = args[i].trim();
@@ -491,18 +918,41 @@ public class EntailmentGenerator {
 			if(arg.equalsIgnoreCase("-d"))			directOnly = true;
 			if(arg.equalsIgnoreCase("-v"))			verbose = true;
 			if(arg.equalsIgnoreCase("-b"))			ignoreAbox = true;
+			if(arg.equalsIgnoreCase("-hy"))			hybrid = true;
+			if(arg.equalsIgnoreCase("-bin"))		binaryOutput = true;
+			if(arg.equalsIgnoreCase("-j"))			nrThreads = Integer.parseInt(args[++i].trim());
+			if(arg.equalsIgnoreCase("-sum"))		summarize = true;
+			if(arg.equalsIgnoreCase("-any"))		anytime = true;
+			if(arg.equalsIgnoreCase("-pri"))		priorityFile = args[++i].trim();
+			if(arg.equalsIgnoreCase("-cb"))			classBudget = Long.parseLong(args[++i].trim());
+			if(arg.equalsIgnoreCase("-ca"))			costAttribution = true;
 		}
 		
 		if(ontFile != null && reasonerName != null) {
 			if(outputDir != null) {
 				EntailmentGenerator gen = new EntailmentGenerator(new File(ontFile), reasonerName, outputDir, 
 						includeAsserted, directOnly, ignoreAbox, verbose);
+				gen.setHybridClassification(hybrid);
+				gen.setNumberOfThreads(nrThreads);
+				gen.setBinaryOutput(binaryOutput);
+				gen.setAboxSummarization(summarize);
+				gen.setAnytime(anytime);
+				gen.setClassBudget(classBudget);
+				gen.setCostAttribution(costAttribution);
+				if(priorityFile != null) gen.setPriorityClasses(loadClassList(new File(priorityFile)));
 				if(classification)	gen.benchmarkAndSerializeClassificationResults(timeout);
 				if(realization)		gen.benchmarkAndSerializeRealizationResults(timeout);
 			}
 			else {
 				EntailmentGenerator gen = new EntailmentGenerator(new OntologyLoader(new File(ontFile), verbose).loadOntology(ignoreAbox), 
 						reasonerName, includeAsserted, directOnly, ignoreAbox, verbose);
+				gen.setHybridClassification(hybrid);
+				gen.setNumberOfThreads(nrThreads);
+				gen.setAboxSummarization(summarize);
+				gen.setAnytime(anytime);
+				gen.setClassBudget(classBudget);
+				gen.setCostAttribution(costAttribution);
+				if(priorityFile != null) gen.setPriorityClasses(loadClassList(new File(priorityFile)));
 				if(classification)	gen.classify(timeout);
 				if(realization)		gen.realize(timeout);
 			}
@@ -33,6 +33,7 @@ public class EntailmentGeneratorResult {
 	private double time;
 	private String errorMsg;
 	private boolean isConsistent, timedOut = false;
+	private int nrEntailments;
 	
 	/**
 	 * Constructor
@@ -74,6 +75,30 @@ public class EntailmentGeneratorResult {
 	}
 	
 	
+	/**
+	 * Constructor 3, for results that only record the number of entailments
+	 * @param nrEntailments	Number of entailments
+	 * @param time	Task time
+	 * @param errorMsg	Error message (if applicable)
+	 * @param isConsistent	true if ontology is consistent
+	 */
+	public EntailmentGeneratorResult(int nrEntailments, double time, String errorMsg, boolean isConsistent) {
+		this.nrEntailments = nrEntailments;
+		this.time = time;
+		this.errorMsg = errorMsg;
+		this.isConsistent = isConsistent;
+	}
+	
+	
+	/**
+	 * Set the set of entailments, for subclasses that produce them on demand
+	 * @param results	Inferred axioms
+	 */
+	protected void setEntailments(Set<OWLAxiom> results) {
+		this.results = results;
+	}
+	
+	
 	/**
 	 * Get the time elapsed executing the task 
 	 * @return Reasoning task time
@@ -88,6 +113,7 @@ public class EntailmentGeneratorResult {
 	 * @return Number of entailments
 	 */
 	public int getNumberOfEntailments() {
+		if(results == null) return nrEntailments;
 		return results.size();
 	}
 	
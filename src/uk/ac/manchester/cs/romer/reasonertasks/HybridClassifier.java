@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLNaryBooleanClassExpression;
+import org.semanticweb.owlapi.model.OWLObjectCardinalityRestriction;
+import org.semanticweb.owlapi.model.OWLObjectPropertyDomainAxiom;
+import org.semanticweb.owlapi.model.OWLObjectPropertyRangeAxiom;
+import org.semanticweb.owlapi.model.OWLObjectSomeValuesFrom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLDataPropertyDomainAxiom;
+import org.semanticweb.owlapi.model.OWLDataPropertyRangeAxiom;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+import org.semanticweb.owlapi.model.OWLSubObjectPropertyOfAxiom;
+import org.semanticweb.owlapi.model.OWLSubDataPropertyOfAxiom;
+
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+import uk.ac.manchester.cs.owlapi.modularity.SyntacticLocalityModuleExtractor;
+import uk.ac.manchester.cs.romer.approximation.ELApproximation;
+
+import com.clarkparsia.owlapi.modularity.locality.LocalityClass;
+import com.clarkparsia.owlapi.modularity.locality.SyntacticLocalityEvaluator;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * <code>HybridClassifier</code> classifies an ontology in the style of MORe: the classes whose bottom-module is within
+ * OWL 2 EL are classified by TrOWL's EL reasoner, and the remaining classes are classified by the given (OWL 2 DL) reasoner
+ * over their own bottom-module. Since a bottom-module for a signature preserves all subsumptions with a subclass in that
+ * signature, the union of both class hierarchies is sound and complete w.r.t. atomic subsumptions.
+ * </p>
+ */
+public class HybridClassifier {
+	public static final String EL_REASONER = "trowl-el";
+	private OWLOntology ont;
+	private OWLOntologyManager man;
+	private OWLDataFactory df;
+	private String reasonerName;
+	private ThreadMXBean bean;
+	private SyntacticLocalityEvaluator evaluator;
+	private Set<OWLClass> elSignature;
+	private boolean includeAsserted, directOnly, verbose;
+
+	/**
+	 * Constructor
+	 * @param ont	OWLOntology
+	 * @param reasonerName	Name of the (OWL 2 DL) reasoner used for the non-EL part
+	 * @param includeAsserted	Include asserted subsumptions in the results
+	 * @param directOnly	Return only direct subsumptions
+	 * @param verbose	Verbose mode
+	 */
+	public HybridClassifier(OWLOntology ont, String reasonerName, boolean includeAsserted, boolean directOnly, boolean verbose) {
+		this.ont = ont;
+		this.reasonerName = reasonerName;
+		this.includeAsserted = includeAsserted;
+		this.directOnly = directOnly;
+		this.verbose = verbose;
+		this.man = ont.getOWLOntologyManager();
+		this.df = man.getOWLDataFactory();
+		this.bean = ManagementFactory.getThreadMXBean();
+		this.evaluator = new SyntacticLocalityEvaluator(LocalityClass.BOTTOM_BOTTOM);
+	}
+
+
+	/**
+	 * Classify the ontology by splitting it into an EL module and a DL module
+	 * @return Classification results
+	 */
+	public ClassifierResult classify() {
+		long start = bean.getCurrentThreadCpuTime();
+		Set<OWLClass> classes = ont.getClassesInSignature();
+		classes.remove(df.getOWLThing());
+		classes.remove(df.getOWLNothing());
+
+		Set<OWLClass> elSig = getELSignature();
+		Set<OWLClass> dlSig = new HashSet<OWLClass>(classes);
+		dlSig.removeAll(elSig);
+
+		SyntacticLocalityModuleExtractor extractor = new SyntacticLocalityModuleExtractor(man, ont, ModuleType.BOT);
+		Set<OWLAxiom> elModule = (elSig.isEmpty() ? new HashSet<OWLAxiom>() : extractor.extract(new HashSet<OWLEntity>(elSig)));
+		Set<OWLAxiom> dlModule = (dlSig.isEmpty() ? new HashSet<OWLAxiom>() : extractor.extract(new HashSet<OWLEntity>(dlSig)));
+		double prepTime = (bean.getCurrentThreadCpuTime()-start)/1000000000.0;
+
+		if(verbose) System.out.println("\tHybrid split: " + elSig.size() + " classes (" + elModule.size() + " axioms) to " + EL_REASONER +
+				", " + dlSig.size() + " classes (" + dlModule.size() + " axioms) to " + reasonerName + " (split time: " + prepTime + " seconds)");
+
+		ClassifierResult elResult = null, dlResult = null;
+		if(!elModule.isEmpty()) elResult = classifyModule(elModule, EL_REASONER);
+		if(!dlModule.isEmpty()) dlResult = classifyModule(dlModule, reasonerName);
+
+		Set<OWLAxiom> results = new HashSet<OWLAxiom>();
+		String errorMsg = "";
+		boolean isConsistent = true;
+		double total = prepTime;
+		for(ClassifierResult r : new ClassifierResult[]{elResult, dlResult}) {
+			if(r == null) continue;
+			total += r.getReasoningTaskTime();
+			if(r.getEntailments() != null) results.addAll(r.getEntailments());
+			if(!r.isConsistent()) isConsistent = false;
+			if(!r.getErrorMessage().equals("")) errorMsg += (errorMsg.equals("") ? "" : "; ") + r.getErrorMessage();
+		}
+
+		Set<OWLClass> unsat = new HashSet<OWLClass>();
+		if(!isConsistent)
+			unsat = classes;
+		else {
+			if(directOnly) results = CustomInferredSubClassAxiomGenerator.getTransitiveReduction(results);
+			for(OWLAxiom ax : results) {
+				OWLSubClassOfAxiom subAx = (OWLSubClassOfAxiom)ax;
+				if(subAx.getSuperClass().isOWLNothing() && !subAx.getSubClass().isAnonymous())
+					unsat.add(subAx.getSubClass().asOWLClass());
+			}
+		}
+		return new ClassifierResult(results, total, unsat, errorMsg, isConsistent);
+	}
+
+
+	/**
+	 * Get the set of classes whose bottom-module is contained in OWL 2 EL. A class is excluded if it can (syntactically)
+	 * reach a non-EL axiom through the module extraction process, i.e., if there is a chain of axioms, each one made
+	 * non-local by the signature of the previous, from the class to a non-EL axiom
+	 * @return Set of classes to be handled by the EL reasoner
+	 */
+	public Set<OWLClass> getELSignature() {
+		if(elSignature != null) return elSignature;
+		Set<OWLClass> classes = ont.getClassesInSignature();
+		classes.remove(df.getOWLThing());
+		classes.remove(df.getOWLNothing());
+
+		Set<OWLAxiom> nonEL = new HashSet<OWLAxiom>(new ELApproximation(ont).getNonELAxioms());
+		nonEL.retainAll(ont.getLogicalAxioms());
+		if(nonEL.isEmpty()) {
+			elSignature = classes;
+			return elSignature;
+		}
+
+		Set<OWLEntity> empty = Collections.emptySet();
+		Set<OWLEntity> bad = new HashSet<OWLEntity>();
+		LinkedList<OWLEntity> toVisit = new LinkedList<OWLEntity>();
+		for(OWLAxiom ax : nonEL) {
+			if(!evaluator.isLocal(ax, empty)) {
+				elSignature = new HashSet<OWLClass>(); // A non-EL axiom belongs to every module
+				return elSignature;
+			}
+			for(OWLEntity e : getTriggerSignature(ax))
+				if(bad.add(e)) toVisit.add(e);
+		}
+
+		// Propagate backwards: if an axiom can contribute a "bad" symbol to a module, its trigger symbols are bad too
+		Map<OWLAxiom,Set<OWLEntity>> triggers = new HashMap<OWLAxiom,Set<OWLEntity>>();
+		while(!toVisit.isEmpty()) {
+			OWLEntity e = toVisit.removeFirst();
+			for(OWLAxiom ax : ont.getReferencingAxioms(e)) {
+				if(!ax.isLogicalAxiom()) continue;
+				Set<OWLEntity> trigger = triggers.get(ax);
+				if(trigger == null) {
+					if(!evaluator.isLocal(ax, empty)) {
+						elSignature = new HashSet<OWLClass>(); // A global axiom reaches a non-EL axiom
+						return elSignature;
+					}
+					trigger = getTriggerSignature(ax);
+					triggers.put(ax, trigger);
+				}
+				for(OWLEntity t : trigger)
+					if(bad.add(t)) toVisit.add(t);
+			}
+		}
+
+		elSignature = new HashSet<OWLClass>(classes);
+		elSignature.removeAll(bad);
+
+		// Sanity check: the module of the EL signature must be free of non-EL axioms
+		if(!elSignature.isEmpty()) {
+			Set<OWLAxiom> elModule = new SyntacticLocalityModuleExtractor(man, ont, ModuleType.BOT).extract(new HashSet<OWLEntity>(elSignature));
+			for(OWLAxiom ax : elModule) {
+				if(nonEL.contains(ax)) {
+					if(verbose) System.out.println("\tEL signature module contains non-EL axioms; falling back to " + reasonerName);
+					elSignature = new HashSet<OWLClass>();
+					break;
+				}
+			}
+		}
+		return elSignature;
+	}
+
+
+	/**
+	 * Get the symbols of an axiom whose presence in a signature can make that axiom non-bottom-local,
+	 * over-approximated where the axiom's shape is not recognised
+	 * @param ax	Logical axiom
+	 * @return Set of trigger symbols
+	 */
+	private Set<OWLEntity> getTriggerSignature(OWLAxiom ax) {
+		if(ax.isOfType(AxiomType.SUBCLASS_OF)) {
+			OWLClassExpression sub = ((OWLSubClassOfAxiom)ax).getSubClass();
+			if(isPositive(sub)) return sub.getSignature();
+		}
+		else if(ax.isOfType(AxiomType.OBJECT_PROPERTY_DOMAIN))
+			return ((OWLObjectPropertyDomainAxiom)ax).getProperty().getSignature();
+		else if(ax.isOfType(AxiomType.OBJECT_PROPERTY_RANGE))
+			return ((OWLObjectPropertyRangeAxiom)ax).getProperty().getSignature();
+		else if(ax.isOfType(AxiomType.DATA_PROPERTY_DOMAIN))
+			return ((OWLDataPropertyDomainAxiom)ax).getProperty().getSignature();
+		else if(ax.isOfType(AxiomType.DATA_PROPERTY_RANGE))
+			return ((OWLDataPropertyRangeAxiom)ax).getProperty().getSignature();
+		else if(ax.isOfType(AxiomType.SUB_OBJECT_PROPERTY))
+			return ((OWLSubObjectPropertyOfAxiom)ax).getSubProperty().getSignature();
+		else if(ax.isOfType(AxiomType.SUB_DATA_PROPERTY))
+			return ((OWLSubDataPropertyOfAxiom)ax).getSubProperty().getSignature();
+		return ax.getSignature();
+	}
+
+
+	/**
+	 * Check whether a class expression is bottom-equivalent whenever none of its symbols is in the signature
+	 * @param ce	Class expression
+	 * @return true if the expression is built only from positive constructors, false otherwise
+	 */
+	private boolean isPositive(OWLClassExpression ce) {
+		switch(ce.getClassExpressionType()) {
+		case OWL_CLASS:
+			return !ce.isOWLThing();
+		case OBJECT_INTERSECTION_OF:
+		case OBJECT_UNION_OF:
+			for(OWLClassExpression op : ((OWLNaryBooleanClassExpression)ce).getOperands())
+				if(!isPositive(op)) return false;
+			return true;
+		case OBJECT_SOME_VALUES_FROM:
+			return isPositive(((OWLObjectSomeValuesFrom)ce).getFiller());
+		case OBJECT_MIN_CARDINALITY:
+		case OBJECT_EXACT_CARDINALITY:
+			OWLObjectCardinalityRestriction card = (OWLObjectCardinalityRestriction)ce;
+			return card.getCardinality() > 0 && isPositive(card.getFiller());
+		case OBJECT_HAS_VALUE:
+		case OBJECT_HAS_SELF:
+		case DATA_SOME_VALUES_FROM:
+		case DATA_HAS_VALUE:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+
+	/**
+	 * Classify a module with the given reasoner
+	 * @param module	Set of axioms
+	 * @param reasoner	Reasoner name
+	 * @return Classification results
+	 */
+	private ClassifierResult classifyModule(Set<OWLAxiom> module, String reasoner) {
+		OWLOntology modOnt = null;
+		try {
+			modOnt = man.createOntology(module);
+		} catch (OWLOntologyCreationException e) {
+			e.printStackTrace();
+			return null;
+		}
+		EntailmentGenerator gen = new EntailmentGenerator(modOnt, reasoner, includeAsserted, false, false, false);
+		ClassifierResult r = gen.classify();
+		if(verbose) System.out.println("\t" + reasoner + " classification time: " + r.getReasoningTaskTime() + " seconds");
+		man.removeOntology(modOnt);
+		return r;
+	}
+}
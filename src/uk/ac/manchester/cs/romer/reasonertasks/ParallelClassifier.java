@@ -0,0 +1,550 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEquivalentClassesAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+import org.semanticweb.owlapi.reasoner.TimeOutException;
+
+import uk.ac.manchester.cs.romer.ReasonerLoader;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * <code>ParallelClassifier</code> classifies an ontology by distributing the classes over several reasoner instances,
+ * each running on its own thread (and its own copy of the ontology). The subsumers of each class A are found by a
+ * top-down search of the known hierarchy (the told hierarchy, extended with each processed class as a child of its
+ * direct subsumers): starting from its roots, only the children of confirmed subsumers of A are tested, which is
+ * complete since every known superclass of a subsumer of A is a subsumer of A as well. The workers share the partial
+ * class hierarchy, seeded with the told subsumptions, which is used to skip subsumption tests: known subsumers are
+ * taken as given, and a candidate subsumer B of A is discarded without a test when some known subsumer of B is a
+ * known non-subsumer of A. Classes are processed top-down w.r.t. their told depth, so that the subsumers of more
+ * general classes tend to be known by the time more specific classes are tested.
+ * </p><p>
+ * The subsumers of each class are complete as soon as the class is processed, so they can be streamed out one class
+ * at a time, and classification can be stopped at any point (see {@link #stop()}) leaving a partial, but correct,
+ * hierarchy for the processed classes.
+ * </p><p>
+ * Each class can be given a time budget (see {@link #setClassBudget(long)}): a class whose subsumers are not computed 
+ * within its budget is recorded as unresolved, and classification carries on with the remaining classes. Every worker 
+ * owns a copy of the ontology and a reasoner over it, so an expired budget only affects the worker that was testing 
+ * the class: its reasoner is interrupted and replaced by a fresh one, while the other workers keep their reasoners.
+ * </p>
+ */
+public class ParallelClassifier {
+	private OWLOntology ont;
+	private OWLDataFactory df;
+	private String reasonerName;
+	private int nrThreads;
+	private boolean verbose;
+	private List<OWLClass> order, priorityClasses = new ArrayList<OWLClass>();
+	private Map<OWLClass,Set<OWLClass>> subsumers, nonSubsumers, children;
+	private Set<OWLClass> roots;
+	private Set<OWLClass> unsat, processed, unresolved;
+	private List<OWLReasoner> reasoners = Collections.synchronizedList(new ArrayList<OWLReasoner>());
+	private volatile boolean stop = false;
+	private AtomicInteger next;
+	private AtomicLong nrTests, nrPruned;
+	private long classBudget = 0;
+	private ScheduledExecutorService watchdog;
+	private double time;
+
+
+	/**
+	 * Constructor
+	 * @param ont	OWLOntology
+	 * @param reasonerName	Reasoner name
+	 * @param nrThreads	Number of reasoner instances (and threads)
+	 * @param verbose	Verbose mode
+	 */
+	public ParallelClassifier(OWLOntology ont, String reasonerName, int nrThreads, boolean verbose) {
+		this.ont = ont;
+		this.reasonerName = reasonerName;
+		this.nrThreads = nrThreads;
+		this.verbose = verbose;
+		this.df = ont.getOWLOntologyManager().getOWLDataFactory();
+	}
+
+
+	/**
+	 * Set the classes to be processed first (before all others, which are processed in order of told depth)
+	 * @param priorityClasses	List of classes, in order of priority
+	 */
+	public void setPriorityClasses(List<OWLClass> priorityClasses) {
+		this.priorityClasses = priorityClasses;
+	}
+
+
+	/**
+	 * Set the time budget for each class: if the subsumers of a class are not computed within the budget, the 
+	 * class is recorded as unresolved (see {@link #getUnresolvedClasses()}), and the worker that was testing it carries 
+	 * on with a fresh reasoner; the reasoners of the other workers are unaffected. Budgets are only enforced for 
+	 * reasoners that support interruption
+	 * @param classBudget	Time budget per class (in milliseconds), 0 for no budget
+	 */
+	public void setClassBudget(long classBudget) {
+		this.classBudget = classBudget;
+	}
+	
+	
+	/**
+	 * Classify the ontology
+	 * @return Set of atomic subsumptions, in the same form as those produced by {@link CustomInferredSubClassAxiomGenerator}
+	 * with directOnly set to false (i.e., unsatisfiable classes are only reported as subclasses of owl:Nothing), except 
+	 * that the trivial subsumptions of satisfiable classes by owl:Thing are left out
+	 */
+	public Set<OWLAxiom> classify() {
+		SubsumptionCollector collector = new SubsumptionCollector(df);
+		classify(collector);
+		return collector.getAxioms();
+	}
+
+
+	/**
+	 * Classify the ontology, passing the subsumers of each class to the given handler as soon as the class is processed. 
+	 * The handler is called from the worker threads, while holding its lock; it is not finished by this method
+	 * @param handler	Subsumption handler
+	 */
+	public void classify(SubsumptionHandler handler) {
+		long start = System.nanoTime();
+		init();
+
+		List<OWLOntology> copies = new ArrayList<OWLOntology>();
+		for(int i = 0; i < nrThreads; i++) {
+			try {
+				copies.add(OWLManager.createOWLOntologyManager().createOntology(ont.getAxioms()));
+			} catch (OWLOntologyCreationException e) {
+				e.printStackTrace();
+			}
+		}
+
+		if(classBudget > 0) watchdog = Executors.newSingleThreadScheduledExecutor();
+		ExecutorService executor = Executors.newFixedThreadPool(copies.size());
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for(OWLOntology copy : copies)
+			futures.add(executor.submit(new SubsumptionTester(copy, handler)));
+		executor.shutdown();
+
+		try {
+			for(Future<Object> f : futures)
+				f.get();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} catch (ExecutionException e) {
+			executor.shutdownNow();
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+			if(e.getCause() instanceof Error) throw (Error)e.getCause();
+			throw new RuntimeException(e.getCause());
+		} finally {
+			if(watchdog != null) watchdog.shutdownNow();
+		}
+
+		time = (System.nanoTime()-start)/1000000000.0;
+		if(verbose) System.out.println("\tParallel classification: " + nrThreads + " threads, " + nrTests.get() + " subsumption tests, " +
+				nrPruned.get() + " tests pruned by the shared hierarchy");
+		if(verbose && !unresolved.isEmpty()) System.out.println("\t" + unresolved.size() + " classes exceeded their time budget");
+	}
+
+
+	/**
+	 * Stop classification: each worker finishes (or, if its reasoner supports it, is interrupted in) its current
+	 * class, and no further classes are processed
+	 */
+	public void stop() {
+		stop = true;
+		synchronized(reasoners) {
+			for(OWLReasoner reasoner : reasoners) {
+				try {
+					reasoner.interrupt();
+				} catch(RuntimeException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Get the classes that have not been processed (so far), in processing order. Unresolved classes are not included
+	 * @return List of unprocessed classes
+	 */
+	public List<OWLClass> getUnprocessedClasses() {
+		List<OWLClass> result = new ArrayList<OWLClass>();
+		if(order == null) return result;
+		for(OWLClass c : order) {
+			if(!processed.contains(c) && !unresolved.contains(c)) result.add(c);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Get the classes whose subsumers could not be computed within the time budget, in processing order
+	 * @return List of unresolved classes
+	 */
+	public List<OWLClass> getUnresolvedClasses() {
+		List<OWLClass> result = new ArrayList<OWLClass>();
+		if(order == null) return result;
+		for(OWLClass c : order) {
+			if(unresolved.contains(c)) result.add(c);
+		}
+		return result;
+	}
+
+
+	/**
+	 * Get the number of classes to be classified
+	 * @return Number of classes
+	 */
+	public int getNumberOfClasses() {
+		return (order == null ? 0 : order.size());
+	}
+
+
+	/**
+	 * Get the (wall-clock) time taken by the last call to {@link #classify()}
+	 * @return Classification time (in seconds)
+	 */
+	public double getClassificationTime() {
+		return time;
+	}
+
+
+	/**
+	 * Initialise the shared hierarchy with the (transitive closure of the) told subsumptions between atomic classes,
+	 * find the roots of the told hierarchy, and sort the classes by told depth
+	 */
+	private void init() {
+		Set<OWLClass> classes = ont.getClassesInSignature();
+		classes.remove(df.getOWLThing());
+		classes.remove(df.getOWLNothing());
+
+		Map<OWLClass,Set<OWLClass>> told = new HashMap<OWLClass,Set<OWLClass>>();
+		for(OWLClass c : classes)
+			told.put(c, new HashSet<OWLClass>());
+		for(OWLSubClassOfAxiom ax : ont.getAxioms(AxiomType.SUBCLASS_OF)) {
+			if(ax.getSubClass().isAnonymous()) continue;
+			for(OWLClassExpression conj : ax.getSuperClass().asConjunctSet())
+				addTold(told, ax.getSubClass().asOWLClass(), conj);
+		}
+		for(OWLEquivalentClassesAxiom ax : ont.getAxioms(AxiomType.EQUIVALENT_CLASSES)) {
+			for(OWLClass c : ax.getNamedClasses()) {
+				for(OWLClassExpression ce : ax.getClassExpressionsMinus(c))
+					for(OWLClassExpression conj : ce.asConjunctSet())
+						addTold(told, c, conj);
+			}
+		}
+
+		subsumers = new ConcurrentHashMap<OWLClass,Set<OWLClass>>();
+		nonSubsumers = new ConcurrentHashMap<OWLClass,Set<OWLClass>>();
+		final Map<OWLClass,Integer> depth = new HashMap<OWLClass,Integer>();
+		for(OWLClass c : classes) {
+			Set<OWLClass> closure = Collections.newSetFromMap(new ConcurrentHashMap<OWLClass,Boolean>());
+			List<OWLClass> toVisit = new ArrayList<OWLClass>(told.get(c));
+			while(!toVisit.isEmpty()) {
+				OWLClass sup = toVisit.remove(toVisit.size()-1);
+				if(!sup.equals(c) && closure.add(sup)) toVisit.addAll(told.get(sup));
+			}
+			subsumers.put(c, closure);
+			nonSubsumers.put(c, Collections.newSetFromMap(new ConcurrentHashMap<OWLClass,Boolean>()));
+			depth.put(c, closure.size());
+		}
+		
+		// Roots are the classes whose told superclasses are all told equivalents
+		children = new ConcurrentHashMap<OWLClass,Set<OWLClass>>();
+		roots = Collections.newSetFromMap(new ConcurrentHashMap<OWLClass,Boolean>());
+		for(OWLClass c : classes) {
+			children.put(c, Collections.newSetFromMap(new ConcurrentHashMap<OWLClass,Boolean>()));
+			boolean isRoot = true;
+			for(OWLClass sup : subsumers.get(c)) {
+				if(!subsumers.get(sup).contains(c)) {
+					isRoot = false;
+					break;
+				}
+			}
+			if(isRoot) roots.add(c);
+		}
+		for(OWLClass c : classes) {
+			for(OWLClass sup : told.get(c))
+				if(!sup.equals(c)) children.get(sup).add(c);
+		}
+
+		List<OWLClass> rest = new ArrayList<OWLClass>(classes);
+		Collections.sort(rest, new Comparator<OWLClass>() {
+			@Override
+			public int compare(OWLClass c1, OWLClass c2) {
+				int cmp = depth.get(c1).compareTo(depth.get(c2));
+				return (cmp != 0 ? cmp : c1.compareTo(c2));
+			}
+		});
+		order = new ArrayList<OWLClass>();
+		Set<OWLClass> added = new HashSet<OWLClass>();
+		for(OWLClass c : priorityClasses) {
+			if(classes.contains(c) && added.add(c)) order.add(c);
+		}
+		for(OWLClass c : rest) {
+			if(!added.contains(c)) order.add(c);
+		}
+		unsat = Collections.newSetFromMap(new ConcurrentHashMap<OWLClass,Boolean>());
+		processed = Collections.newSetFromMap(new ConcurrentHashMap<OWLClass,Boolean>());
+		unresolved = Collections.newSetFromMap(new ConcurrentHashMap<OWLClass,Boolean>());
+		next = new AtomicInteger();
+		nrTests = new AtomicLong();
+		nrPruned = new AtomicLong();
+	}
+
+
+	private void addTold(Map<OWLClass,Set<OWLClass>> told, OWLClass sub, OWLClassExpression sup) {
+		if(!sup.isAnonymous() && told.containsKey(sup))
+			told.get(sub).add(sup.asOWLClass());
+	}
+
+
+	/**
+	 * Check whether the subsumption A SubClassOf B can be refuted from the shared hierarchy: this is the case
+	 * if there is a known subsumer of B that is a known non-subsumer of A
+	 * @param a	Subclass
+	 * @param b	Candidate superclass
+	 * @return true if A is known not to be subsumed by B, false otherwise
+	 */
+	private boolean isRefuted(OWLClass a, OWLClass b) {
+		Set<OWLClass> nonSubs = nonSubsumers.get(a);
+		for(OWLClass c : subsumers.get(b)) {
+			if(nonSubs.contains(c)) return true;
+		}
+		return false;
+	}
+
+
+	/**
+	 * Worker that takes classes off the shared queue and computes their subsumers with its own reasoner instance
+	 */
+	private class SubsumptionTester implements Callable<Object> {
+		private OWLOntology copy;
+		private SubsumptionHandler handler;
+
+		public SubsumptionTester(OWLOntology copy, SubsumptionHandler handler) {
+			this.copy = copy;
+			this.handler = handler;
+		}
+
+		@Override
+		public Object call() {
+			OWLReasoner reasoner = createReasoner();
+			int i;
+			while(!stop && (i = next.getAndIncrement()) < order.size() && !Thread.currentThread().isInterrupted()) {
+				OWLClass a = order.get(i);
+				AtomicBoolean expired = new AtomicBoolean(false);
+				BudgetTrigger trigger = null;
+				ScheduledFuture<?> budget = null;
+				if(watchdog != null) {
+					trigger = new BudgetTrigger(reasoner, expired);
+					budget = watchdog.schedule(trigger, classBudget, TimeUnit.MILLISECONDS);
+				}
+				try {
+					process(a, reasoner);
+				} catch(TimeOutException e) { // Raised by reasoners that enforce the budget themselves
+					unresolved.add(a);
+					expired.set(true);
+				} catch(RuntimeException e) {
+					if(stop) break; // Interrupted
+					if(!expired.get()) throw e;
+					unresolved.add(a);
+				} finally {
+					if(trigger != null) {
+						trigger.finish(); // Once finished, the trigger no longer interrupts the reasoner
+						budget.cancel(false);
+					}
+				}
+				if(expired.get()) { // Interrupted mid-test, this worker's reasoner may be in any state; others are unaffected
+					reasoners.remove(reasoner);
+					reasoner.dispose();
+					reasoner = createReasoner();
+				}
+			}
+			reasoner.dispose();
+			return null;
+		}
+
+		private OWLReasoner createReasoner() {
+			OWLReasoner reasoner = null;
+			if(classBudget > 0) reasoner = new ReasonerLoader(reasonerName, copy, classBudget, false).getReasoner();
+			else reasoner = new ReasonerLoader(reasonerName, copy, false).getReasoner();
+			reasoners.add(reasoner);
+			return reasoner;
+		}
+
+		private void process(OWLClass a, OWLReasoner reasoner) {
+			if(!reasoner.isSatisfiable(a)) {
+				unsat.add(a);
+				roots.remove(a); // Not a subsumer of any satisfiable class, nor are its told subclasses
+				emit(a, Collections.singleton(df.getOWLNothing()));
+				return;
+			}
+			Set<OWLClass> subs = subsumers.get(a);
+			Queue<OWLClass> toVisit = new ArrayDeque<OWLClass>(roots); // Breadth-first, so that refutations from more general classes apply
+			Set<OWLClass> visited = new HashSet<OWLClass>();
+			while(!toVisit.isEmpty()) {
+				OWLClass b = toVisit.poll();
+				if(visited.add(b) && (b.equals(a) || isSubsumer(a, b, reasoner, new HashSet<OWLClass>())))
+					toVisit.addAll(children.get(b));
+			}
+			// Skip equivalent classes; if a subsumer has not been processed yet, test (and record) whether it is equivalent
+			Set<OWLClass> sups = new HashSet<OWLClass>();
+			for(OWLClass b : subs) {
+				Set<OWLClass> bSubs = subsumers.get(b);
+				if(!processed.contains(b) && !bSubs.contains(a) && !nonSubsumers.get(b).contains(a)) {
+					nrTests.incrementAndGet();
+					if(reasoner.isEntailed(df.getOWLSubClassOfAxiom(b, a))) bSubs.add(a);
+					else nonSubsumers.get(b).add(a);
+				}
+				if(!bSubs.contains(a)) sups.add(b);
+			}
+			// Later searches reach A from its direct subsumers rather than from the roots
+			for(OWLClass b : sups) {
+				if(isDirect(b, sups)) children.get(b).add(a);
+			}
+			if(!sups.isEmpty()) roots.remove(a);
+			emit(a, sups);
+		}
+
+		/**
+		 * Check whether B is a subsumer of A, from the shared hierarchy or, failing that, with a subsumption test 
+		 * (once the known subsumers of B are found to subsume A), whose outcome is recorded in the shared hierarchy. 
+		 * Pending holds the candidates whose subsumers are being checked, which are skipped in case the (concurrently 
+		 * updated) hierarchy has a cycle
+		 */
+		private boolean isSubsumer(OWLClass a, OWLClass b, OWLReasoner reasoner, Set<OWLClass> pending) {
+			Set<OWLClass> subs = subsumers.get(a), nonSubs = nonSubsumers.get(a);
+			if(subs.contains(b)) return true;
+			if(nonSubs.contains(b)) return false;
+			if(unsat.contains(b) || isRefuted(a, b)) {
+				nonSubs.add(b);
+				nrPruned.incrementAndGet();
+				return false;
+			}
+			// A is only subsumed by B if it is subsumed by every known subsumer of B, so those (bar equivalents of B) go first
+			pending.add(b);
+			for(OWLClass c : subsumers.get(b)) {
+				if(c.equals(a) || subs.contains(c) || subsumers.get(c).contains(b) || pending.contains(c)) continue;
+				if(!isSubsumer(a, c, reasoner, pending)) {
+					nonSubs.add(b);
+					nrPruned.incrementAndGet();
+					return false;
+				}
+			}
+			nrTests.incrementAndGet();
+			if(reasoner.isEntailed(df.getOWLSubClassOfAxiom(a, b))) {
+				subs.add(b);
+				subs.addAll(subsumers.get(b));
+				subs.remove(a);
+				return true;
+			}
+			nonSubs.add(b);
+			return false;
+		}
+
+		/**
+		 * Check whether B is a direct subsumer among the given (strict) subsumers, as far as the shared hierarchy knows
+		 */
+		private boolean isDirect(OWLClass b, Set<OWLClass> sups) {
+			for(OWLClass c : sups) {
+				if(!c.equals(b) && subsumers.get(c).contains(b) && !subsumers.get(b).contains(c)) return false;
+			}
+			return true;
+		}
+
+		private void emit(OWLClass a, Set<OWLClass> sups) {
+			synchronized(handler) {
+				for(OWLClass sup : sups)
+					handler.handle(a, sup);
+				processed.add(a);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Watchdog task that marks the budget of the current class as exceeded and interrupts its reasoner, unless the 
+	 * class has been finished by then
+	 */
+	private class BudgetTrigger implements Runnable {
+		private OWLReasoner reasoner;
+		private AtomicBoolean expired;
+		private boolean finished = false; // Guarded by this
+
+		public BudgetTrigger(OWLReasoner reasoner, AtomicBoolean expired) {
+			this.reasoner = reasoner;
+			this.expired = expired;
+		}
+
+		@Override
+		public synchronized void run() {
+			if(finished) return;
+			expired.set(true);
+			try {
+				reasoner.interrupt();
+			} catch(RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+
+		/**
+		 * Mark the current class as finished, so that its budget no longer expires
+		 */
+		public synchronized void finish() {
+			finished = true;
+		}
+	}
+}
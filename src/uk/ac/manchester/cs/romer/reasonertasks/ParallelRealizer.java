@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLIndividual;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.reasoner.InferenceType;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+import org.semanticweb.owlapi.util.InferredClassAssertionAxiomGenerator;
+
+import uk.ac.manchester.cs.romer.ReasonerLoader;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * <code>ParallelRealizer</code> realizes an ontology by splitting its ABox into connected components of individuals,
+ * where two individuals are connected if they co-occur in an assertion, and realizing the components concurrently.
+ * Components are packed into as many (roughly equally sized) partitions as there are threads, and each partition
+ * is realized by its own reasoner over the TBox and RBox plus the partition's assertions.
+ * </p><p>
+ * Without nominals, keys or rules in the TBox, the types of an individual only depend on the assertions in its own
+ * component, so the union of the partitions' results equals the realization of the whole ontology. If the TBox does
+ * mention individuals, or contains keys or rules, the whole ABox is kept in a single partition.
+ * </p>
+ */
+public class ParallelRealizer {
+	private OWLOntology ont;
+	private String reasonerName;
+	private int nrThreads;
+	private boolean verbose;
+	private double time;
+
+
+	/**
+	 * Constructor
+	 * @param ont	OWLOntology
+	 * @param reasonerName	Reasoner name
+	 * @param nrThreads	Number of reasoner instances (and threads)
+	 * @param verbose	Verbose mode
+	 */
+	public ParallelRealizer(OWLOntology ont, String reasonerName, int nrThreads, boolean verbose) {
+		this.ont = ont;
+		this.reasonerName = reasonerName;
+		this.nrThreads = nrThreads;
+		this.verbose = verbose;
+	}
+
+
+	/**
+	 * Realize the ontology
+	 * @return Set of inferred class assertions, as produced by {@link InferredClassAssertionAxiomGenerator}
+	 */
+	public Set<OWLAxiom> realize() {
+		long start = System.nanoTime();
+		List<Set<OWLAxiom>> partitions = getPartitions();
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(partitions.size(), 1));
+		List<Future<Set<OWLAxiom>>> futures = new ArrayList<Future<Set<OWLAxiom>>>();
+		for(Set<OWLAxiom> partition : partitions)
+			futures.add(executor.submit(new PartitionRealizer(partition)));
+		executor.shutdown();
+
+		Set<OWLAxiom> results = new HashSet<OWLAxiom>();
+		try {
+			for(Future<Set<OWLAxiom>> f : futures)
+				results.addAll(f.get());
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} catch (ExecutionException e) {
+			executor.shutdownNow();
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+			if(e.getCause() instanceof Error) throw (Error)e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		time = (System.nanoTime()-start)/1000000000.0;
+		return results;
+	}
+
+
+	/**
+	 * Get the (wall-clock) time taken by the last call to {@link #realize()}
+	 * @return Realization time (in seconds)
+	 */
+	public double getRealizationTime() {
+		return time;
+	}
+
+
+	/**
+	 * Split the ontology into partitions, each holding all axioms that do not mention individuals plus the
+	 * assertions of a group of ABox components
+	 * @return List of partitions
+	 */
+	private List<Set<OWLAxiom>> getPartitions() {
+		Set<OWLAxiom> tbox = new HashSet<OWLAxiom>();
+		Map<OWLIndividual,Set<OWLAxiom>> assertions = new HashMap<OWLIndividual,Set<OWLAxiom>>();
+		Map<OWLIndividual,OWLIndividual> parent = new HashMap<OWLIndividual,OWLIndividual>();
+		boolean split = true;
+
+		for(OWLAxiom ax : ont.getAxioms()) {
+			if(ax.isOfType(AxiomType.ANNOTATION_ASSERTION)) continue;
+			if(ax.isOfType(AxiomType.HAS_KEY) || ax.isOfType(AxiomType.SWRL_RULE)) split = false;
+			Set<OWLIndividual> inds = new HashSet<OWLIndividual>(ax.getIndividualsInSignature());
+			inds.addAll(ax.getAnonymousIndividuals());
+			if(inds.isEmpty()) {
+				tbox.add(ax);
+				continue;
+			}
+			if(!ax.isOfType(AxiomType.ABoxAxiomTypes) && !ax.isOfType(AxiomType.DECLARATION)) split = false; // Nominals
+
+			OWLIndividual first = null;
+			for(OWLIndividual ind : inds) {
+				if(!parent.containsKey(ind)) parent.put(ind, ind);
+				if(first == null) first = ind;
+				else union(parent, first, ind);
+			}
+			if(!assertions.containsKey(first)) assertions.put(first, new HashSet<OWLAxiom>());
+			assertions.get(first).add(ax);
+		}
+
+		Map<OWLIndividual,Set<OWLAxiom>> components = new HashMap<OWLIndividual,Set<OWLAxiom>>();
+		for(OWLIndividual ind : assertions.keySet()) {
+			OWLIndividual root = find(parent, ind);
+			if(!components.containsKey(root)) components.put(root, new HashSet<OWLAxiom>());
+			components.get(root).addAll(assertions.get(ind));
+		}
+
+		int nrPartitions = (split ? Math.min(nrThreads, components.size()) : 1);
+		List<Set<OWLAxiom>> partitions = new ArrayList<Set<OWLAxiom>>();
+		List<Integer> sizes = new ArrayList<Integer>();
+		for(int i = 0; i < Math.max(nrPartitions, 1); i++) {
+			partitions.add(new HashSet<OWLAxiom>(tbox));
+			sizes.add(0);
+		}
+
+		// Largest components first, each into the currently smallest partition
+		List<Set<OWLAxiom>> sorted = new ArrayList<Set<OWLAxiom>>(components.values());
+		Collections.sort(sorted, new Comparator<Set<OWLAxiom>>() {
+			@Override
+			public int compare(Set<OWLAxiom> c1, Set<OWLAxiom> c2) {
+				return Integer.compare(c2.size(), c1.size());
+			}
+		});
+		for(Set<OWLAxiom> component : sorted) {
+			int min = 0;
+			for(int i = 1; i < sizes.size(); i++)
+				if(sizes.get(i) < sizes.get(min)) min = i;
+			partitions.get(min).addAll(component);
+			sizes.set(min, sizes.get(min) + component.size());
+		}
+
+		if(verbose) {
+			if(split) System.out.println("\tParallel realization: " + components.size() + " ABox components in " + partitions.size() + " partitions");
+			else System.out.println("\tParallel realization: TBox mentions individuals, or contains keys or rules; ABox not split");
+		}
+		return partitions;
+	}
+
+
+	private OWLIndividual find(Map<OWLIndividual,OWLIndividual> parent, OWLIndividual ind) {
+		OWLIndividual root = ind;
+		while(!parent.get(root).equals(root))
+			root = parent.get(root);
+		while(!ind.equals(root)) { // Path compression
+			OWLIndividual next = parent.get(ind);
+			parent.put(ind, root);
+			ind = next;
+		}
+		return root;
+	}
+
+
+	private void union(Map<OWLIndividual,OWLIndividual> parent, OWLIndividual i1, OWLIndividual i2) {
+		OWLIndividual r1 = find(parent, i1), r2 = find(parent, i2);
+		if(!r1.equals(r2)) parent.put(r2, r1);
+	}
+
+
+	/**
+	 * Worker that realizes one partition with its own reasoner instance
+	 */
+	private class PartitionRealizer implements Callable<Set<OWLAxiom>> {
+		private Set<OWLAxiom> axioms;
+
+		public PartitionRealizer(Set<OWLAxiom> axioms) {
+			this.axioms = axioms;
+		}
+
+		@Override
+		public Set<OWLAxiom> call() throws OWLOntologyCreationException {
+			OWLOntologyManager man = OWLManager.createOWLOntologyManager();
+			OWLOntology partition = man.createOntology(axioms);
+			axioms = null;
+			OWLReasoner reasoner = new ReasonerLoader(reasonerName, partition, false).getReasoner();
+			if(reasonerName.equalsIgnoreCase("elk")) reasoner.precomputeInferences(InferenceType.CLASS_HIERARCHY);
+			Set<OWLAxiom> results = new HashSet<OWLAxiom>(new InferredClassAssertionAxiomGenerator().createAxioms(man, reasoner));
+			reasoner.dispose();
+			return results;
+		}
+	}
+}
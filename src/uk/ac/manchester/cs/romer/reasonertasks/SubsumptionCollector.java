@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Pipeline stage that collects subsumptions as SubClassOf axioms, for callers that need the whole set in memory
+ * </p>
+ */
+public class SubsumptionCollector implements SubsumptionHandler {
+	private OWLDataFactory df;
+	private Set<OWLAxiom> axioms;
+	
+	/**
+	 * Constructor
+	 * @param df	OWL data factory
+	 */
+	public SubsumptionCollector(OWLDataFactory df) {
+		this.df = df;
+		this.axioms = new HashSet<OWLAxiom>();
+	}
+	
+	
+	@Override
+	public void handle(OWLClass sub, OWLClass sup) {
+		axioms.add(df.getOWLSubClassOfAxiom(sub, sup));
+	}
+	
+	
+	@Override
+	public void finish() {}
+	
+	
+	/**
+	 * Get the collected subsumptions
+	 * @return Set of SubClassOf axioms
+	 */
+	public Set<OWLAxiom> getAxioms() {
+		return axioms;
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLClass;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Pipeline stage that counts subsumptions and records unsatisfiable classes
+ * </p>
+ */
+public class SubsumptionCounter implements SubsumptionHandler {
+	private SubsumptionHandler next;
+	private Set<OWLClass> unsat;
+	private int count = 0;
+	
+	/**
+	 * Constructor
+	 * @param next	Next pipeline stage (may be null)
+	 */
+	public SubsumptionCounter(SubsumptionHandler next) {
+		this.next = next;
+		this.unsat = new HashSet<OWLClass>();
+	}
+	
+	
+	@Override
+	public void handle(OWLClass sub, OWLClass sup) {
+		count++;
+		if(sup.isOWLNothing()) unsat.add(sub);
+		if(next != null) next.handle(sub, sup);
+	}
+	
+	
+	@Override
+	public void finish() {
+		if(next != null) next.finish();
+	}
+	
+	
+	/**
+	 * Get the number of subsumptions seen
+	 * @return Number of subsumptions
+	 */
+	public int getNumberOfSubsumptions() {
+		return count;
+	}
+	
+	
+	/**
+	 * Get the unsatisfiable classes seen
+	 * @return Set of unsatisfiable classes
+	 */
+	public Set<OWLClass> getUnsatisfiableClasses() {
+		return unsat;
+	}
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Pipeline stage that drops trivial subsumptions (by owl:Thing, or of owl:Nothing) and, optionally, 
+ * those asserted in the ontology
+ * </p>
+ */
+public class SubsumptionFilter implements SubsumptionHandler {
+	private SubsumptionHandler next;
+	private OWLOntology ont;
+	private OWLDataFactory df;
+	private boolean includeAsserted;
+	
+	/**
+	 * Constructor
+	 * @param ont	OWLOntology
+	 * @param includeAsserted	true if asserted subsumptions should be passed on, false otherwise
+	 * @param next	Next pipeline stage
+	 */
+	public SubsumptionFilter(OWLOntology ont, boolean includeAsserted, SubsumptionHandler next) {
+		this.ont = ont;
+		this.includeAsserted = includeAsserted;
+		this.next = next;
+		this.df = ont.getOWLOntologyManager().getOWLDataFactory();
+	}
+	
+	
+	@Override
+	public void handle(OWLClass sub, OWLClass sup) {
+		if(sup.isOWLThing() || sub.isOWLNothing()) return;
+		if(!includeAsserted && ont.containsAxiom(df.getOWLSubClassOfAxiom(sub, sup))) return;
+		next.handle(sub, sup);
+	}
+	
+	
+	@Override
+	public void finish() {
+		next.finish();
+	}
+}
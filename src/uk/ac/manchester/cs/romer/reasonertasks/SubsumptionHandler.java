@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import org.semanticweb.owlapi.model.OWLClass;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * A stage of the classification output pipeline: atomic subsumptions are pushed to a handler as they are 
+ * generated, and each stage filters, records or writes them before (optionally) passing them on to the next stage
+ * </p>
+ */
+public interface SubsumptionHandler {
+	
+	/**
+	 * Handle an atomic subsumption. Unsatisfiable classes are reported as subclasses of owl:Nothing
+	 * @param sub	Subclass
+	 * @param sup	Superclass
+	 */
+	public void handle(OWLClass sub, OWLClass sup);
+	
+	
+	/**
+	 * Signal that no more subsumptions will be pushed
+	 */
+	public void finish();
+}
@@ -0,0 +1,530 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.reasonertasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * <code>Taxonomy</code> is a compact, read-only representation of a class hierarchy. Classes are mapped to integer ids
+ * (in IRI order), equivalent classes are collapsed into nodes, and the node DAG is kept in compressed sparse row (CSR)
+ * arrays: the direct superclasses of each node, and the sorted list of all its ancestors, so that a subsumption test is
+ * a binary search. The atomic subsumptions the taxonomy was built from are also kept in CSR form, so that the original
+ * axiom set can be reproduced on demand. Unsatisfiable classes are kept in a bit set, and are subsumed by every class.
+ * Subsumptions by owl:Thing are implicit.
+ * </p>
+ */
+public class Taxonomy {
+	private OWLClass[] classes;
+	private Map<OWLClass,Integer> ids;
+	private BitSet unsat;
+	private int[] edgeOffsets, edges;		// Input subsumptions, by class id
+	private int[] node;						// Class id -> node id (-1 for unsatisfiable classes)
+	private int[] memberOffsets, members;	// Node id -> class ids
+	private int[] directOffsets, direct;	// Node id -> direct super-nodes
+	private int[] ancOffsets, ancestors;	// Node id -> all (strict) super-nodes, sorted
+	private int[] subOffsets, subs;			// Node id -> direct sub-nodes, built on demand
+	private int nrNodes;
+
+
+	/**
+	 * Constructor
+	 * @param axioms	Set of atomic subsumptions, e.g., as produced by {@link EntailmentGenerator#classify()};
+	 * other axioms are ignored
+	 */
+	public Taxonomy(Set<OWLAxiom> axioms) {
+		this(collect(axioms));
+	}
+
+
+	/**
+	 * Constructor
+	 * @param builder	Builder holding the atomic subsumptions
+	 */
+	private Taxonomy(Builder builder) {
+		classes = builder.classes.toArray(new OWLClass[builder.classes.size()]);
+		Arrays.sort(classes);
+		ids = new HashMap<OWLClass,Integer>(classes.length*2);
+		for(int i = 0; i < classes.length; i++)
+			ids.put(classes[i], i);
+		int[] id = new int[classes.length]; // Builder id -> class id
+		for(int i = 0; i < classes.length; i++)
+			id[i] = ids.get(builder.classes.get(i));
+
+		// Input subsumptions
+		unsat = new BitSet(classes.length);
+		int[] degree = new int[classes.length];
+		for(int i = 0; i < builder.size; i++) {
+			if(builder.sups[i] < 0) unsat.set(id[builder.subs[i]]);
+			else degree[id[builder.subs[i]]]++;
+		}
+		edgeOffsets = toOffsets(degree);
+		edges = new int[edgeOffsets[classes.length]];
+		int[] fill = Arrays.copyOf(edgeOffsets, classes.length);
+		for(int i = 0; i < builder.size; i++) {
+			if(builder.sups[i] >= 0)
+				edges[fill[id[builder.subs[i]]]++] = id[builder.sups[i]];
+		}
+		for(int i = 0; i < classes.length; i++)
+			Arrays.sort(edges, edgeOffsets[i], edgeOffsets[i+1]);
+
+		buildNodes();
+		buildClosure();
+	}
+
+
+	private static Builder collect(Set<OWLAxiom> axioms) {
+		Builder builder = new Builder();
+		for(OWLAxiom ax : axioms) {
+			if(ax instanceof OWLSubClassOfAxiom) {
+				OWLSubClassOfAxiom sub = (OWLSubClassOfAxiom)ax;
+				if(!sub.getSubClass().isAnonymous() && !sub.getSuperClass().isAnonymous())
+					builder.handle(sub.getSubClass().asOWLClass(), sub.getSuperClass().asOWLClass());
+			}
+		}
+		return builder;
+	}
+
+
+	/**
+	 * Collapse strongly connected components of the (satisfiable part of the) input graph into nodes, using an
+	 * iterative version of Tarjan's algorithm. Components are numbered in reverse topological order, i.e.,
+	 * every node is numbered after all of its super-nodes
+	 */
+	private void buildNodes() {
+		int n = classes.length;
+		node = new int[n];
+		Arrays.fill(node, -1);
+		int[] index = new int[n], low = new int[n], stack = new int[n], callStack = new int[n], edgePos = new int[n];
+		boolean[] onStack = new boolean[n];
+		Arrays.fill(index, -1);
+		int counter = 0, sp = 0;
+		nrNodes = 0;
+		for(int root = 0; root < n; root++) {
+			if(index[root] != -1 || unsat.get(root)) continue;
+			int csp = 0;
+			callStack[csp++] = root;
+			index[root] = low[root] = counter++;
+			stack[sp++] = root; onStack[root] = true;
+			edgePos[root] = edgeOffsets[root];
+			while(csp > 0) {
+				int v = callStack[csp-1];
+				if(edgePos[v] < edgeOffsets[v+1]) {
+					int w = edges[edgePos[v]++];
+					if(unsat.get(w)) continue;
+					if(index[w] == -1) {
+						index[w] = low[w] = counter++;
+						stack[sp++] = w; onStack[w] = true;
+						edgePos[w] = edgeOffsets[w];
+						callStack[csp++] = w;
+					}
+					else if(onStack[w])
+						low[v] = Math.min(low[v], index[w]);
+				}
+				else {
+					csp--;
+					if(csp > 0) {
+						int u = callStack[csp-1];
+						low[u] = Math.min(low[u], low[v]);
+					}
+					if(low[v] == index[v]) {
+						int w;
+						do {
+							w = stack[--sp];
+							onStack[w] = false;
+							node[w] = nrNodes;
+						} while(w != v);
+						nrNodes++;
+					}
+				}
+			}
+		}
+
+		int[] size = new int[nrNodes];
+		for(int i = 0; i < n; i++)
+			if(node[i] != -1) size[node[i]]++;
+		memberOffsets = toOffsets(size);
+		members = new int[memberOffsets[nrNodes]];
+		int[] fill = Arrays.copyOf(memberOffsets, nrNodes);
+		for(int i = 0; i < n; i++)
+			if(node[i] != -1) members[fill[node[i]]++] = i;
+	}
+
+
+	/**
+	 * Compute, for each node, the sorted array of its ancestors and its direct super-nodes. Since nodes are numbered
+	 * after their super-nodes, a single pass in increasing node order suffices
+	 */
+	private void buildClosure() {
+		int[][] anc = new int[nrNodes][];
+		int[][] dir = new int[nrNodes][];
+		int totalAnc = 0, totalDir = 0;
+		for(int v = 0; v < nrNodes; v++) {
+			// Distinct super-nodes of v
+			int[] succ = new int[0];
+			int k = 0;
+			for(int m = memberOffsets[v]; m < memberOffsets[v+1]; m++) {
+				int c = members[m];
+				for(int e = edgeOffsets[c]; e < edgeOffsets[c+1]; e++) {
+					int w = node[edges[e]];
+					if(w == -1 || w == v) continue;
+					if(k == succ.length) succ = Arrays.copyOf(succ, Math.max(4, k*2));
+					succ[k++] = w;
+				}
+			}
+			succ = dedup(succ, k);
+
+			int[] a = succ;
+			for(int w : succ)
+				a = union(a, anc[w]);
+			anc[v] = a;
+			totalAnc += a.length;
+
+			// A super-node is direct if it is not an ancestor of another super-node
+			int[] d = new int[succ.length];
+			int nd = 0;
+			for(int w : succ) {
+				boolean isDirect = true;
+				for(int x : succ) {
+					if(x != w && Arrays.binarySearch(anc[x], w) >= 0) {
+						isDirect = false;
+						break;
+					}
+				}
+				if(isDirect) d[nd++] = w;
+			}
+			dir[v] = Arrays.copyOf(d, nd);
+			totalDir += nd;
+		}
+		ancOffsets = new int[nrNodes+1];
+		ancestors = new int[totalAnc];
+		directOffsets = new int[nrNodes+1];
+		direct = new int[totalDir];
+		for(int v = 0; v < nrNodes; v++) {
+			System.arraycopy(anc[v], 0, ancestors, ancOffsets[v], anc[v].length);
+			ancOffsets[v+1] = ancOffsets[v] + anc[v].length;
+			System.arraycopy(dir[v], 0, direct, directOffsets[v], dir[v].length);
+			directOffsets[v+1] = directOffsets[v] + dir[v].length;
+		}
+	}
+
+
+	/**
+	 * Build the reverse (direct sub-node) CSR arrays
+	 */
+	private synchronized void buildSubs() {
+		if(subOffsets != null) return;
+		int[] degree = new int[nrNodes];
+		for(int e : direct) degree[e]++;
+		int[] offsets = toOffsets(degree);
+		int[] s = new int[offsets[nrNodes]];
+		int[] fill = Arrays.copyOf(offsets, nrNodes);
+		for(int v = 0; v < nrNodes; v++)
+			for(int e = directOffsets[v]; e < directOffsets[v+1]; e++)
+				s[fill[direct[e]]++] = v;
+		subs = s;
+		subOffsets = offsets;
+	}
+
+
+	/**
+	 * Get the id of a class
+	 * @param c	OWL class
+	 * @return Class id, or -1 if the class does not occur in the taxonomy
+	 */
+	public int getId(OWLClass c) {
+		Integer id = ids.get(c);
+		return (id == null ? -1 : id);
+	}
+
+
+	/**
+	 * Get the class with the given id
+	 * @param id	Class id
+	 * @return OWL class
+	 */
+	public OWLClass getOWLClass(int id) {
+		return classes[id];
+	}
+
+
+	/**
+	 * Get the number of classes in the taxonomy
+	 * @return Number of classes
+	 */
+	public int getNumberOfClasses() {
+		return classes.length;
+	}
+
+
+	/**
+	 * Check whether one class is subsumed by another
+	 * @param sub	Subclass
+	 * @param sup	Superclass
+	 * @return true if sub is subsumed by sup, false otherwise (including when either class is unknown)
+	 */
+	public boolean isSubsumedBy(OWLClass sub, OWLClass sup) {
+		if(sup.isOWLThing()) return true;
+		int a = getId(sub);
+		if(a != -1 && unsat.get(a)) return true;
+		int b = getId(sup);
+		if(a == -1 || b == -1) return sub.equals(sup);
+		return isSubsumedBy(a, b);
+	}
+
+
+	/**
+	 * Check whether one class is subsumed by another
+	 * @param sub	Subclass id
+	 * @param sup	Superclass id
+	 * @return true if sub is subsumed by sup, false otherwise
+	 */
+	public boolean isSubsumedBy(int sub, int sup) {
+		if(unsat.get(sub)) return true;
+		if(unsat.get(sup)) return false;
+		int a = node[sub], b = node[sup];
+		return a == b || Arrays.binarySearch(ancestors, ancOffsets[a], ancOffsets[a+1], b) >= 0;
+	}
+
+
+	/**
+	 * Check whether two classes are equivalent
+	 * @param c1	OWL class
+	 * @param c2	OWL class
+	 * @return true if both classes are equivalent, false otherwise
+	 */
+	public boolean isEquivalent(OWLClass c1, OWLClass c2) {
+		return isSubsumedBy(c1, c2) && isSubsumedBy(c2, c1);
+	}
+
+
+	/**
+	 * Check whether a class is unsatisfiable
+	 * @param c	OWL class
+	 * @return true if the class is unsatisfiable, false otherwise
+	 */
+	public boolean isUnsatisfiable(OWLClass c) {
+		int id = getId(c);
+		return id != -1 && unsat.get(id);
+	}
+
+
+	/**
+	 * Get the set of unsatisfiable classes
+	 * @return Set of unsatisfiable classes
+	 */
+	public Set<OWLClass> getUnsatisfiableClasses() {
+		Set<OWLClass> output = new HashSet<OWLClass>();
+		for(int i = unsat.nextSetBit(0); i >= 0; i = unsat.nextSetBit(i+1))
+			output.add(classes[i]);
+		return output;
+	}
+
+
+	/**
+	 * Get the classes equivalent to the given class, excluding itself
+	 * @param c	OWL class
+	 * @return Set of equivalent classes
+	 */
+	public Set<OWLClass> getEquivalentClasses(OWLClass c) {
+		Set<OWLClass> output = new HashSet<OWLClass>();
+		int id = getId(c);
+		if(id == -1) return output;
+		if(unsat.get(id))
+			output = getUnsatisfiableClasses();
+		else
+			addMembers(node[id], output);
+		output.remove(c);
+		return output;
+	}
+
+
+	/**
+	 * Get the (strict) superclasses of a satisfiable class
+	 * @param c	OWL class
+	 * @param directOnly	true if only direct superclasses should be returned
+	 * @return Set of superclasses
+	 */
+	public Set<OWLClass> getSuperClasses(OWLClass c, boolean directOnly) {
+		Set<OWLClass> output = new HashSet<OWLClass>();
+		int id = getId(c);
+		if(id == -1 || unsat.get(id)) return output;
+		int v = node[id];
+		int[] offsets = (directOnly ? directOffsets : ancOffsets), targets = (directOnly ? direct : ancestors);
+		for(int e = offsets[v]; e < offsets[v+1]; e++)
+			addMembers(targets[e], output);
+		return output;
+	}
+
+
+	/**
+	 * Get the direct (satisfiable) subclasses of a class
+	 * @param c	OWL class
+	 * @return Set of direct subclasses
+	 */
+	public Set<OWLClass> getDirectSubClasses(OWLClass c) {
+		Set<OWLClass> output = new HashSet<OWLClass>();
+		int id = getId(c);
+		if(id == -1 || unsat.get(id)) return output;
+		buildSubs();
+		int v = node[id];
+		for(int e = subOffsets[v]; e < subOffsets[v+1]; e++)
+			addMembers(subs[e], output);
+		return output;
+	}
+
+
+	/**
+	 * Get the number of subsumptions the taxonomy was built from
+	 * @return Number of atomic subsumptions
+	 */
+	public int getNumberOfAxioms() {
+		return edges.length + unsat.cardinality();
+	}
+
+
+	/**
+	 * Get the atomic subsumptions the taxonomy was built from
+	 * @return Set of atomic subsumptions
+	 */
+	public Set<OWLAxiom> getAxioms() {
+		OWLDataFactory df = OWLManager.getOWLDataFactory();
+		Set<OWLAxiom> output = new HashSet<OWLAxiom>(getNumberOfAxioms()*2);
+		for(int i = 0; i < classes.length; i++) {
+			if(unsat.get(i)) output.add(df.getOWLSubClassOfAxiom(classes[i], df.getOWLNothing()));
+			for(int e = edgeOffsets[i]; e < edgeOffsets[i+1]; e++)
+				output.add(df.getOWLSubClassOfAxiom(classes[i], classes[edges[e]]));
+		}
+		return output;
+	}
+
+
+	/**
+	 * Push the atomic subsumptions the taxonomy was built from through the given pipeline, class by class
+	 * @param handler	Pipeline stage
+	 */
+	public void read(SubsumptionHandler handler) {
+		OWLClass nothing = OWLManager.getOWLDataFactory().getOWLNothing();
+		for(int i = 0; i < classes.length; i++) {
+			if(unsat.get(i)) handler.handle(classes[i], nothing);
+			for(int e = edgeOffsets[i]; e < edgeOffsets[i+1]; e++)
+				handler.handle(classes[i], classes[edges[e]]);
+		}
+		handler.finish();
+	}
+
+
+	private void addMembers(int v, Set<OWLClass> output) {
+		for(int m = memberOffsets[v]; m < memberOffsets[v+1]; m++)
+			output.add(classes[members[m]]);
+	}
+
+
+	private static int[] toOffsets(int[] degree) {
+		int[] offsets = new int[degree.length+1];
+		for(int i = 0; i < degree.length; i++)
+			offsets[i+1] = offsets[i] + degree[i];
+		return offsets;
+	}
+
+
+	private static int[] dedup(int[] a, int length) {
+		Arrays.sort(a, 0, length);
+		int k = 0;
+		for(int i = 0; i < length; i++)
+			if(k == 0 || a[k-1] != a[i]) a[k++] = a[i];
+		return Arrays.copyOf(a, k);
+	}
+
+
+	private static int[] union(int[] a, int[] b) {
+		int[] out = new int[a.length+b.length];
+		int i = 0, j = 0, k = 0;
+		while(i < a.length && j < b.length) {
+			if(a[i] < b[j]) out[k++] = a[i++];
+			else if(a[i] > b[j]) out[k++] = b[j++];
+			else { out[k++] = a[i++]; j++; }
+		}
+		while(i < a.length) out[k++] = a[i++];
+		while(j < b.length) out[k++] = b[j++];
+		return (k == out.length ? out : Arrays.copyOf(out, k));
+	}
+
+
+	/**
+	 * Pipeline stage that gathers atomic subsumptions into a taxonomy, without building them as OWL axioms first.
+	 * Subsumptions by owl:Thing and of owl:Nothing are ignored
+	 */
+	public static class Builder implements SubsumptionHandler {
+		private List<OWLClass> classes = new ArrayList<OWLClass>();
+		private Map<OWLClass,Integer> ids = new HashMap<OWLClass,Integer>();
+		private int[] subs = new int[16], sups = new int[16];	// sups[i] is -1 for subsumptions by owl:Nothing
+		private int size = 0;
+
+		@Override
+		public void handle(OWLClass sub, OWLClass sup) {
+			if(sup.isOWLThing() || sub.isOWLNothing()) return;
+			if(size == subs.length) {
+				subs = Arrays.copyOf(subs, size*2);
+				sups = Arrays.copyOf(sups, size*2);
+			}
+			subs[size] = getId(sub);
+			sups[size] = (sup.isOWLNothing() ? -1 : getId(sup));
+			size++;
+		}
+
+		@Override
+		public void finish() {}
+
+		/**
+		 * Build the taxonomy of the subsumptions handled so far
+		 * @return Taxonomy
+		 */
+		public Taxonomy build() {
+			return new Taxonomy(this);
+		}
+
+		private int getId(OWLClass c) {
+			Integer id = ids.get(c);
+			if(id == null) {
+				id = classes.size();
+				ids.put(c, id);
+				classes.add(c);
+			}
+			return id;
+		}
+	}
+}
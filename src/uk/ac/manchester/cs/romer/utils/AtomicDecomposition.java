@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Bottom atomic decomposition of an ontology. The bottom module of the signature of each logical axiom is extracted
+ * (concurrently, through a {@link ModuleService}), and axioms with the same module form an atom. The module shared
+ * by the axioms of an atom is its (principal) cone: the union of the atom and all atoms it depends on, which is itself
+ * a bottom module. Axioms that are not in their own module (i.e., tautologies) belong to no atom.
+ * </p>
+ */
+public class AtomicDecomposition {
+	private OWLOntology ont;
+	private ModuleService modules;
+	private int nrThreads;
+	private List<Atom> atoms;
+	private Map<OWLAxiom,Atom> atomOf;
+	private double time;
+
+	/**
+	 * Constructor
+	 * @param ont	OWL ontology
+	 * @param modules	Module service over the same ontology
+	 * @param nrThreads	Number of threads used to extract the axioms' modules
+	 */
+	public AtomicDecomposition(OWLOntology ont, ModuleService modules, int nrThreads) {
+		this.ont = ont;
+		this.modules = modules;
+		this.nrThreads = nrThreads;
+	}
+
+
+	/**
+	 * Compute the atomic decomposition (only once; later calls return the same atoms)
+	 * @return List of atoms
+	 */
+	public List<Atom> decompose() {
+		if(atoms != null) return atoms;
+		long start = System.nanoTime();
+		List<OWLAxiom> axioms = new ArrayList<OWLAxiom>(ont.getLogicalAxioms());
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(nrThreads, 1));
+		List<Future<List<Set<OWLAxiom>>>> futures = new ArrayList<Future<List<Set<OWLAxiom>>>>();
+		int chunk = Math.max(axioms.size() / (4*Math.max(nrThreads, 1)), 1);
+		for(int i = 0; i < axioms.size(); i += chunk)
+			futures.add(executor.submit(new ModuleExtractor(axioms.subList(i, Math.min(i+chunk, axioms.size())))));
+		executor.shutdown();
+
+		// Axioms with the same module form an atom
+		Map<Set<OWLAxiom>,Atom> atomsByCone = new LinkedHashMap<Set<OWLAxiom>,Atom>();
+		atomOf = new HashMap<OWLAxiom,Atom>();
+		try {
+			int i = 0;
+			for(Future<List<Set<OWLAxiom>>> f : futures) {
+				for(Set<OWLAxiom> module : f.get()) {
+					OWLAxiom ax = axioms.get(i++);
+					if(!module.contains(ax)) continue; // Tautology
+					Atom atom = atomsByCone.get(module);
+					if(atom == null) {
+						atom = new Atom(module);
+						atomsByCone.put(module, atom);
+					}
+					atom.axioms.add(ax);
+					atomOf.put(ax, atom);
+				}
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} catch (ExecutionException e) {
+			executor.shutdownNow();
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException)e.getCause();
+			if(e.getCause() instanceof Error) throw (Error)e.getCause();
+			throw new RuntimeException(e.getCause());
+		}
+		atoms = new ArrayList<Atom>(atomsByCone.values());
+
+		// Dependencies: an atom depends on every other atom in its cone
+		for(Atom a : atoms) {
+			Set<Atom> below = new HashSet<Atom>();
+			for(OWLAxiom ax : a.cone) {
+				Atom b = atomOf.get(ax);
+				if(b != null && b != a) below.add(b);
+			}
+			a.nrDependencies = below.size();
+			for(Atom b : below) b.nrDependents++;
+		}
+		time = (System.nanoTime()-start)/1000000000.0;
+		return atoms;
+	}
+
+
+	/**
+	 * Get the atom of an axiom
+	 * @param ax	Logical axiom
+	 * @return Atom of the axiom, or null if it is a tautology (or the decomposition was not yet computed)
+	 */
+	public Atom getAtom(OWLAxiom ax) {
+		return (atomOf != null ? atomOf.get(ax) : null);
+	}
+
+
+	/**
+	 * Get the (wall-clock) time taken to compute the decomposition
+	 * @return Decomposition time (in seconds)
+	 */
+	public double getDecompositionTime() {
+		return time;
+	}
+
+
+	/**
+	 * Worker that extracts the modules of a range of axioms
+	 */
+	private class ModuleExtractor implements Callable<List<Set<OWLAxiom>>> {
+		private List<OWLAxiom> axioms;
+
+		public ModuleExtractor(List<OWLAxiom> axioms) {
+			this.axioms = axioms;
+		}
+
+		@Override
+		public List<Set<OWLAxiom>> call() {
+			List<Set<OWLAxiom>> result = new ArrayList<Set<OWLAxiom>>();
+			for(OWLAxiom ax : axioms)
+				result.add(modules.extractLogicalModule(ax.getSignature(), ModuleType.BOT));
+			return result;
+		}
+	}
+
+
+	/**
+	 * An atom of the decomposition
+	 */
+	public static class Atom {
+		private Set<OWLAxiom> axioms, cone;
+		private int nrDependencies = 0, nrDependents = 0;
+
+		private Atom(Set<OWLAxiom> cone) {
+			this.cone = cone;
+			this.axioms = new HashSet<OWLAxiom>();
+		}
+
+		public Set<OWLAxiom> getAxioms() {
+			return Collections.unmodifiableSet(axioms);
+		}
+
+		/**
+		 * @return Cone of the atom, i.e., the atom together with all atoms it depends on
+		 */
+		public Set<OWLAxiom> getCone() {
+			return cone;
+		}
+
+		public Set<OWLEntity> getSignature() {
+			Set<OWLEntity> sig = new HashSet<OWLEntity>();
+			for(OWLAxiom ax : axioms)
+				sig.addAll(ax.getSignature());
+			return sig;
+		}
+
+		/**
+		 * @return Number of (other) atoms in the cone of this atom
+		 */
+		public int getNumberOfDependencies() {
+			return nrDependencies;
+		}
+
+		/**
+		 * @return Number of (other) atoms whose cone contains this atom
+		 */
+		public int getNumberOfDependents() {
+			return nrDependents;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLLogicalAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Numbering of the logical axioms of an ontology, used to fingerprint sets of axioms (e.g., hot spot candidates
+ * or remainders) as bit sets: two sets are equal, or one contains the other, exactly when their fingerprints are.
+ * The axioms of the ontology are numbered in (structural) order, so their numbers, and thus the fingerprints of
+ * sets of them, are the same across runs. Logical axioms not in the ontology (e.g., those added to an
+ * approximation) are numbered when first seen, and non-logical axioms are ignored.
+ * </p>
+ */
+public class AxiomIndex {
+	private Map<OWLAxiom,Integer> ids;
+	private List<OWLLogicalAxiom> axioms;
+	private int nrOntologyAxioms;
+
+	/**
+	 * Constructor
+	 * @param ont	OWL ontology
+	 */
+	public AxiomIndex(OWLOntology ont) {
+		this.ids = new HashMap<OWLAxiom,Integer>();
+		this.axioms = new ArrayList<OWLLogicalAxiom>(ont.getLogicalAxioms());
+		Collections.sort(axioms, new Comparator<OWLLogicalAxiom>() {
+			@Override
+			public int compare(OWLLogicalAxiom ax1, OWLLogicalAxiom ax2) {
+				int c = ax1.compareTo(ax2);
+				return (c != 0 ? c : ax1.toString().compareTo(ax2.toString())); // Axioms that differ only in annotations
+			}
+		});
+		for(OWLLogicalAxiom ax : axioms)
+			ids.put(ax, ids.size());
+		this.nrOntologyAxioms = ids.size();
+	}
+
+
+	/**
+	 * Get the fingerprint of a set of axioms
+	 * @param axioms	Set of axioms
+	 * @return Bit set with the numbers of the logical axioms in the given set
+	 */
+	public BitSet getFingerprint(Set<OWLAxiom> axioms) {
+		BitSet fp = new BitSet(ids.size());
+		for(OWLAxiom ax : axioms) {
+			if(ax.isLogicalAxiom())
+				fp.set(getId(ax));
+		}
+		return fp;
+	}
+
+
+	/**
+	 * Get the axioms of the ontology in a fingerprint
+	 * @param fp	Fingerprint
+	 * @return Set of axioms of the ontology whose numbers are in the fingerprint
+	 */
+	public Set<OWLAxiom> getAxioms(BitSet fp) {
+		Set<OWLAxiom> result = new HashSet<OWLAxiom>();
+		for(int i = fp.nextSetBit(0); i >= 0 && i < nrOntologyAxioms; i = fp.nextSetBit(i+1))
+			result.add(axioms.get(i));
+		return result;
+	}
+
+
+	/**
+	 * @return Number of logical axioms in the ontology
+	 */
+	public int getNumberOfOntologyAxioms() {
+		return nrOntologyAxioms;
+	}
+
+
+	/**
+	 * Get a digest of the numbering of the ontology axioms, to check that two indexes (e.g., in different processes)
+	 * number the axioms in the same way
+	 * @return Digest
+	 */
+	public long getDigest() {
+		long digest = nrOntologyAxioms;
+		for(OWLLogicalAxiom ax : axioms)
+			digest = 31*digest + ax.hashCode();
+		return digest;
+	}
+
+
+	/**
+	 * Check whether a fingerprint only has axioms of the ontology, and so is the same across runs
+	 * @param fp	Fingerprint
+	 * @return true if all axioms in the fingerprint are in the ontology
+	 */
+	public boolean isStable(BitSet fp) {
+		return fp.length() <= nrOntologyAxioms;
+	}
+
+
+	/**
+	 * Check whether the set of axioms with the first fingerprint contains the one with the second
+	 * @param fp1	Fingerprint
+	 * @param fp2	Fingerprint
+	 * @return true if every axiom in the second fingerprint is in the first
+	 */
+	public static boolean contains(BitSet fp1, BitSet fp2) {
+		BitSet diff = (BitSet)fp2.clone();
+		diff.andNot(fp1);
+		return diff.isEmpty();
+	}
+
+
+	/**
+	 * Encode a fingerprint as comma-separated (signed) hexadecimal words
+	 * @param fp	Fingerprint
+	 * @return Encoded fingerprint
+	 */
+	public static String encode(BitSet fp) {
+		StringBuilder sb = new StringBuilder();
+		for(long word : fp.toLongArray()) {
+			if(sb.length() > 0) sb.append(",");
+			sb.append(Long.toString(word, 16));
+		}
+		return (sb.length() > 0 ? sb.toString() : "-");
+	}
+
+
+	/**
+	 * Decode a fingerprint encoded by {@link #encode(BitSet)}
+	 * @param s	Encoded fingerprint
+	 * @return Fingerprint
+	 * @throws NumberFormatException if the string is not an encoded fingerprint
+	 */
+	public static BitSet decode(String s) {
+		if(s.equals("-")) return new BitSet();
+		String[] words = s.split(",");
+		long[] longs = new long[words.length];
+		for(int i = 0; i < words.length; i++)
+			longs[i] = Long.parseLong(words[i], 16);
+		return BitSet.valueOf(longs);
+	}
+
+
+	private synchronized int getId(OWLAxiom ax) {
+		Integer id = ids.get(ax);
+		if(id == null) {
+			id = ids.size();
+			ids.put(ax, id);
+		}
+		return id;
+	}
+}
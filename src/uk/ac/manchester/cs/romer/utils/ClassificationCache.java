@@ -0,0 +1,347 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.reasoner.OWLReasoner;
+
+import uk.ac.manchester.cs.romer.OntologyLoader;
+import uk.ac.manchester.cs.romer.ReasonerLoader;
+import uk.ac.manchester.cs.romer.reasonertasks.ClassifierResult;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * On-disk cache of classification results, keyed by a SHA-256 digest of the (sorted) logical axioms of the classified 
+ * ontology, together with the reasoner name, reasoner version and classification settings. Each entry holds the 
+ * classification time, the number of unsatisfiable classes and, where available, the entailments, kept as a binary 
+ * taxonomy file (see {@link TaxonomyWriter}). 
+ * </p><p>
+ * A timed out entry records the timeout it was obtained with, and is only reused for lookups with the same or a 
+ * smaller timeout. The cache is bounded in size: when it grows beyond its limit, the least recently used entries 
+ * are evicted. Entries are written to temporary files and atomically moved into place, taxonomy first, so the cache 
+ * can be shared by several processes.
+ * </p>
+ */
+public class ClassificationCache {
+	public static final long DEFAULT_MAX_SIZE = 512*1024*1024;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static Map<String,String> reasonerVersions = new HashMap<String,String>();
+	private File dir;
+	private long maxSize;
+	private int hits = 0, misses = 0;
+	
+	/**
+	 * Constructor
+	 * @param dirPath	Cache directory
+	 * @param maxSize	Maximum size of the cache (in bytes)
+	 */
+	public ClassificationCache(String dirPath, long maxSize) {
+		this.dir = new File(dirPath);
+		this.maxSize = maxSize;
+		dir.mkdirs();
+	}
+	
+	
+	/**
+	 * Constructor for a cache with the default maximum size
+	 * @param dirPath	Cache directory
+	 */
+	public ClassificationCache(String dirPath) {
+		this(dirPath, DEFAULT_MAX_SIZE);
+	}
+	
+	
+	/**
+	 * Get the cache key of a set of axioms classified by the given reasoner
+	 * @param axioms	Set of axioms; only logical axioms are taken into account
+	 * @param reasonerName	Reasoner name
+	 * @param config	Classification settings that affect the results (e.g., command line flags)
+	 * @return Cache key
+	 */
+	public static String getKey(Set<? extends OWLAxiom> axioms, String reasonerName, String config) {
+		return getKey(axioms, false, reasonerName, config);
+	}
+	
+	
+	/**
+	 * Get the cache key of a set of axioms classified by the given reasoner
+	 * @param axioms	Set of axioms; only logical axioms are taken into account
+	 * @param ignoreAbox	true if the ABox is ignored in classification, in which case ABox axioms are left out of the key
+	 * @param reasonerName	Reasoner name
+	 * @param config	Classification settings that affect the results (e.g., command line flags)
+	 * @return Cache key
+	 */
+	public static String getKey(Set<? extends OWLAxiom> axioms, boolean ignoreAbox, String reasonerName, String config) {
+		List<String> lines = new ArrayList<String>();
+		for(OWLAxiom ax : axioms) {
+			if(ax.isLogicalAxiom() && !(ignoreAbox && AxiomType.ABoxAxiomTypes.contains(ax.getAxiomType())))
+				lines.add(ax.getAxiomWithoutAnnotations().toString());
+		}
+		Collections.sort(lines);
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for(String line : lines) {
+				digest.update(line.getBytes(UTF8));
+				digest.update((byte)'\n');
+			}
+			digest.update((reasonerName.toLowerCase() + "\n" + getReasonerVersion(reasonerName) + "\n" + config).getBytes(UTF8));
+			StringBuilder sb = new StringBuilder();
+			for(byte b : digest.digest())
+				sb.append(String.format("%02x", b));
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	
+	/**
+	 * Get the cache key of the ontology in the given file
+	 * @param ontPath	Ontology file path
+	 * @param ignoreAbox	true if the ABox is ignored in classification
+	 * @param reasonerName	Reasoner name
+	 * @param config	Classification settings that affect the results (e.g., command line flags)
+	 * @return Cache key, or null if the ontology could not be loaded
+	 */
+	public static String getKey(String ontPath, boolean ignoreAbox, String reasonerName, String config) {
+		try {
+			OWLOntology ont = new OntologyLoader(new File(ontPath), false).loadOntology(ignoreAbox);
+			String key = getKey(ont.getAxioms(), ignoreAbox, reasonerName, config);
+			ont.getOWLOntologyManager().removeOntology(ont);
+			return key;
+		} catch (OWLOntologyCreationException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Get the version of the given reasoner, as reported by an instance over an empty ontology
+	 * @param reasonerName	Reasoner name
+	 * @return Reasoner version
+	 */
+	private static synchronized String getReasonerVersion(String reasonerName) {
+		String version = reasonerVersions.get(reasonerName.toLowerCase());
+		if(version == null) {
+			version = "unknown";
+			try {
+				ReasonerLoader loader = new ReasonerLoader(reasonerName, OWLManager.createOWLOntologyManager().createOntology(), false);
+				OWLReasoner reasoner = loader.getReasoner();
+				if(loader.getReasonerVersion() != null) version = loader.getReasonerVersion();
+				reasoner.dispose();
+			} catch (OWLOntologyCreationException | RuntimeException | LinkageError e) {
+				e.printStackTrace();
+			}
+			reasonerVersions.put(reasonerName.toLowerCase(), version);
+		}
+		return version;
+	}
+	
+	
+	/**
+	 * Look up a classification result
+	 * @param key	Cache key
+	 * @param timeout	Timeout of the classification that would otherwise be carried out (in milliseconds), 0 for none
+	 * @param needEntailments	true if the entailments are needed, false if the timing alone suffices
+	 * @return Classification result, or null if there is no usable entry
+	 */
+	public synchronized ClassifierResult get(String key, long timeout, boolean needEntailments) {
+		if(key == null) return null;
+		File metaFile = new File(dir, key + ".meta");
+		Properties meta = new Properties();
+		try {
+			InputStream in = new FileInputStream(metaFile);
+			meta.load(in);
+			in.close();
+		} catch (IOException e) {
+			misses++;
+			return null; // No entry
+		}
+		
+		double time = Double.parseDouble(meta.getProperty("time"));
+		boolean timedOut = Boolean.parseBoolean(meta.getProperty("timedOut"));
+		long entryTimeout = Long.parseLong(meta.getProperty("timeout"));
+		boolean hasEntailments = Boolean.parseBoolean(meta.getProperty("entailments"));
+		
+		ClassifierResult result = null;
+		if(timedOut) {
+			// Timed out with a given timeout: so would any classification with a smaller one
+			if(timeout > 0 && timeout <= entryTimeout)
+				result = new ClassifierResult(new HashSet<OWLAxiom>(), timeout/1000.0, 0, "", true, true);
+		}
+		else if(timeout > 0 && time*1000 > timeout)
+			result = new ClassifierResult(new HashSet<OWLAxiom>(), timeout/1000.0, 0, "", true, true);
+		else if(hasEntailments || !needEntailments) {
+			File taxFile = new File(dir, key + ".tax");
+			boolean consistent = Boolean.parseBoolean(meta.getProperty("consistent"));
+			if(hasEntailments && needEntailments && taxFile.exists()) {
+				try {
+					result = new ClassifierResult(new TaxonomyReader(taxFile.getAbsolutePath()).getTaxonomy(), time, "", consistent, false);
+				} catch (IOException e) {
+					e.printStackTrace();
+					misses++;
+					return null;
+				}
+			}
+			else
+				result = new ClassifierResult(new HashSet<OWLAxiom>(), time, Integer.parseInt(meta.getProperty("nrUnsat")), "", consistent, false);
+		}
+		if(result == null) {
+			misses++;
+			return null;
+		}
+		metaFile.setLastModified(System.currentTimeMillis());
+		hits++;
+		return result;
+	}
+	
+	
+	/**
+	 * Store a classification result. Results with an error other than a timeout are not stored
+	 * @param key	Cache key
+	 * @param result	Classification result
+	 * @param timeout	Timeout the classification was carried out with (in milliseconds), 0 for none
+	 * @param hasEntailments	true if the result holds the entailments, false if only its timing is known
+	 */
+	public synchronized void put(String key, ClassifierResult result, long timeout, boolean hasEntailments) {
+		if(key == null || result == null || !result.getErrorMessage().equals("")) return;
+		if(result.timedOut() && timeout == 0) return;
+		Properties meta = new Properties();
+		meta.setProperty("time", result.getReasoningTaskTime() + "");
+		meta.setProperty("timedOut", result.timedOut() + "");
+		meta.setProperty("timeout", timeout + "");
+		meta.setProperty("consistent", result.isConsistent() + "");
+		meta.setProperty("nrUnsat", result.getNumberOfUnsatisfiableClasses() + "");
+		meta.setProperty("entailments", (hasEntailments && !result.timedOut()) + "");
+		try {
+			// The taxonomy is in place before the metadata that announces it, and each is written to a temporary file 
+			// of its own and moved into place, so that other processes never see a partial entry
+			if(hasEntailments && !result.timedOut()) {
+				File tmpTaxFile = File.createTempFile(key, ".tax.tmp", dir);
+				boolean written = (result.hasTaxonomy() ? TaxonomyWriter.write(result.getTaxonomy(), tmpTaxFile.getAbsolutePath()) :
+						TaxonomyWriter.write(result.getEntailments(), tmpTaxFile.getAbsolutePath()));
+				if(written)
+					Files.move(tmpTaxFile.toPath(), new File(dir, key + ".tax").toPath(), StandardCopyOption.REPLACE_EXISTING, 
+							StandardCopyOption.ATOMIC_MOVE);
+				else
+					tmpTaxFile.delete(); // No subsumptions to keep
+			}
+			File tmpFile = File.createTempFile(key, ".meta.tmp", dir);
+			OutputStream out = new FileOutputStream(tmpFile);
+			meta.store(out, null);
+			out.close();
+			Files.move(tmpFile.toPath(), new File(dir, key + ".meta").toPath(), StandardCopyOption.REPLACE_EXISTING, 
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		evict();
+	}
+	
+	
+	/**
+	 * Evict the least recently used entries until the cache fits within its maximum size
+	 */
+	private void evict() {
+		File[] metaFiles = dir.listFiles();
+		if(metaFiles == null) return;
+		List<File> entries = new ArrayList<File>();
+		long size = 0;
+		for(File f : metaFiles) {
+			size += f.length();
+			if(f.getName().endsWith(".meta")) entries.add(f);
+		}
+		if(size <= maxSize) return;
+		
+		final Map<File,Long> lastUsed = new HashMap<File,Long>();
+		for(File f : entries)
+			lastUsed.put(f, f.lastModified());
+		Collections.sort(entries, new Comparator<File>() {
+			@Override
+			public int compare(File f1, File f2) {
+				return lastUsed.get(f1).compareTo(lastUsed.get(f2));
+			}
+		});
+		for(File f : entries) {
+			if(size <= maxSize) break;
+			String key = f.getName().substring(0, f.getName().length() - ".meta".length());
+			File taxFile = new File(dir, key + ".tax");
+			size -= f.length() + taxFile.length();
+			f.delete();
+			taxFile.delete();
+		}
+	}
+	
+	
+	/**
+	 * Get the number of lookups that found a usable entry
+	 * @return Number of cache hits
+	 */
+	public int getNumberOfHits() {
+		return hits;
+	}
+	
+	
+	/**
+	 * Get the number of lookups that did not find a usable entry
+	 * @return Number of cache misses
+	 */
+	public int getNumberOfMisses() {
+		return misses;
+	}
+	
+	
+	/**
+	 * Get the cache directory
+	 * @return Cache directory path
+	 */
+	public String getDirectory() {
+		return dir.getAbsolutePath();
+	}
+}
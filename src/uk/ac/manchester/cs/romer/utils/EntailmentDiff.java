@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import uk.ac.manchester.cs.romer.reasonertasks.ClassifierResult;
+import uk.ac.manchester.cs.romer.reasonertasks.SubsumptionHandler;
+import uk.ac.manchester.cs.romer.reasonertasks.Taxonomy;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Comparison of sets of entailments encoded as sorted arrays of ids, rather than as hash sets of axioms. An atomic
+ * subsumption is encoded as the number of its subclass in the upper half of a (non-negative) long and that of its
+ * superclass in the lower half, so the encoded subsumptions of each class are contiguous; any other axiom is
+ * encoded as a negative id. Trivial subsumptions (by owl:Thing, or of owl:Nothing) are left out. Two encoded sets
+ * are compared by merging them, split into as many ranges as there are threads (for large sets), which gives the
+ * entailments missing from, added by and shared with the reference set, along with the completeness of the
+ * subsumptions of each class.
+ * </p>
+ */
+public class EntailmentDiff {
+	private static final int MIN_PARALLEL_SIZE = 100000; // Smallest reference set whose comparison is split
+	private Map<OWLClass,Integer> classIds;
+	private List<OWLClass> classes;
+	private Map<OWLAxiom,Integer> axiomIds;
+	private List<OWLAxiom> axioms;
+	private int nrThreads;
+
+	/**
+	 * Constructor
+	 * @param nrThreads	Number of threads to split comparisons into
+	 */
+	public EntailmentDiff(int nrThreads) {
+		this.nrThreads = Math.max(nrThreads, 1);
+		this.classIds = new HashMap<OWLClass,Integer>();
+		this.classes = new ArrayList<OWLClass>();
+		this.axiomIds = new HashMap<OWLAxiom,Integer>();
+		this.axioms = new ArrayList<OWLAxiom>();
+	}
+
+
+	/**
+	 * Encode a set of entailments
+	 * @param entailments	Set of entailments
+	 * @return Sorted array of the ids of the entailments
+	 */
+	public synchronized long[] encode(Set<OWLAxiom> entailments) {
+		long[] ids = new long[entailments.size()];
+		int i = 0;
+		for(OWLAxiom ax : entailments) {
+			if(ax instanceof OWLSubClassOfAxiom && !((OWLSubClassOfAxiom)ax).getSubClass().isAnonymous() &&
+					!((OWLSubClassOfAxiom)ax).getSuperClass().isAnonymous()) {
+				OWLSubClassOfAxiom sub = (OWLSubClassOfAxiom)ax;
+				if(sub.getSuperClass().isOWLThing() || sub.getSubClass().isOWLNothing()) continue; // Trivial, as in taxonomies
+				ids[i++] = ((long)getId(sub.getSubClass().asOWLClass()) << 32) | getId(sub.getSuperClass().asOWLClass());
+			}
+			else {
+				Integer id = axiomIds.get(ax);
+				if(id == null) {
+					id = axioms.size();
+					axiomIds.put(ax, id);
+					axioms.add(ax);
+				}
+				ids[i++] = -(id+1L);
+			}
+		}
+		if(i < ids.length) ids = Arrays.copyOf(ids, i);
+		Arrays.sort(ids);
+		int k = 0; // Axioms with the same id (e.g., that differ only in annotations) are kept once
+		for(int j = 0; j < ids.length; j++) {
+			if(j == 0 || ids[j] != ids[k-1]) ids[k++] = ids[j];
+		}
+		return (k == ids.length ? ids : Arrays.copyOf(ids, k));
+	}
+
+
+	/**
+	 * Encode the atomic subsumptions of a taxonomy, without building them as OWL axioms
+	 * @param taxonomy	Taxonomy
+	 * @return Sorted array of the ids of the subsumptions, as given by {@link #encode(Set)} for the same subsumptions
+	 */
+	public synchronized long[] encode(Taxonomy taxonomy) {
+		final long[][] ids = {new long[taxonomy.getNumberOfAxioms()]};
+		final int[] size = {0};
+		taxonomy.read(new SubsumptionHandler() {
+			@Override
+			public void handle(OWLClass sub, OWLClass sup) {
+				if(size[0] == ids[0].length) ids[0] = Arrays.copyOf(ids[0], Math.max(16, size[0]*2));
+				ids[0][size[0]++] = ((long)getId(sub) << 32) | getId(sup);
+			}
+
+			@Override
+			public void finish() {}
+		});
+		long[] result = Arrays.copyOf(ids[0], size[0]);
+		Arrays.sort(result);
+		return result;
+	}
+
+
+	/**
+	 * Encode the entailments of a classification result, from its taxonomy if it holds one
+	 * @param result	Classification result
+	 * @return Sorted array of the ids of the entailments
+	 */
+	public long[] encode(ClassifierResult result) {
+		return (result.hasTaxonomy() ? encode(result.getTaxonomy()) : encode(result.getEntailments()));
+	}
+
+
+	/**
+	 * Decode an array of entailment ids
+	 * @param ids	Array of ids, as given by {@link #encode(Set)}
+	 * @param df	OWL data factory
+	 * @return Set of entailments
+	 */
+	public synchronized Set<OWLAxiom> decode(long[] ids, OWLDataFactory df) {
+		Set<OWLAxiom> result = new HashSet<OWLAxiom>();
+		for(long id : ids) {
+			if(id < 0) result.add(axioms.get((int)(-id-1)));
+			else result.add(df.getOWLSubClassOfAxiom(classes.get((int)(id >>> 32)), classes.get((int)id)));
+		}
+		return result;
+	}
+
+
+	/**
+	 * Get the union of two encoded sets of entailments
+	 * @param ids1	Sorted array of ids
+	 * @param ids2	Sorted array of ids
+	 * @return Sorted array of the ids in either array
+	 */
+	public static long[] union(long[] ids1, long[] ids2) {
+		long[] result = new long[ids1.length + ids2.length];
+		int i = 0, j = 0, k = 0;
+		while(i < ids1.length && j < ids2.length) {
+			if(ids1[i] < ids2[j]) result[k++] = ids1[i++];
+			else if(ids1[i] > ids2[j]) result[k++] = ids2[j++];
+			else {
+				result[k++] = ids1[i++];
+				j++;
+			}
+		}
+		while(i < ids1.length) result[k++] = ids1[i++];
+		while(j < ids2.length) result[k++] = ids2[j++];
+		return Arrays.copyOf(result, k);
+	}
+
+
+	/**
+	 * Compare an encoded set of entailments with a reference one
+	 * @param reference	Sorted array of the ids of the reference entailments (e.g., those of the ontology)
+	 * @param other	Sorted array of the ids of the entailments compared (e.g., those of an approximation)
+	 * @return Comparison
+	 */
+	public Diff diff(long[] reference, long[] other) {
+		int nrClasses;
+		synchronized(this) {
+			nrClasses = classes.size();
+		}
+		int nrParts = (reference.length < MIN_PARALLEL_SIZE ? 1 : nrThreads);
+		if(nrParts == 1)
+			return new Merge(reference, 0, reference.length, other, 0, other.length, nrClasses).call();
+
+		ExecutorService executor = Executors.newFixedThreadPool(nrParts);
+		List<Future<Diff>> futures = new ArrayList<Future<Diff>>();
+		int otherStart = 0;
+		for(int p = 0; p < nrParts; p++) {
+			int refStart = (int)((long)reference.length*p/nrParts), refEnd = (int)((long)reference.length*(p+1)/nrParts);
+			int otherEnd = (p == nrParts-1 ? other.length : lowerBound(other, reference[refEnd]));
+			futures.add(executor.submit(new Merge(reference, refStart, refEnd, other, otherStart, otherEnd, nrClasses)));
+			otherStart = otherEnd;
+		}
+		Diff result = new Diff(nrClasses);
+		try {
+			for(Future<Diff> f : futures)
+				result.add(f.get());
+		} catch (InterruptedException | ExecutionException e) {
+			e.printStackTrace();
+		} finally {
+			executor.shutdown();
+		}
+		return result;
+	}
+
+
+	private int getId(OWLClass c) {
+		Integer id = classIds.get(c);
+		if(id == null) {
+			id = classes.size();
+			classIds.put(c, id);
+			classes.add(c);
+		}
+		return id;
+	}
+
+
+	private static int lowerBound(long[] ids, long key) {
+		int i = Arrays.binarySearch(ids, key);
+		return (i >= 0 ? i : -i-1);
+	}
+
+
+	/**
+	 * Merge of a range of the reference entailments with the range of the other entailments that has the same ids
+	 */
+	private class Merge implements Callable<Diff> {
+		private long[] reference, other;
+		private int refStart, refEnd, otherStart, otherEnd, nrClasses;
+
+		public Merge(long[] reference, int refStart, int refEnd, long[] other, int otherStart, int otherEnd, int nrClasses) {
+			this.reference = reference;
+			this.refStart = refStart;
+			this.refEnd = refEnd;
+			this.other = other;
+			this.otherStart = otherStart;
+			this.otherEnd = otherEnd;
+			this.nrClasses = nrClasses;
+		}
+
+		@Override
+		public Diff call() {
+			Diff d = new Diff(nrClasses);
+			int i = refStart, j = otherStart;
+			while(i < refEnd || j < otherEnd) {
+				if(j >= otherEnd || (i < refEnd && reference[i] < other[j])) {
+					d.nrMissing++;
+					d.count(reference[i++], true);
+				}
+				else if(i >= refEnd || reference[i] > other[j]) {
+					d.nrExtra++;
+					j++;
+				}
+				else {
+					d.nrShared++;
+					d.count(reference[i++], false);
+					j++;
+				}
+			}
+			return d;
+		}
+	}
+
+
+	/**
+	 * Comparison of a set of entailments with a reference one
+	 */
+	public class Diff {
+		private int nrMissing = 0, nrExtra = 0, nrShared = 0;
+		private int[] missingPerClass, totalPerClass;
+
+		private Diff(int nrClasses) {
+			this.missingPerClass = new int[nrClasses];
+			this.totalPerClass = new int[nrClasses];
+		}
+
+		private void count(long id, boolean missing) {
+			if(id < 0) return; // Not an atomic subsumption
+			int c = (int)(id >>> 32);
+			totalPerClass[c]++;
+			if(missing) missingPerClass[c]++;
+		}
+
+		private void add(Diff d) {
+			nrMissing += d.nrMissing;
+			nrExtra += d.nrExtra;
+			nrShared += d.nrShared;
+			for(int c = 0; c < missingPerClass.length; c++) {
+				missingPerClass[c] += d.missingPerClass[c];
+				totalPerClass[c] += d.totalPerClass[c];
+			}
+		}
+
+		/**
+		 * @return Number of reference entailments not in the compared set
+		 */
+		public int getNumberOfMissingEntailments() {
+			return nrMissing;
+		}
+
+		/**
+		 * @return Number of entailments in the compared set but not in the reference set
+		 */
+		public int getNumberOfExtraEntailments() {
+			return nrExtra;
+		}
+
+		/**
+		 * @return Number of entailments in both sets
+		 */
+		public int getNumberOfSharedEntailments() {
+			return nrShared;
+		}
+
+		/**
+		 * @return Percentage of the reference entailments in the compared set (100 if there are none)
+		 */
+		public double getCompleteness() {
+			int total = nrMissing + nrShared;
+			return (total == 0 ? 100.0 : 100.0*nrShared/total);
+		}
+
+		/**
+		 * @return true if all reference entailments are in the compared set
+		 */
+		public boolean isComplete() {
+			return nrMissing == 0;
+		}
+
+		/**
+		 * Get the completeness of the subsumptions of each class that has reference subsumptions missing
+		 * @return Map of each such class to the percentage of its reference subsumptions in the compared set
+		 */
+		public Map<OWLClass,Double> getIncompleteClasses() {
+			Map<OWLClass,Double> result = new LinkedHashMap<OWLClass,Double>();
+			synchronized(EntailmentDiff.this) {
+				for(int c = 0; c < missingPerClass.length; c++) {
+					if(missingPerClass[c] > 0)
+						result.put(classes.get(c), 100.0*(totalPerClass[c]-missingPerClass[c])/totalPerClass[c]);
+				}
+			}
+			return result;
+		}
+	}
+}
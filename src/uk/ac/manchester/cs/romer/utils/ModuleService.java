@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLNamedIndividual;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+import com.clarkparsia.owlapi.modularity.locality.LocalityClass;
+import com.clarkparsia.owlapi.modularity.locality.SyntacticLocalityEvaluator;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Syntactic locality-based module extraction over a fixed ontology, shared by all callers that extract modules from it.
+ * The logical axioms are indexed by the entities they mention, so that extending the signature of a module only requires
+ * checking the locality of the axioms that mention the newly added entities. Modules are cached by type and signature;
+ * a bottom module is extracted starting from the (largest) cached bottom module whose signature is a subset of the given
+ * one, since bottom modules grow monotonically with their signature. Star modules are obtained from the bottom module
+ * by alternating top and bottom extraction until a fixpoint is reached.
+ * </p><p>
+ * Modules are the same as those extracted by {@link uk.ac.manchester.cs.owlapi.modularity.SyntacticLocalityModuleExtractor},
+ * including the declarations, annotation assertions and (same or different) individual axioms of the entities in the module
+ * signature. The ontology must not change while the service is in use. The service is safe to use from several threads.
+ * </p>
+ */
+public class ModuleService {
+	private Set<OWLAxiom> logicalAxioms;
+	private Map<OWLEntity,List<OWLAxiom>> index;
+	private Map<OWLEntity,Set<OWLAxiom>> enrichment;
+	private Set<OWLAxiom> globallyNonLocal;
+	private LinkedHashMap<CacheKey,Module> cache;
+	private long maxCachedAxioms, cachedAxioms = 0;
+	private int hits = 0, partialHits = 0, misses = 0;
+	private ThreadLocal<Map<LocalityClass,SyntacticLocalityEvaluator>> evaluators = new ThreadLocal<Map<LocalityClass,SyntacticLocalityEvaluator>>() {
+		@Override
+		protected Map<LocalityClass,SyntacticLocalityEvaluator> initialValue() { // Evaluators are not thread-safe
+			Map<LocalityClass,SyntacticLocalityEvaluator> map = new HashMap<LocalityClass,SyntacticLocalityEvaluator>();
+			map.put(LocalityClass.BOTTOM_BOTTOM, new SyntacticLocalityEvaluator(LocalityClass.BOTTOM_BOTTOM));
+			map.put(LocalityClass.TOP_TOP, new SyntacticLocalityEvaluator(LocalityClass.TOP_TOP));
+			return map;
+		}
+	};
+
+	/**
+	 * Constructor
+	 * @param ont	OWL ontology
+	 * @param maxCachedAxioms	Maximum number of axioms, summed over all cached modules, kept in the cache
+	 */
+	public ModuleService(OWLOntology ont, long maxCachedAxioms) {
+		this.maxCachedAxioms = maxCachedAxioms;
+		this.index = new HashMap<OWLEntity,List<OWLAxiom>>();
+		this.enrichment = new HashMap<OWLEntity,Set<OWLAxiom>>();
+		this.globallyNonLocal = new HashSet<OWLAxiom>();
+		this.logicalAxioms = new HashSet<OWLAxiom>(ont.getLogicalAxioms());
+		this.cache = new LinkedHashMap<CacheKey,Module>(16, 0.75f, true);
+
+		SyntacticLocalityEvaluator bottom = getEvaluator(LocalityClass.BOTTOM_BOTTOM);
+		Set<OWLEntity> empty = Collections.emptySet();
+		for(OWLAxiom ax : logicalAxioms) {
+			for(OWLEntity e : ax.getSignature()) {
+				if(!index.containsKey(e)) index.put(e, new ArrayList<OWLAxiom>());
+				index.get(e).add(ax);
+			}
+			if(!bottom.isLocal(ax, empty)) globallyNonLocal.add(ax);
+		}
+		for(OWLEntity e : ont.getSignature()) {
+			Set<OWLAxiom> axioms = new HashSet<OWLAxiom>(ont.getDeclarationAxioms(e));
+			axioms.addAll(e.getAnnotationAssertionAxioms(ont));
+			if(e instanceof OWLNamedIndividual) {
+				axioms.addAll(ont.getSameIndividualAxioms((OWLNamedIndividual)e));
+				axioms.addAll(ont.getDifferentIndividualAxioms((OWLNamedIndividual)e));
+			}
+			if(!axioms.isEmpty()) enrichment.put(e, axioms);
+		}
+	}
+
+
+	/**
+	 * Constructor for a service that caches up to 10 times as many axioms as there are logical axioms in the ontology
+	 * @param ont	OWL ontology
+	 */
+	public ModuleService(OWLOntology ont) {
+		this(ont, 10L*ont.getLogicalAxiomCount());
+	}
+
+
+	/**
+	 * Extract a module
+	 * @param signature	Seed signature
+	 * @param type	Module type
+	 * @return Module, as a (new) set of axioms
+	 */
+	public Set<OWLAxiom> extract(Set<? extends OWLEntity> signature, ModuleType type) {
+		Module module = getModule(signature, type);
+		Set<OWLAxiom> result = new HashSet<OWLAxiom>(module.axioms);
+		for(OWLEntity e : module.signature) {
+			Set<OWLAxiom> axioms = enrichment.get(e);
+			if(axioms != null) result.addAll(axioms);
+		}
+		return result;
+	}
+
+
+	/**
+	 * Extract the logical axioms of a module, i.e., without the declarations, annotation assertions and
+	 * individual axioms of its signature
+	 * @param signature	Seed signature
+	 * @param type	Module type
+	 * @return Logical axioms of the module, as an unmodifiable set
+	 */
+	public Set<OWLAxiom> extractLogicalModule(Set<? extends OWLEntity> signature, ModuleType type) {
+		return getModule(signature, type).axioms;
+	}
+
+
+	private Module getModule(Set<? extends OWLEntity> signature, ModuleType type) {
+		Set<OWLEntity> sig = new HashSet<OWLEntity>(signature);
+		Module module = get(type, sig, true);
+		if(module == null) {
+			if(type.equals(ModuleType.BOT))
+				module = extractBottomModule(sig);
+			else if(type.equals(ModuleType.STAR)) {
+				Module bot = get(ModuleType.BOT, sig, false);
+				if(bot == null) {
+					bot = extractBottomModule(sig);
+					put(ModuleType.BOT, sig, bot);
+				}
+				module = extractStarModule(bot.axioms, sig);
+			}
+			else {
+				Set<OWLEntity> moduleSig = new HashSet<OWLEntity>(sig);
+				module = new Module(extractLogicalAxioms(logicalAxioms, moduleSig, LocalityClass.TOP_TOP), moduleSig);
+			}
+			put(type, sig, module);
+		}
+		return module;
+	}
+
+
+	/**
+	 * Get the number of extractions answered directly from the cache
+	 * @return Number of cache hits
+	 */
+	public synchronized int getNumberOfHits() {
+		return hits;
+	}
+
+
+	/**
+	 * Get the number of bottom module extractions that started from the cached module of a smaller signature
+	 * @return Number of partial cache hits
+	 */
+	public synchronized int getNumberOfPartialHits() {
+		return partialHits;
+	}
+
+
+	public synchronized int getNumberOfMisses() {
+		return misses;
+	}
+
+
+	/**
+	 * Extract the bottom module of the given signature, starting from the largest cached bottom module whose
+	 * signature is a subset of it
+	 * @param sig	Signature
+	 * @return Bottom module (without enrichment)
+	 */
+	private Module extractBottomModule(Set<OWLEntity> sig) {
+		Module base = getLargestSubsetModule(sig);
+		Set<OWLAxiom> module = new HashSet<OWLAxiom>();
+		Set<OWLEntity> moduleSig = new HashSet<OWLEntity>(sig);
+		Deque<OWLEntity> queue = new ArrayDeque<OWLEntity>();
+		if(base != null) {
+			module.addAll(base.axioms);
+			moduleSig.addAll(base.signature);
+			for(OWLEntity e : sig)
+				if(!base.signature.contains(e)) queue.add(e);
+		}
+		else {
+			queue.addAll(sig);
+			for(OWLAxiom ax : globallyNonLocal) {
+				module.add(ax);
+				for(OWLEntity e : ax.getSignature())
+					if(moduleSig.add(e)) queue.add(e);
+			}
+		}
+
+		// An axiom can only become non-local when an entity it mentions is added to the signature
+		SyntacticLocalityEvaluator evaluator = getEvaluator(LocalityClass.BOTTOM_BOTTOM);
+		while(!queue.isEmpty()) {
+			List<OWLAxiom> axioms = index.get(queue.poll());
+			if(axioms == null) continue;
+			for(OWLAxiom ax : axioms) {
+				if(!module.contains(ax) && !evaluator.isLocal(ax, moduleSig)) {
+					module.add(ax);
+					for(OWLEntity e : ax.getSignature())
+						if(moduleSig.add(e)) queue.add(e);
+				}
+			}
+		}
+		return new Module(module, moduleSig);
+	}
+
+
+	/**
+	 * Extract a star module from the given bottom module, by alternately extracting top and bottom modules
+	 * until the module no longer changes
+	 * @param axioms	Bottom module
+	 * @param sig	Seed signature
+	 * @return Star module (without enrichment)
+	 */
+	private Module extractStarModule(Set<OWLAxiom> axioms, Set<OWLEntity> sig) {
+		Set<OWLAxiom> module = axioms;
+		Set<OWLEntity> moduleSig = null;
+		LocalityClass next = LocalityClass.TOP_TOP;
+		while(true) {
+			moduleSig = new HashSet<OWLEntity>(sig);
+			Set<OWLAxiom> m = extractLogicalAxioms(module, moduleSig, next);
+			boolean changed = (m.size() != module.size());
+			module = m;
+			if(!changed) break;
+			next = (next.equals(LocalityClass.TOP_TOP) ? LocalityClass.BOTTOM_BOTTOM : LocalityClass.TOP_TOP);
+		}
+		return new Module(module, moduleSig);
+	}
+
+
+	/**
+	 * Extract the axioms, out of the given ones, that are non-local w.r.t. the signature, extending the signature
+	 * with that of each axiom added, until no more axioms are added
+	 * @param axioms	Axioms
+	 * @param sig	Signature, which is extended with that of the module
+	 * @param cls	Locality class
+	 * @return Module
+	 */
+	private Set<OWLAxiom> extractLogicalAxioms(Collection<OWLAxiom> axioms, Set<OWLEntity> sig, LocalityClass cls) {
+		SyntacticLocalityEvaluator evaluator = getEvaluator(cls);
+		Set<OWLAxiom> module = new HashSet<OWLAxiom>();
+		Set<OWLAxiom> remaining = new HashSet<OWLAxiom>(axioms);
+		boolean changed = true;
+		while(changed) {
+			changed = false;
+			for(Iterator<OWLAxiom> it = remaining.iterator(); it.hasNext();) {
+				OWLAxiom ax = it.next();
+				if(!evaluator.isLocal(ax, sig)) {
+					module.add(ax);
+					it.remove();
+					if(sig.addAll(ax.getSignature())) changed = true;
+				}
+			}
+		}
+		return module;
+	}
+
+
+	private SyntacticLocalityEvaluator getEvaluator(LocalityClass cls) {
+		return evaluators.get().get(cls);
+	}
+
+
+	private synchronized Module get(ModuleType type, Set<OWLEntity> sig, boolean count) {
+		Module m = cache.get(new CacheKey(type, sig));
+		if(count && m != null) hits++;
+		return m;
+	}
+
+
+	private synchronized Module getLargestSubsetModule(Set<OWLEntity> sig) {
+		Module best = null;
+		for(Map.Entry<CacheKey,Module> e : cache.entrySet()) {
+			CacheKey key = e.getKey();
+			if(key.type.equals(ModuleType.BOT) && key.signature.size() <= sig.size() && sig.containsAll(key.signature) &&
+					(best == null || e.getValue().axioms.size() > best.axioms.size()))
+				best = e.getValue();
+		}
+		if(best != null) partialHits++;
+		else misses++;
+		return best;
+	}
+
+
+	private synchronized void put(ModuleType type, Set<OWLEntity> sig, Module module) {
+		if(module.axioms.size() > maxCachedAxioms) return;
+		Module old = cache.put(new CacheKey(type, sig), module);
+		if(old != null) cachedAxioms -= old.axioms.size();
+		cachedAxioms += module.axioms.size();
+		Iterator<Module> it = cache.values().iterator(); // Least recently used first
+		while(cachedAxioms > maxCachedAxioms && it.hasNext()) {
+			cachedAxioms -= it.next().axioms.size();
+			it.remove();
+		}
+	}
+
+
+	/**
+	 * A module (logical axioms only), together with its signature extended with that of its axioms
+	 */
+	private static class Module {
+		private Set<OWLAxiom> axioms;
+		private Set<OWLEntity> signature;
+
+		public Module(Set<OWLAxiom> axioms, Set<OWLEntity> signature) {
+			this.axioms = Collections.unmodifiableSet(axioms);
+			this.signature = Collections.unmodifiableSet(signature);
+		}
+	}
+
+
+	private static class CacheKey {
+		private ModuleType type;
+		private Set<OWLEntity> signature;
+
+		public CacheKey(ModuleType type, Set<OWLEntity> signature) {
+			this.type = type;
+			this.signature = signature;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31*type.hashCode() + signature.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof CacheKey)) return false;
+			CacheKey k = (CacheKey)o;
+			return type.equals(k.type) && signature.equals(k.signature);
+		}
+	}
+}
@@ -23,15 +23,11 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Collection;
 import java.util.Set;
 
-import org.semanticweb.owlapi.apibinding.OWLManager;
-import org.semanticweb.owlapi.io.OWLXMLOntologyFormat;
-import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLObject;
-import org.semanticweb.owlapi.model.OWLOntologyCreationException;
-import org.semanticweb.owlapi.model.OWLOntologyManager;
-import org.semanticweb.owlapi.model.OWLOntologyStorageException;
 import org.semanticweb.owlapi.util.SimpleShortFormProvider;
 
 import uk.ac.manchester.cs.owl.owlapi.mansyntaxrenderer.ManchesterOWLSyntaxObjectRenderer;
@@ -120,16 +116,33 @@ public class ResultsSerializer {
 	}
 
 
+	/**
+	 * Get the path of the file where classification results are serialized
+	 * @return Classification results file path
+	 */
+	public String getClassificationOutputPath() {
+		return prepOutput("_infSubs.owl");
+	}
+	
+	
+	/**
+	 * Get the path of the file where classification results are serialized in binary form
+	 * @return Binary classification results file path
+	 */
+	public String getBinaryClassificationOutputPath() {
+		return prepOutput("_infSubs.tax");
+	}
+	
+	
 	/**
 	 * Serialize classification results
 	 * @param cr	Classifier results
 	 */
 	public String serialize(ClassifierResult cr) {
-		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
 		String name = prepOutput("_infSubs.owl");
 		try {
-			man.saveOntology(man.createOntology(cr.getEntailments()), new OWLXMLOntologyFormat(), IRI.create("file:" + name));
-		} catch (OWLOntologyStorageException | OWLOntologyCreationException e) {
+			StreamingOntologyWriter.write(cr.getEntailments(), name);
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		return name;
@@ -141,16 +154,37 @@ public class ResultsSerializer {
 	 * @param rr	Realizer results
 	 */
 	public void serialize(RealizerResult rr) {
-		OWLOntologyManager man = OWLManager.createOWLOntologyManager();
 		String name = prepOutput("_infAssertions.owl");
 		try {
-			man.saveOntology(man.createOntology(rr.getEntailments()), new OWLXMLOntologyFormat(), IRI.create(new File(name)));
-		} catch (OWLOntologyStorageException | OWLOntologyCreationException e) {
+			StreamingOntologyWriter.write(rr.getEntailments(), name);
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 	
 	
+	/**
+	 * Serialize the classes left unprocessed by a partial classification, one IRI per line (the same format
+	 * accepted as a priority list by the entailment generator)
+	 * @param classes	Unprocessed classes
+	 * @return Output file path
+	 */
+	public String serializeUnclassifiedClasses(Collection<OWLClass> classes) {
+		String name = prepOutput("_unclassified.txt");
+		try {
+			BufferedWriter out = new BufferedWriter(new FileWriter(new File(name)));
+			for(OWLClass c : classes) {
+				out.write(c.getIRI().toString());
+				out.newLine();
+			}
+			out.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return name;
+	}
+	
+	
 	/**
 	 * Prepare output buffer
 	 * @param suffix	Suffix for filename
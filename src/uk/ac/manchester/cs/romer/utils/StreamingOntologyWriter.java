@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+import org.coode.owlapi.functionalrenderer.OWLObjectRenderer;
+import org.coode.owlapi.owlxml.renderer.OWLXMLObjectRenderer;
+import org.coode.owlapi.owlxml.renderer.OWLXMLWriter;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.io.OWLRendererException;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLObjectVisitor;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Writes axioms to an OWL/XML or OWL functional syntax file one at a time, without building an (indexed) ontology 
+ * from them first. Only the header uses an (empty) ontology object. The output can optionally be gzipped.
+ * </p>
+ */
+public class StreamingOntologyWriter {
+	private Writer out;
+	private OWLObjectVisitor renderer;
+	private OWLXMLWriter xmlWriter;
+	private OutputFormat format;
+	private int count = 0;
+	
+	/**
+	 * Constructor
+	 * @param filePath	Output file path
+	 * @param format	Output format
+	 * @param gzip	true if the output should be gzipped, false otherwise
+	 * @throws IOException
+	 */
+	public StreamingOntologyWriter(String filePath, OutputFormat format, boolean gzip) throws IOException {
+		this.format = format;
+		File file = new File(filePath);
+		if(file.getParentFile() != null) file.getParentFile().mkdirs();
+		OutputStream os = new FileOutputStream(file);
+		if(gzip) os = new GZIPOutputStream(os, 1 << 16);
+		out = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"), 1 << 16);
+		
+		OWLOntology header = null;
+		try {
+			header = OWLManager.createOWLOntologyManager().createOntology();
+		} catch (OWLOntologyCreationException e) {
+			throw new IOException(e);
+		}
+		if(format == OutputFormat.OWLXML) {
+			xmlWriter = new OWLXMLWriter(out, header);
+			renderer = new OWLXMLObjectRenderer(xmlWriter);
+			try {
+				xmlWriter.startDocument(header);
+			} catch (OWLRendererException e) {
+				throw new IOException(e);
+			}
+		}
+		else {
+			OWLObjectRenderer funRenderer = new OWLObjectRenderer(header, out);
+			funRenderer.writePrefixes();
+			out.write("\n\nOntology(\n");
+			renderer = funRenderer;
+		}
+	}
+	
+	
+	/**
+	 * Write an axiom
+	 * @param ax	OWL axiom
+	 * @throws IOException
+	 */
+	public void write(OWLAxiom ax) throws IOException {
+		ax.accept(renderer);
+		if(format == OutputFormat.FUNCTIONAL) out.write("\n");
+		count++;
+	}
+	
+	
+	/**
+	 * Write all axioms given by an iterator
+	 * @param axioms	Axiom iterator
+	 * @throws IOException
+	 */
+	public void write(Iterator<? extends OWLAxiom> axioms) throws IOException {
+		while(axioms.hasNext())
+			write(axioms.next());
+	}
+	
+	
+	/**
+	 * Finish the document and close the output
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		if(format == OutputFormat.OWLXML)
+			xmlWriter.endDocument();
+		else
+			out.write(")\n");
+		out.close();
+	}
+	
+	
+	/**
+	 * Get the number of axioms written so far
+	 * @return Number of axioms written
+	 */
+	public int getNumberOfAxioms() {
+		return count;
+	}
+	
+	
+	/**
+	 * Write a collection of axioms to a file
+	 * @param axioms	Axioms to be written
+	 * @param filePath	Output file path
+	 * @param format	Output format
+	 * @param gzip	true if the output should be gzipped, false otherwise
+	 * @throws IOException
+	 */
+	public static void write(Iterable<? extends OWLAxiom> axioms, String filePath, OutputFormat format, boolean gzip) throws IOException {
+		StreamingOntologyWriter writer = new StreamingOntologyWriter(filePath, format, gzip);
+		writer.write(axioms.iterator());
+		writer.close();
+	}
+	
+	
+	/**
+	 * Write a collection of axioms to an (uncompressed) OWL/XML file
+	 * @param axioms	Axioms to be written
+	 * @param filePath	Output file path
+	 * @throws IOException
+	 */
+	public static void write(Iterable<? extends OWLAxiom> axioms, String filePath) throws IOException {
+		write(axioms, filePath, OutputFormat.OWLXML, false);
+	}
+	
+	
+	/**
+	 * Output format
+	 */
+	public enum OutputFormat {
+		OWLXML		("OWL/XML"),
+		FUNCTIONAL	("OWL Functional Syntax");
+		
+		String name;
+		OutputFormat(String name) {
+			this.name = name;
+		}
+		
+		public String toString() {
+			return name;
+		}
+	}
+}
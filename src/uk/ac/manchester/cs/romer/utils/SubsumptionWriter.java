@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import uk.ac.manchester.cs.romer.reasonertasks.SubsumptionHandler;
+import uk.ac.manchester.cs.romer.utils.StreamingOntologyWriter.OutputFormat;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Pipeline stage that writes subsumptions to an OWL/XML file as they arrive. The output is written to a temporary 
+ * file, which only replaces the target file once the pipeline is finished, so an interrupted run leaves no partial output
+ * </p>
+ */
+public class SubsumptionWriter implements SubsumptionHandler {
+	private SubsumptionHandler next;
+	private File file, tmpFile;
+	private StreamingOntologyWriter writer;
+	private OWLDataFactory df;
+	private int count = 0;
+	
+	/**
+	 * Constructor
+	 * @param filePath	Output file path
+	 * @param next	Next pipeline stage (may be null)
+	 * @throws IOException
+	 */
+	public SubsumptionWriter(String filePath, SubsumptionHandler next) throws IOException {
+		this.next = next;
+		this.file = new File(filePath);
+		this.tmpFile = new File(filePath + ".tmp");
+		if(file.getParentFile() != null) file.getParentFile().mkdirs();
+		
+		this.df = OWLManager.getOWLDataFactory();
+		this.writer = new StreamingOntologyWriter(tmpFile.getAbsolutePath(), OutputFormat.OWLXML, false);
+	}
+	
+	
+	@Override
+	public void handle(OWLClass sub, OWLClass sup) {
+		try {
+			writer.write(df.getOWLSubClassOfAxiom(sub, sup));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		count++;
+		if(next != null) next.handle(sub, sup);
+	}
+	
+	
+	@Override
+	public void finish() {
+		try {
+			writer.close();
+			if(count > 0) {
+				file.delete();
+				tmpFile.renameTo(file);
+			}
+			else tmpFile.delete();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		if(next != null) next.finish();
+	}
+	
+	
+	/**
+	 * Check whether the output file was written, i.e., at least one subsumption was seen
+	 * @return true if the output file was written, false otherwise
+	 */
+	public boolean wroteOutput() {
+		return count > 0;
+	}
+	
+	
+	/**
+	 * Get the output file path
+	 * @return Output file path
+	 */
+	public String getFilePath() {
+		return file.getAbsolutePath();
+	}
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import uk.ac.manchester.cs.romer.reasonertasks.SubsumptionCollector;
+import uk.ac.manchester.cs.romer.reasonertasks.SubsumptionCounter;
+import uk.ac.manchester.cs.romer.reasonertasks.SubsumptionHandler;
+import uk.ac.manchester.cs.romer.reasonertasks.Taxonomy;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Reader for binary taxonomy files written by {@link TaxonomyWriter}. The file is memory-mapped, and the subsumption
+ * records are only decoded when pushed through a pipeline, e.g., to collect them as OWL axioms or to convert them
+ * into an OWL/XML file.
+ * </p>
+ */
+public class TaxonomyReader {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private ByteBuffer buf;
+	private String[] iris;
+	private OWLClass[] classes;
+	private int recordsStart, nrSubsumptions = 0;
+	private OWLDataFactory df;
+	
+	/**
+	 * Constructor
+	 * @param filePath	Binary taxonomy file path
+	 * @throws IOException
+	 */
+	public TaxonomyReader(String filePath) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(new File(filePath), "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buf = mapped;
+		} finally {
+			raf.close();
+		}
+		if(buf.getInt() != TaxonomyWriter.MAGIC)
+			throw new IOException("Not a taxonomy file: " + filePath);
+		int version = buf.getInt();
+		if(version != TaxonomyWriter.VERSION)
+			throw new IOException("Unsupported taxonomy file version: " + version);
+		
+		String[] table = readIRITable(new String[0]);
+		recordsStart = buf.position();
+		
+		// Skip over the records to reach the additional IRI table
+		int sub;
+		while((sub = readVarint(buf)) != 0) {
+			int n = readVarint(buf);
+			for(int i = 0; i < n; i++) readVarint(buf);
+			nrSubsumptions += n;
+		}
+		iris = readIRITable(table);
+		classes = new OWLClass[iris.length];
+		df = OWLManager.getOWLDataFactory();
+	}
+	
+	
+	/**
+	 * Read a front-coded IRI table, appending it to the given one
+	 * @param table	IRIs read so far
+	 * @return All IRIs read
+	 */
+	private String[] readIRITable(String[] table) {
+		int size = readVarint(buf);
+		String[] output = Arrays.copyOf(table, table.length + size);
+		byte[] prev = new byte[0];
+		for(int i = 0; i < size; i++) {
+			int prefix = readVarint(buf), suffix = readVarint(buf);
+			byte[] bytes = Arrays.copyOf(prev, prefix + suffix);
+			buf.get(bytes, prefix, suffix);
+			output[table.length + i] = new String(bytes, UTF8);
+			prev = bytes;
+		}
+		return output;
+	}
+	
+	
+	/**
+	 * Push all subsumptions in the file through the given pipeline
+	 * @param handler	Pipeline stage
+	 */
+	public void read(SubsumptionHandler handler) {
+		ByteBuffer in = buf.duplicate();
+		in.position(recordsStart);
+		int sub;
+		while((sub = readVarint(in)) != 0) {
+			OWLClass subClass = getOWLClass(sub - 1);
+			int n = readVarint(in), sup = 0;
+			for(int i = 0; i < n; i++) {
+				sup += readVarint(in);
+				handler.handle(subClass, getOWLClass(sup));
+			}
+		}
+		handler.finish();
+	}
+	
+	
+	/**
+	 * Get the subsumptions in the file as SubClassOf axioms
+	 * @return Set of atomic subsumptions
+	 */
+	public Set<OWLAxiom> getAxioms() {
+		SubsumptionCollector collector = new SubsumptionCollector(df);
+		read(collector);
+		return collector.getAxioms();
+	}
+	
+	
+	/**
+	 * Get the subsumptions in the file as a taxonomy, without building them as OWL axioms
+	 * @return Taxonomy
+	 */
+	public Taxonomy getTaxonomy() {
+		Taxonomy.Builder builder = new Taxonomy.Builder();
+		read(builder);
+		return builder.build();
+	}
+	
+	
+	/**
+	 * Get the unsatisfiable classes recorded in the file
+	 * @return Set of unsatisfiable classes
+	 */
+	public Set<OWLClass> getUnsatisfiableClasses() {
+		SubsumptionCounter counter = new SubsumptionCounter(null);
+		read(counter);
+		return counter.getUnsatisfiableClasses();
+	}
+	
+	
+	/**
+	 * Convert the file into an OWL/XML ontology file
+	 * @param filePath	Output file path
+	 * @throws IOException
+	 */
+	public void toOWLXML(String filePath) throws IOException {
+		read(new SubsumptionWriter(filePath, null));
+	}
+	
+	
+	/**
+	 * Get the number of subsumptions in the file
+	 * @return Number of subsumptions
+	 */
+	public int getNumberOfSubsumptions() {
+		return nrSubsumptions;
+	}
+	
+	
+	/**
+	 * Get the number of classes in the IRI table
+	 * @return Number of classes
+	 */
+	public int getNumberOfClasses() {
+		return iris.length;
+	}
+	
+	
+	/**
+	 * Get the class with the given id
+	 * @param id	Class id
+	 * @return OWL class
+	 */
+	public OWLClass getOWLClass(int id) {
+		OWLClass c = classes[id];
+		if(c == null) {
+			c = df.getOWLClass(IRI.create(iris[id]));
+			classes[id] = c;
+		}
+		return c;
+	}
+	
+	
+	/**
+	 * Read an unsigned varint
+	 * @param in	Byte buffer
+	 * @return Integer value
+	 */
+	public static int readVarint(ByteBuffer in) {
+		int value = 0, shift = 0;
+		byte b;
+		do {
+			b = in.get();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while((b & 0x80) != 0);
+		return value;
+	}
+}
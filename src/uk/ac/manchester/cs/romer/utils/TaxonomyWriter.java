@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * This file is part of romer.
+ *
+ * romer is distributed under the terms of the GNU Lesser General Public License (LGPL), Version 3.0.
+ *
+ * Copyright 2011-2014, The University of Manchester
+ *
+ * romer is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * romer is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with romer.
+ * If not, see http://www.gnu.org/licenses/.
+ ******************************************************************************/
+package uk.ac.manchester.cs.romer.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import uk.ac.manchester.cs.romer.reasonertasks.SubsumptionHandler;
+import uk.ac.manchester.cs.romer.reasonertasks.Taxonomy;
+
+/**
+ * @author Rafael S. Goncalves <br/>
+ * Information Management Group (IMG) <br/>
+ * School of Computer Science <br/>
+ * University of Manchester <br/>
+ * <p>
+ * Pipeline stage that writes subsumptions to a compact binary taxonomy file, which can be read back with 
+ * {@link TaxonomyReader}. All integers are unsigned varints. The layout is:
+ * <ul>
+ * <li>Magic number and format version (4 bytes each)</li>
+ * <li>IRI table: number of IRIs, then each IRI (in lexicographic order) front-coded against the previous one as 
+ * the length of the shared UTF-8 prefix, the length of the remaining suffix, and the suffix bytes. The IRI id is 
+ * its position in the table</li>
+ * <li>Records: subclass id + 1, number of superclasses, and the sorted superclass ids, delta-encoded. A record with 
+ * subclass 0 ends the list. Unsatisfiable classes have owl:Nothing as their only superclass</li>
+ * <li>Additional IRI table, front-coded in the same way, for classes that were not known upfront</li>
+ * </ul>
+ * Subsumptions of the same class pushed consecutively go into a single record. Should the class be pushed again later, 
+ * a further record holds only the superclasses not written before, so that each subsumption is written (and counted, 
+ * see {@link #getNumberOfSubsumptions()}) once. The output is written to a temporary file, which only replaces the 
+ * target file once the pipeline is finished.
+ * </p>
+ */
+public class TaxonomyWriter implements SubsumptionHandler {
+	public static final int MAGIC = 0x524F4D54; // "ROMT"
+	public static final int VERSION = 1;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private SubsumptionHandler next;
+	private File file, tmpFile;
+	private DataOutputStream out;
+	private Map<OWLClass,Integer> ids;
+	private List<String> extraIRIs;
+	private int current = -1, nrSups = 0, count = 0, nrSubsumptions = 0;
+	private int[] sups = new int[16];
+	private int[][] written; // Sorted superclass ids written so far for each subclass id, null if none
+	
+	/**
+	 * Constructor
+	 * @param filePath	Output file path
+	 * @param signature	Classes expected in the output, e.g., the classes in the ontology signature
+	 * @param next	Next pipeline stage (may be null)
+	 * @throws IOException
+	 */
+	public TaxonomyWriter(String filePath, Set<OWLClass> signature, SubsumptionHandler next) throws IOException {
+		this.next = next;
+		this.file = new File(filePath);
+		this.tmpFile = new File(filePath + ".tmp");
+		if(file.getParentFile() != null) file.getParentFile().mkdirs();
+		
+		TreeMap<String,OWLClass> iris = new TreeMap<String,OWLClass>();
+		for(OWLClass c : signature)
+			iris.put(c.getIRI().toString(), c);
+		OWLClass nothing = OWLManager.getOWLDataFactory().getOWLNothing();
+		iris.put(nothing.getIRI().toString(), nothing);
+		
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeIRITable(iris.keySet());
+		
+		ids = new HashMap<OWLClass,Integer>(iris.size()*2);
+		extraIRIs = new ArrayList<String>();
+		for(OWLClass c : iris.values())
+			ids.put(c, ids.size());
+		written = new int[ids.size()][];
+	}
+	
+	
+	/**
+	 * Write a front-coded IRI table
+	 * @param iris	Collection of IRIs, in the order of their ids
+	 * @throws IOException
+	 */
+	private void writeIRITable(Collection<String> iris) throws IOException {
+		writeVarint(out, iris.size());
+		byte[] prev = new byte[0];
+		for(String iri : iris) {
+			byte[] bytes = iri.getBytes(UTF8);
+			int prefix = 0, max = Math.min(prev.length, bytes.length);
+			while(prefix < max && prev[prefix] == bytes[prefix]) prefix++;
+			writeVarint(out, prefix);
+			writeVarint(out, bytes.length - prefix);
+			out.write(bytes, prefix, bytes.length - prefix);
+			prev = bytes;
+		}
+	}
+	
+	
+	@Override
+	public void handle(OWLClass sub, OWLClass sup) {
+		int a = getId(sub), b = getId(sup);
+		try {
+			if(a != current) flushRecord();
+			current = a;
+			if(nrSups == sups.length) sups = Arrays.copyOf(sups, nrSups*2);
+			sups[nrSups++] = b;
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		count++;
+		if(next != null) next.handle(sub, sup);
+	}
+	
+	
+	@Override
+	public void finish() {
+		try {
+			flushRecord();
+			writeVarint(out, 0);
+			writeIRITable(extraIRIs);
+			out.close();
+			if(count > 0) {
+				file.delete();
+				tmpFile.renameTo(file);
+			}
+			else tmpFile.delete();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		if(next != null) next.finish();
+	}
+	
+	
+	/**
+	 * Write the record for the current subclass
+	 * @throws IOException
+	 */
+	private void flushRecord() throws IOException {
+		if(current == -1 || nrSups == 0) return;
+		Arrays.sort(sups, 0, nrSups);
+		int[] prior = (current < written.length ? written[current] : null);
+		int n = 0;
+		for(int i = 0; i < nrSups; i++) {
+			if((n == 0 || sups[n-1] != sups[i]) && (prior == null || Arrays.binarySearch(prior, sups[i]) < 0)) 
+				sups[n++] = sups[i];
+		}
+		nrSups = 0;
+		if(n == 0) return; // All written before
+		writeVarint(out, current + 1);
+		writeVarint(out, n);
+		int prev = 0;
+		for(int i = 0; i < n; i++) {
+			writeVarint(out, sups[i] - prev);
+			prev = sups[i];
+		}
+		nrSubsumptions += n;
+		if(current >= written.length) written = Arrays.copyOf(written, Math.max(current + 1, written.length*2));
+		written[current] = merge(prior, sups, n);
+	}
+	
+	
+	/**
+	 * Merge a sorted array with the first elements of another, disjoint from it
+	 * @param a	Sorted array, may be null
+	 * @param b	Array whose first n elements are sorted
+	 * @param n	Number of elements of b to merge
+	 * @return Sorted array with the elements of both
+	 */
+	private static int[] merge(int[] a, int[] b, int n) {
+		if(a == null) return Arrays.copyOf(b, n);
+		int[] output = new int[a.length + n];
+		int i = 0, j = 0, k = 0;
+		while(i < a.length || j < n) {
+			if(j == n || (i < a.length && a[i] < b[j])) output[k++] = a[i++];
+			else output[k++] = b[j++];
+		}
+		return output;
+	}
+	
+	
+	/**
+	 * Get the id of a class, adding it to the additional IRI table if it was not known upfront
+	 * @param c	OWL class
+	 * @return Class id
+	 */
+	private int getId(OWLClass c) {
+		Integer id = ids.get(c);
+		if(id == null) {
+			id = ids.size();
+			ids.put(c, id);
+			extraIRIs.add(c.getIRI().toString());
+		}
+		return id;
+	}
+	
+	
+	/**
+	 * Check whether the output file was written, i.e., at least one subsumption was seen
+	 * @return true if the output file was written, false otherwise
+	 */
+	public boolean wroteOutput() {
+		return count > 0;
+	}
+	
+	
+	/**
+	 * Get the number of distinct subsumptions written, which is final once the pipeline is finished
+	 * @return Number of subsumptions
+	 */
+	public int getNumberOfSubsumptions() {
+		return nrSubsumptions;
+	}
+	
+	
+	/**
+	 * Get the output file path
+	 * @return Output file path
+	 */
+	public String getFilePath() {
+		return file.getAbsolutePath();
+	}
+	
+	
+	/**
+	 * Write a set of atomic subsumptions (e.g., loaded from an OWL file) to a binary taxonomy file
+	 * @param axioms	Set of axioms; axioms other than atomic subsumptions are ignored
+	 * @param filePath	Output file path
+	 * @return true if the file was written, false otherwise
+	 * @throws IOException
+	 */
+	public static boolean write(Set<OWLAxiom> axioms, String filePath) throws IOException {
+		Set<OWLClass> sig = new TreeSet<OWLClass>();
+		for(OWLAxiom ax : axioms)
+			sig.addAll(ax.getClassesInSignature());
+		TaxonomyWriter writer = new TaxonomyWriter(filePath, sig, null);
+		Map<OWLClass,List<OWLClass>> subs = new HashMap<OWLClass,List<OWLClass>>();
+		for(OWLAxiom ax : axioms) {
+			if(!(ax instanceof OWLSubClassOfAxiom)) continue;
+			OWLSubClassOfAxiom subAx = (OWLSubClassOfAxiom)ax;
+			if(subAx.getSubClass().isAnonymous() || subAx.getSuperClass().isAnonymous()) continue;
+			List<OWLClass> list = subs.get(subAx.getSubClass());
+			if(list == null) {
+				list = new ArrayList<OWLClass>();
+				subs.put(subAx.getSubClass().asOWLClass(), list);
+			}
+			list.add(subAx.getSuperClass().asOWLClass());
+		}
+		for(Map.Entry<OWLClass,List<OWLClass>> e : subs.entrySet())
+			for(OWLClass sup : e.getValue())
+				writer.handle(e.getKey(), sup);
+		writer.finish();
+		return writer.wroteOutput();
+	}
+	
+	
+	/**
+	 * Write the atomic subsumptions of a taxonomy to a binary taxonomy file
+	 * @param taxonomy	Taxonomy
+	 * @param filePath	Output file path
+	 * @return true if the file was written, i.e., there is at least one subsumption
+	 * @throws IOException
+	 */
+	public static boolean write(Taxonomy taxonomy, String filePath) throws IOException {
+		Set<OWLClass> sig = new TreeSet<OWLClass>();
+		for(int i = 0; i < taxonomy.getNumberOfClasses(); i++)
+			sig.add(taxonomy.getOWLClass(i));
+		TaxonomyWriter writer = new TaxonomyWriter(filePath, sig, null);
+		taxonomy.read(writer);
+		return writer.wroteOutput();
+	}
+	
+	
+	/**
+	 * Write an unsigned varint
+	 * @param out	Output stream
+	 * @param value	Non-negative integer
+	 * @throws IOException
+	 */
+	public static void writeVarint(OutputStream out, int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+}